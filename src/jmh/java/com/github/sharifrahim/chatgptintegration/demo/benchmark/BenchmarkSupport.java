@@ -0,0 +1,46 @@
+package com.github.sharifrahim.chatgptintegration.demo.benchmark;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Helpers shared by the benchmarks.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+final class BenchmarkSupport {
+
+    /**
+     * A ChatGPT response for {@code IslamicEventDetailDTO}, wrapped in a markdown code fence as ChatGPT
+     * usually returns it.
+     */
+    static final String EVENT_JSON = "```json\n{\"eventName\":\"Eid al Fitr\",\"origin\":\"Eid al Fitr marks the end of "
+        + "the month of fasting of Ramadan.\",\"originRefLink\":\"https://sunnah.com/bukhari:952\",\"sunnah\":\"Eat an "
+        + "odd number of dates before the prayer, take a different route back.\",\"sunnahRefLink\":"
+        + "\"https://sunnah.com/bukhari:953\"}\n```";
+
+    /**
+     * A ChatGPT response for {@code HadithOfTheDayDTO}.
+     */
+    static final String HADITH_JSON = "```json\n{\"content\":\"Actions are judged by intentions.\",\"status\":\"Sahih\","
+        + "\"reference\":\"Sahih al-Bukhari 1\"}\n```";
+
+    /**
+     * A ChatGPT response for {@code QuranOfTheDayDTO}.
+     */
+    static final String QURAN_JSON = "```json\n{\"quranTranslation\":\"Indeed, with hardship comes ease.\","
+        + "\"surah\":\"Ash-Sharh\",\"ayat\":\"94:6\"}\n```";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Limits logging to warnings, so that the services' request logging does not dominate the measurements.
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+}
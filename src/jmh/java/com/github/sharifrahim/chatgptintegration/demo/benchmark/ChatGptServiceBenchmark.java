@@ -0,0 +1,122 @@
+package com.github.sharifrahim.chatgptintegration.demo.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
+import com.github.sharifrahim.chatgptintegration.demo.support.ChatGptFixtures;
+import com.openai.client.OpenAIClient;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.services.blocking.ChatService;
+import com.openai.services.blocking.chat.ChatCompletionService;
+
+/**
+ * Measures the overhead {@link ChatGptServiceImpl#getResponse(com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy)}
+ * adds around a call to the OpenAI API.
+ * <p>
+ * The OpenAI client is stubbed to return a canned completion immediately, so the measurements cover building
+ * the request, the governor, metrics, decoding and caching. The stub itself costs a few constant mock
+ * invocations per call.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChatGptServiceBenchmark {
+
+    /**
+     * Service whose cache never holds the event details, so every call reaches the stubbed client.
+     */
+    private ChatGptServiceImpl uncachedService;
+
+    /**
+     * Service answering every call from its cache.
+     */
+    private ChatGptServiceImpl cachedService;
+
+    /**
+     * Governors of the services, stopped after the run.
+     */
+    private OpenAIGovernor uncachedGovernor;
+
+    private OpenAIGovernor cachedGovernor;
+
+    /**
+     * The strategy requested.
+     */
+    private IslamicEvent strategy;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+
+        ChatCompletion completion = ChatGptFixtures.completion(BenchmarkSupport.EVENT_JSON);
+        ChatCompletionService completions = mock(ChatCompletionService.class);
+        when(completions.create(any(ChatCompletionCreateParams.class))).thenReturn(completion);
+        ChatService chat = mock(ChatService.class);
+        when(chat.completions()).thenReturn(completions);
+        OpenAIClient openAiClient = mock(OpenAIClient.class);
+        when(openAiClient.chat()).thenReturn(chat);
+
+        strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+
+        ChatGptCacheProperties uncached = new ChatGptCacheProperties();
+        uncached.getTtl().put(IslamicEventDetailDTO.class.getSimpleName(), Duration.ZERO);
+        uncachedGovernor = ChatGptFixtures.unlimitedGovernor();
+        uncachedService = ChatGptFixtures.newService(openAiClient, uncached, uncachedGovernor);
+
+        cachedGovernor = ChatGptFixtures.unlimitedGovernor();
+        cachedService = ChatGptFixtures.newService(openAiClient, new ChatGptCacheProperties(), cachedGovernor);
+        cachedService.getResponse(strategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        uncachedGovernor.close();
+        cachedGovernor.close();
+    }
+
+    /**
+     * A call that misses the cache and goes through the whole pipeline.
+     */
+    @Benchmark
+    public IslamicEventDetailDTO getResponseUncached() throws Exception {
+        return uncachedService.getResponse(strategy);
+    }
+
+    /**
+     * A call answered from the cache.
+     */
+    @Benchmark
+    public IslamicEventDetailDTO getResponseCached() throws Exception {
+        return cachedService.getResponse(strategy);
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.sharifrahim.chatgptintegration.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sharifrahim.chatgptintegration.demo.dto.HadithOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchema;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchemaRegistry;
+
+/**
+ * Measures fence stripping and deserialization of each response DTO.
+ * <p>
+ * {@link #decode()} reads the JSON in place through the shared, warmed-up reader of the
+ * {@link ResponseSchemaRegistry}. {@link #decodeWithFreshMapper()} reproduces the former approach of
+ * trimming the fence into new strings and deserializing with a new {@link ObjectMapper}, as a baseline.
+ * {@link #describeFormat()} measures building the system prompt from an empty instance, which the registry
+ * now does once per type.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    /**
+     * Simple name of the response type decoded.
+     */
+    @Param({ "IslamicEventDetailDTO", "HadithOfTheDayDTO", "QuranOfTheDayDTO" })
+    public String responseType;
+
+    /**
+     * The response type decoded.
+     */
+    private Class<?> type;
+
+    /**
+     * The response content, wrapped in a markdown code fence.
+     */
+    private String content;
+
+    /**
+     * The precomputed schema of the response type.
+     */
+    private ResponseSchema<?> schema;
+
+    @Setup
+    public void setUp() {
+        switch (responseType) {
+            case "IslamicEventDetailDTO" -> {
+                type = IslamicEventDetailDTO.class;
+                content = BenchmarkSupport.EVENT_JSON;
+            }
+            case "HadithOfTheDayDTO" -> {
+                type = HadithOfTheDayDTO.class;
+                content = BenchmarkSupport.HADITH_JSON;
+            }
+            case "QuranOfTheDayDTO" -> {
+                type = QuranOfTheDayDTO.class;
+                content = BenchmarkSupport.QURAN_JSON;
+            }
+            default -> throw new IllegalArgumentException("Unknown response type " + responseType);
+        }
+        schema = new ResponseSchemaRegistry(List.of(type)).get(type);
+    }
+
+    /**
+     * Decodes the response in place with the shared reader.
+     */
+    @Benchmark
+    public Object decode() throws Exception {
+        return schema.read(content);
+    }
+
+    /**
+     * Strips the fence into new strings and deserializes with a new mapper.
+     */
+    @Benchmark
+    public Object decodeWithFreshMapper() throws Exception {
+        String json = content;
+        if (json.startsWith("```")) {
+            int firstNewline = json.indexOf("\n");
+            if (firstNewline != -1) {
+                json = json.substring(firstNewline + 1);
+            }
+        }
+        if (json.endsWith("```")) {
+            json = json.substring(0, json.lastIndexOf("```"));
+        }
+        return new ObjectMapper().readValue(json.trim(), type);
+    }
+
+    /**
+     * Builds the expected JSON format from an empty instance with a new mapper.
+     */
+    @Benchmark
+    public String describeFormat() throws Exception {
+        Object instance = type.getDeclaredConstructor().newInstance();
+        return "Response in this json format : " + new ObjectMapper().writeValueAsString(instance) + ". Only output JSON.";
+    }
+}
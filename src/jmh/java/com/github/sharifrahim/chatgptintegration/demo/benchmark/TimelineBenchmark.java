@@ -0,0 +1,125 @@
+package com.github.sharifrahim.chatgptintegration.demo.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.ui.ExtendedModelMap;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.github.sharifrahim.chatgptintegration.demo.cache.TimelinePageCache;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.JdkHijrahCalendarSource;
+import com.github.sharifrahim.chatgptintegration.demo.controller.TimelineController;
+import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
+import com.github.sharifrahim.chatgptintegration.demo.service.DailyContentService;
+import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
+
+/**
+ * Measures the timeline page and the timeline events it lists.
+ * <p>
+ * {@link #timelinePage()} runs {@link TimelineController#timeline} with no daily content, which serves the
+ * page rendered once from the cache. {@link #renderTimelinePage()} formats the Hijri and Gregorian dates and
+ * renders the template, as on a cache miss. {@link #eventsForCurrentYear()} reads the precomputed events of
+ * the current Hijri year.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimelineBenchmark {
+
+    /**
+     * The controller rendering the timeline page.
+     */
+    private TimelineController timelineController;
+
+    /**
+     * The engine rendering the timeline template.
+     */
+    private SpringTemplateEngine templateEngine;
+
+    /**
+     * The service computing the timeline events.
+     */
+    private IslamicEventService islamicEventService;
+
+    @Setup
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+
+        // The page only reads the daily content, so ChatGPT is never called.
+        ChatGptService chatGptService = new ChatGptService() {
+            @Override
+            public <T> T getResponse(String userMessage, Class<T> responseType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> CompletableFuture<T> getResponseAsync(String userMessage, Class<T> responseType) {
+                return CompletableFuture.failedFuture(new UnsupportedOperationException());
+            }
+        };
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        HijriCalendarConverter calendarConverter = new HijriCalendarConverter(new JdkHijrahCalendarSource());
+        timelineController = new TimelineController(new DailyContentService(chatGptService, calendarConverter),
+            templateEngine, new TimelinePageCache(), calendarConverter);
+
+        islamicEventService = new IslamicEventService(calendarConverter);
+        islamicEventService.precompute();
+    }
+
+    /**
+     * Serves the timeline page from the cache.
+     */
+    @Benchmark
+    public ResponseEntity<byte[]> timelinePage() throws IOException {
+        // The page is not progressive here, so it is returned rather than written to a response.
+        return timelineController.timeline(Locale.ENGLISH, null, null);
+    }
+
+    /**
+     * Renders the timeline page without the cache.
+     */
+    @Benchmark
+    public String renderTimelinePage() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        timelineController.addTimelineAttributes(model, LocalDate.now(), null);
+        return templateEngine.process("timeline", new Context(Locale.ENGLISH, model));
+    }
+
+    /**
+     * Lists the events of the current Hijri year.
+     */
+    @Benchmark
+    public List<TimelineItemDTO> eventsForCurrentYear() {
+        return islamicEventService.getIslamicEventsForCurrentYear();
+    }
+}
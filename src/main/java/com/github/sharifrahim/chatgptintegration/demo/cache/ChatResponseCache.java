@@ -0,0 +1,166 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory cache for deserialized ChatGPT responses.
+ * <p>
+ * Entries are keyed by {@link ChatResponseKey} and bounded in size using Caffeine's W-TinyLFU
+ * eviction policy. Each entry expires after the time-to-live configured for its response type.
+ * Hit, miss and eviction statistics are recorded and available through {@link #stats()}.
+ * </p>
+ * <p>
+ * The last response stored under each key is also kept past its time-to-live, in a second cache of the same
+ * size, and returned by {@link #getStale(ChatResponseKey)}. Stale responses are served while the OpenAI API
+ * is unavailable.
+ * </p>
+ * <p>
+ * Cached responses are shared between callers and must be treated as read-only.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class ChatResponseCache {
+
+    /**
+     * Properties controlling cache size and time-to-live.
+     */
+    private final ChatGptCacheProperties properties;
+
+    /**
+     * The underlying Caffeine cache.
+     */
+    private final Cache<ChatResponseKey, Object> cache;
+
+    /**
+     * The last response stored under each key, kept regardless of its time-to-live.
+     */
+    private final Cache<ChatResponseKey, Object> staleCache;
+
+    /**
+     * Creates the cache using the given properties.
+     *
+     * @param properties the cache configuration.
+     */
+    public ChatResponseCache(ChatGptCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfter(new ResponseTypeExpiry(properties))
+            .recordStats()
+            .build();
+        this.staleCache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .build();
+        log.info("ChatResponseCache created with maximum size {} and default TTL {}.",
+            properties.getMaximumSize(), properties.getDefaultTtl());
+    }
+
+    /**
+     * Returns the cached response for the given key.
+     *
+     * @param key the cache key.
+     * @param <T> the type of the response.
+     * @return the cached response, or {@code null} if absent or expired.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ChatResponseKey key) {
+        return (T) cache.getIfPresent(key);
+    }
+
+    /**
+     * Returns the last response stored under the given key, even if it has expired.
+     *
+     * @param key the cache key.
+     * @param <T> the type of the response.
+     * @return the last stored response, or {@code null} if none was stored or it has been evicted.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getStale(ChatResponseKey key) {
+        return (T) staleCache.getIfPresent(key);
+    }
+
+    /**
+     * Stores a response under the given key, unless caching is disabled for its response type.
+     *
+     * @param key      the cache key.
+     * @param response the deserialized response.
+     */
+    public void put(ChatResponseKey key, Object response) {
+        if (!isCacheable(key.responseType())) {
+            log.debug("Caching disabled for response type {}.", key.responseType().getSimpleName());
+            return;
+        }
+        cache.put(key, response);
+        staleCache.put(key, response);
+    }
+
+    /**
+     * Indicates whether responses of the given type are cached at all.
+     *
+     * @param responseType the class type of the response.
+     * @return {@code true} if the configured TTL for the type is positive.
+     */
+    public boolean isCacheable(Class<?> responseType) {
+        Duration ttl = properties.ttlFor(responseType);
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction statistics.
+     *
+     * @return the current {@link CacheStats}.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the approximate number of cached responses.
+     *
+     * @return the estimated number of entries.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Expiry policy assigning each entry the TTL configured for its response type.
+     */
+    private static final class ResponseTypeExpiry implements Expiry<ChatResponseKey, Object> {
+
+        private final ChatGptCacheProperties properties;
+
+        private ResponseTypeExpiry(ChatGptCacheProperties properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public long expireAfterCreate(ChatResponseKey key, Object value, long currentTime) {
+            return properties.ttlFor(key.responseType()).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(ChatResponseKey key, Object value, long currentTime, long currentDuration) {
+            return properties.ttlFor(key.responseType()).toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(ChatResponseKey key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
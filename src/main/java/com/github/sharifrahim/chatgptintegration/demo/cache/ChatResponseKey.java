@@ -0,0 +1,18 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+/**
+ * Cache key identifying a ChatGPT response.
+ * <p>
+ * Two requests share a key only when they send the same prompt, expect the same response type
+ * and are answered by the same model.
+ * </p>
+ *
+ * @param userMessage  the prompt sent to ChatGPT.
+ * @param responseType the class type of the expected response.
+ * @param model        the name of the model answering the prompt.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public record ChatResponseKey(String userMessage, Class<?> responseType, String model) {
+}
@@ -0,0 +1,430 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptStoreProperties;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Durable on-disk store for deserialized ChatGPT responses.
+ * <p>
+ * Responses are appended as one JSON record per line to a log file and located through an in-memory
+ * index of {@link ChatResponseKey} to file offset. The index is built lazily from the log on first use,
+ * so responses paid for before a restart are available again without contacting the API. Records
+ * older than the TTL configured for their response type are treated as absent.
+ * </p>
+ * <p>
+ * Superseded and expired records are removed by a background compaction that rewrites the log with
+ * only the live records once they are outnumbered by obsolete ones.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class ChatResponseStore {
+
+    /**
+     * Mapper used to write and read the log records.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Properties controlling the location of the log and compaction.
+     */
+    private final ChatGptStoreProperties properties;
+
+    /**
+     * Properties providing the time-to-live of each response type.
+     */
+    private final ChatGptCacheProperties cacheProperties;
+
+    /**
+     * Location of each live record in the log, by key.
+     */
+    private final Map<ChatResponseKey, IndexEntry> index = new ConcurrentHashMap<>();
+
+    /**
+     * Guards the log file: reads share the lock, appends and compaction hold it exclusively.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Number of records in the log that are no longer referenced by the index.
+     */
+    private final AtomicLong obsoleteRecords = new AtomicLong();
+
+    /**
+     * Channel to the log file, opened when the index is loaded.
+     */
+    private FileChannel channel;
+
+    /**
+     * Whether the index has been loaded from the log.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Creates the store using the given properties.
+     *
+     * @param properties      the store configuration.
+     * @param cacheProperties the cache configuration providing the response TTLs.
+     */
+    public ChatResponseStore(ChatGptStoreProperties properties, ChatGptCacheProperties cacheProperties) {
+        this.properties = properties;
+        this.cacheProperties = cacheProperties;
+    }
+
+    /**
+     * Returns the persisted response for the given key.
+     *
+     * @param key the cache key.
+     * @param <T> the type of the response.
+     * @return the persisted response, or {@code null} if absent, expired or unreadable.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(ChatResponseKey key) {
+        if (!properties.isEnabled() || !ensureLoaded()) {
+            return null;
+        }
+        // Look the record up under the lock, since compaction moves records and rewrites their offsets
+        lock.readLock().lock();
+        try {
+            IndexEntry entry = index.get(key);
+            if (entry == null || isExpired(key, entry)) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(entry.length());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, entry.offset() + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of log");
+                }
+            }
+            StoredResponse record = objectMapper.readValue(buffer.array(), StoredResponse.class);
+            if (!isRecordOf(record, key)) {
+                log.warn("Persisted record at offset {} does not match its key, ignoring it.", entry.offset());
+                return null;
+            }
+            log.debug("Loaded persisted response of type {}.", key.responseType().getSimpleName());
+            return (T) objectMapper.treeToValue(record.response(), key.responseType());
+        } catch (IOException e) {
+            log.warn("Failed to read persisted response of type {}.", key.responseType().getSimpleName(), e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a response to the log, unless caching is disabled for its response type.
+     * <p>
+     * Failures are logged and otherwise ignored, since the store is only an optimisation.
+     * </p>
+     *
+     * @param key      the cache key.
+     * @param response the deserialized response.
+     */
+    public void put(ChatResponseKey key, Object response) {
+        if (!properties.isEnabled() || !isCacheable(key.responseType()) || !ensureLoaded()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            StoredResponse record = new StoredResponse(key.userMessage(), key.responseType().getName(), key.model(),
+                System.currentTimeMillis(), objectMapper.valueToTree(response));
+            byte[] line = toLine(record);
+            long offset = channel.size();
+            write(ByteBuffer.wrap(line), offset);
+            if (index.put(key, new IndexEntry(offset, line.length, record.storedAt())) != null) {
+                obsoleteRecords.incrementAndGet();
+            }
+            log.debug("Persisted response of type {} at offset {}.", key.responseType().getSimpleName(), offset);
+        } catch (IOException e) {
+            log.warn("Failed to persist response of type {}.", key.responseType().getSimpleName(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of live records in the store.
+     *
+     * @return the number of indexed records.
+     */
+    public int size() {
+        return properties.isEnabled() && ensureLoaded() ? index.size() : 0;
+    }
+
+    /**
+     * Rewrites the log without superseded or expired records once they outnumber the live records by the
+     * configured threshold.
+     * <p>
+     * Runs in the background on the schedule configured by {@code chatgpt.store.compaction-interval}.
+     * </p>
+     */
+    @Scheduled(fixedDelayString = "${chatgpt.store.compaction-interval:PT1H}",
+        initialDelayString = "${chatgpt.store.compaction-interval:PT1H}")
+    public void compactIfNeeded() {
+        if (!properties.isEnabled() || !loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.entrySet().removeIf(e -> {
+                boolean expired = isExpired(e.getKey(), e.getValue());
+                if (expired) {
+                    obsoleteRecords.incrementAndGet();
+                }
+                return expired;
+            });
+            long obsolete = obsoleteRecords.get();
+            if (obsolete > 0 && obsolete >= index.size() * properties.getCompactionThreshold()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log so that it only contains the records referenced by the index.
+     */
+    public void compact() {
+        if (!properties.isEnabled() || !ensureLoaded()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Path path = properties.getPath();
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            Map<ChatResponseKey, IndexEntry> rewritten = new ConcurrentHashMap<>();
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long offset = 0;
+                for (Map.Entry<ChatResponseKey, IndexEntry> entry : index.entrySet()) {
+                    IndexEntry source = entry.getValue();
+                    transfer(source, target);
+                    rewritten.put(entry.getKey(), new IndexEntry(offset, source.length(), source.storedAt()));
+                    offset += source.length();
+                }
+                target.force(true);
+            }
+
+            channel.close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(path);
+            index.clear();
+            index.putAll(rewritten);
+            log.info("Compacted response store: removed {} obsolete records, {} live records remain.",
+                obsoleteRecords.get(), rewritten.size());
+            obsoleteRecords.set(0);
+        } catch (IOException e) {
+            // The original log is only replaced once the compacted log is complete
+            log.warn("Failed to compact response store, keeping the existing log.", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a buffer to the log at the given offset, continuing after short writes until it is drained.
+     */
+    private void write(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Copies a record from the log to the end of another channel, continuing after short transfers.
+     *
+     * @throws IOException if the log ends before the whole record has been copied.
+     */
+    private void transfer(IndexEntry source, FileChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < source.length()) {
+            long count = channel.transferTo(source.offset() + transferred, source.length() - transferred, target);
+            if (count <= 0) {
+                throw new IOException("Log ended within the record at offset " + source.offset());
+            }
+            transferred += count;
+        }
+    }
+
+    /**
+     * Closes the log file.
+     */
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close response store.", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the index from the log on first use.
+     *
+     * @return {@code true} if the store is usable.
+     */
+    private boolean ensureLoaded() {
+        if (loaded) {
+            return channel != null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return channel != null;
+    }
+
+    /**
+     * Scans the log and indexes the latest record of each key.
+     * <p>
+     * Records that cannot be parsed or whose response type no longer exists are skipped. A partially
+     * written record at the end of the log, left by a crash, is truncated.
+     * </p>
+     */
+    private void load() {
+        Path path = properties.getPath();
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = open(path);
+
+            long offset = 0;
+            long lineStart = 0;
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                indexRecord(line.toByteArray(), lineStart, (int) (offset - lineStart));
+                line.reset();
+                lineStart = offset;
+            }
+            if (lineStart < offset) {
+                log.warn("Truncating partially written record at offset {} of {}.", lineStart, path);
+                channel.truncate(lineStart);
+            }
+            log.info("Loaded response store {} with {} records ({} obsolete).", path, index.size(), obsoleteRecords.get());
+        } catch (IOException e) {
+            log.warn("Response store {} is unavailable, responses will not be persisted.", path, e);
+            channel = null;
+        }
+    }
+
+    /**
+     * Adds a record read from the log to the index.
+     */
+    private void indexRecord(byte[] line, long offset, int length) {
+        try {
+            StoredResponse record = objectMapper.readValue(line, StoredResponse.class);
+            ChatResponseKey key = new ChatResponseKey(record.userMessage(), Class.forName(record.responseType()),
+                record.model());
+            if (index.put(key, new IndexEntry(offset, length, record.storedAt())) != null) {
+                obsoleteRecords.incrementAndGet();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            log.debug("Skipping unreadable record at offset {}.", offset, e);
+            obsoleteRecords.incrementAndGet();
+        }
+    }
+
+    /**
+     * Serializes a record to a single newline-terminated line.
+     */
+    private byte[] toLine(StoredResponse record) throws IOException {
+        return (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Indicates whether responses of the given type are stored at all.
+     */
+    private boolean isCacheable(Class<?> responseType) {
+        Duration ttl = cacheProperties.ttlFor(responseType);
+        return !ttl.isZero() && !ttl.isNegative();
+    }
+
+    /**
+     * Indicates whether the record has outlived the TTL of its response type.
+     */
+    private boolean isExpired(ChatResponseKey key, IndexEntry entry) {
+        Instant expiresAt = Instant.ofEpochMilli(entry.storedAt()).plus(cacheProperties.ttlFor(key.responseType()));
+        return !expiresAt.isAfter(Instant.now());
+    }
+
+    /**
+     * Indicates whether a record read from the log was stored under the given key.
+     */
+    private static boolean isRecordOf(StoredResponse record, ChatResponseKey key) {
+        return key.userMessage().equals(record.userMessage())
+            && key.responseType().getName().equals(record.responseType())
+            && Objects.equals(key.model(), record.model());
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Location of a record in the log.
+     */
+    private record IndexEntry(long offset, int length, long storedAt) {
+    }
+
+    /**
+     * A record of the log: the key fields, the time it was stored and the response as JSON.
+     */
+    private record StoredResponse(String userMessage, String responseType, String model, long storedAt,
+                                  JsonNode response) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces concurrent executions of the same keyed call.
+ * <p>
+ * The first caller for a key becomes the leader and performs the call. Callers arriving with the same
+ * key while the leader is still in flight wait for the leader and receive its result, or its exception,
+ * instead of performing the call themselves. Once the leader completes, the key is released and the
+ * next caller starts a new call.
+ * </p>
+ * <p>
+ * Blocking and asynchronous callers share the same in-flight calls, so a blocking caller may be served by
+ * an asynchronous leader and vice versa.
+ * </p>
+ *
+ * @param <K> the type of the key identifying identical calls.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+public class SingleFlight<K> {
+
+    /**
+     * Results of the calls currently in flight, by key.
+     */
+    private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Number of callers that were served by another caller's in-flight call.
+     */
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Executes the call for the given key, or waits for an identical call already in flight.
+     *
+     * @param key  the key identifying identical calls.
+     * @param call the call to perform if no identical call is in flight.
+     * @param <V>  the type of the result.
+     * @return the result of the call.
+     * @throws Exception the exception thrown by the call.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(K key, Callable<V> call) throws Exception {
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            // Another caller is already performing this call, wait for its result.
+            log.info("Coalescing request with in-flight call (total coalesced: {}).", coalesced.incrementAndGet());
+            try {
+                return (V) existing.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        try {
+            V result = call.call();
+            leader.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Release the waiters whatever the call throws, errors included, before rethrowing
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    /**
+     * Starts the asynchronous call for the given key, or joins an identical call already in flight.
+     * <p>
+     * Each caller receives its own dependent future, so cancelling it does not affect other callers
+     * sharing the same call.
+     * </p>
+     *
+     * @param key  the key identifying identical calls.
+     * @param call supplies the future of the call to perform if no identical call is in flight.
+     * @param <V>  the type of the result.
+     * @return a future completed with the result of the call.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            log.info("Coalescing request with in-flight call (total coalesced: {}).", coalesced.incrementAndGet());
+            return existing.thenApply(result -> (V) result);
+        }
+
+        CompletableFuture<V> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((result, error) -> {
+            inFlight.remove(key, leader);
+            if (error != null) {
+                leader.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+            } else {
+                leader.complete(result);
+            }
+        });
+        return leader.thenApply(result -> (V) result);
+    }
+
+    /**
+     * Returns the number of callers that were served by another caller's in-flight call.
+     *
+     * @return the total number of coalesced calls.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of distinct calls currently in flight.
+     *
+     * @return the number of in-flight keys.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Extracts the original exception thrown by the leader.
+     */
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception exception) {
+            return exception;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return e;
+    }
+}
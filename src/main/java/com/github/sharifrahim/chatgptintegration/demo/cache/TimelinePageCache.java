@@ -0,0 +1,93 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the rendered timeline page, per locale.
+ * <p>
+ * The page only changes when the day or the daily content changes, so its HTML is rendered once and then
+ * served as is. Each entry records the day and the {@link DailyContentDTO} instance it was rendered from, and
+ * is rendered again as soon as either differs: the daily content is published as a new instance whenever it
+ * is regenerated. Entries carry an ETag computed from the HTML and the time they were rendered, for
+ * conditional requests.
+ * </p>
+ * <p>
+ * The number of locales cached is bounded, since locales come from the request.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class TimelinePageCache {
+
+    /**
+     * Maximum number of locales whose page is cached.
+     */
+    static final int MAXIMUM_LOCALES = 50;
+
+    /**
+     * The rendered page by locale.
+     */
+    private final Cache<Locale, RenderedPage> pages = Caffeine.newBuilder()
+        .maximumSize(MAXIMUM_LOCALES)
+        .build();
+
+    /**
+     * Returns the page for a locale, rendering it if it is not cached for the given day and content.
+     *
+     * @param locale   the locale of the page.
+     * @param day      the day the page shows.
+     * @param content  the daily content the page shows, or {@code null} if there is none yet.
+     * @param renderer renders the HTML of the page.
+     * @return the rendered page.
+     */
+    public RenderedPage get(Locale locale, LocalDate day, DailyContentDTO content, Supplier<byte[]> renderer) {
+        RenderedPage page = pages.getIfPresent(locale);
+        if (page != null && page.isFor(day, content)) {
+            return page;
+        }
+        return pages.asMap().compute(locale, (key, existing) -> {
+            if (existing != null && existing.isFor(day, content)) {
+                return existing;
+            }
+            byte[] html = renderer.get();
+            log.info("Rendered timeline page for {} in locale {}.", day, locale);
+            return new RenderedPage(day, content, html, DigestUtils.md5DigestAsHex(html),
+                Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        });
+    }
+
+    /**
+     * A rendered page.
+     *
+     * @param day          the day the page shows.
+     * @param content      the daily content the page shows, or {@code null}.
+     * @param html         the HTML of the page, encoded in UTF-8; shared and must not be modified.
+     * @param etag         the entity tag of the HTML, without quotes.
+     * @param lastModified the time the page was rendered.
+     */
+    public record RenderedPage(LocalDate day, DailyContentDTO content, byte[] html, String etag, Instant lastModified) {
+
+        /**
+         * Indicates whether the page was rendered for the given day and the same content instance.
+         */
+        private boolean isFor(LocalDate day, DailyContentDTO content) {
+            return this.day.equals(day) && this.content == content;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts between Hijri dates and epoch days using precomputed lookup tables.
+ * <p>
+ * At construction the epoch day of the first day of every Hijri month in the supported range is read
+ * from a {@link HijriCalendarSource} into a single {@code int[]}. Afterwards, converting a
+ * (year, month, day) to an epoch day is an array lookup and converting an epoch day back is a binary
+ * search over the same array. Neither direction allocates.
+ * </p>
+ * <p>
+ * Hijri dates can be returned packed into a single {@code int} as {@code year * 10000 + month * 100 + day}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+public final class HijriCalendarConverter {
+
+    /**
+     * Name of the source the tables were built from.
+     */
+    private final String sourceName;
+
+    /**
+     * First Hijri year of the tables.
+     */
+    private final int minYear;
+
+    /**
+     * Last Hijri year of the tables.
+     */
+    private final int maxYear;
+
+    /**
+     * Epoch day of the first day of each month, indexed by {@code (year - minYear) * 12 + month - 1}.
+     * The final element is the epoch day following the last month of {@link #maxYear}.
+     */
+    private final int[] monthStarts;
+
+    /**
+     * Builds the tables for every year supported by the source.
+     *
+     * @param source the calendar source.
+     */
+    public HijriCalendarConverter(HijriCalendarSource source) {
+        this(source, source.getMinYear(), source.getMaxYear());
+    }
+
+    /**
+     * Builds the tables for a range of Hijri years.
+     *
+     * @param source  the calendar source.
+     * @param minYear the first Hijri year of the tables.
+     * @param maxYear the last Hijri year of the tables.
+     * @throws IllegalArgumentException if the range is empty or not supported by the source.
+     */
+    public HijriCalendarConverter(HijriCalendarSource source, int minYear, int maxYear) {
+        if (minYear > maxYear || minYear < source.getMinYear() || maxYear > source.getMaxYear()) {
+            throw new IllegalArgumentException("Hijri years " + minYear + "-" + maxYear + " are not supported by source "
+                + source.getName() + " (" + source.getMinYear() + "-" + source.getMaxYear() + ")");
+        }
+        this.sourceName = source.getName();
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+
+        int months = (maxYear - minYear + 1) * 12;
+        this.monthStarts = new int[months + 1];
+        for (int year = minYear; year <= maxYear; year++) {
+            for (int month = 1; month <= 12; month++) {
+                monthStarts[(year - minYear) * 12 + month - 1] = Math.toIntExact(source.getMonthStartEpochDay(year, month));
+            }
+        }
+        monthStarts[months] = monthStarts[months - 1] + source.getLengthOfMonth(maxYear, 12);
+        log.info("Built Hijri conversion tables for years {}-{} from source {}.", minYear, maxYear, sourceName);
+    }
+
+    /**
+     * Returns the name of the source the tables were built from.
+     *
+     * @return the source name.
+     */
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /**
+     * Returns the first Hijri year supported by this converter.
+     *
+     * @return the minimum Hijri year.
+     */
+    public int getMinYear() {
+        return minYear;
+    }
+
+    /**
+     * Returns the last Hijri year supported by this converter.
+     *
+     * @return the maximum Hijri year.
+     */
+    public int getMaxYear() {
+        return maxYear;
+    }
+
+    /**
+     * Converts a Hijri date to an epoch day.
+     *
+     * @param year  the Hijri year.
+     * @param month the Hijri month (1-12).
+     * @param day   the day of the month.
+     * @return the number of days since 1970-01-01.
+     * @throws IllegalArgumentException if the date is invalid or outside the supported range.
+     */
+    public int toEpochDay(int year, int month, int day) {
+        int index = monthIndex(year, month);
+        int start = monthStarts[index];
+        if (day < 1 || day > monthStarts[index + 1] - start) {
+            throw new IllegalArgumentException("Invalid day " + day + " for Hijri month " + year + "-" + month);
+        }
+        return start + day - 1;
+    }
+
+    /**
+     * Returns the number of days in a Hijri month.
+     *
+     * @param year  the Hijri year.
+     * @param month the Hijri month (1-12).
+     * @return the length of the month in days.
+     * @throws IllegalArgumentException if the month is outside the supported range.
+     */
+    public int lengthOfMonth(int year, int month) {
+        int index = monthIndex(year, month);
+        return monthStarts[index + 1] - monthStarts[index];
+    }
+
+    /**
+     * Converts a fixed Hijri month and day in every year of a range to epoch days.
+     * <p>
+     * The result holds, for each year from {@code fromYear} to {@code toYear}, the epoch day of every
+     * (month, day) pair in order, i.e. the epoch day of pair {@code i} in year {@code y} is at index
+     * {@code (y - fromYear) * months.length + i}.
+     * </p>
+     *
+     * @param fromYear the first Hijri year, inclusive.
+     * @param toYear   the last Hijri year, inclusive.
+     * @param months   the Hijri months (1-12) of the dates.
+     * @param days     the days of the month of the dates, parallel to {@code months}.
+     * @return the epoch days of the dates in every year of the range.
+     * @throws IllegalArgumentException if any date is invalid or outside the supported range.
+     */
+    public int[] toEpochDays(int fromYear, int toYear, int[] months, int[] days) {
+        if (months.length != days.length) {
+            throw new IllegalArgumentException("months and days must have the same length");
+        }
+        if (fromYear > toYear) {
+            throw new IllegalArgumentException("Empty Hijri year range: " + fromYear + "-" + toYear);
+        }
+        int[] epochDays = new int[(toYear - fromYear + 1) * months.length];
+        int i = 0;
+        for (int year = fromYear; year <= toYear; year++) {
+            for (int d = 0; d < months.length; d++) {
+                epochDays[i++] = toEpochDay(year, months[d], days[d]);
+            }
+        }
+        return epochDays;
+    }
+
+    /**
+     * Converts an epoch day to a packed Hijri date.
+     *
+     * @param epochDay the number of days since 1970-01-01.
+     * @return the Hijri date as {@code year * 10000 + month * 100 + day}.
+     * @throws IllegalArgumentException if the day is outside the supported range.
+     */
+    public int toHijri(int epochDay) {
+        if (epochDay < monthStarts[0] || epochDay >= monthStarts[monthStarts.length - 1]) {
+            throw new IllegalArgumentException("Epoch day " + epochDay + " is outside Hijri years " + minYear + "-" + maxYear);
+        }
+        int index = Arrays.binarySearch(monthStarts, epochDay);
+        if (index < 0) {
+            // Not a month start: the month is the one starting before the insertion point.
+            index = -index - 2;
+        }
+        int year = minYear + index / 12;
+        int month = index % 12 + 1;
+        int day = epochDay - monthStarts[index] + 1;
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Converts a Gregorian date to a packed Hijri date.
+     *
+     * @param date the Gregorian date.
+     * @return the Hijri date as {@code year * 10000 + month * 100 + day}.
+     * @throws IllegalArgumentException if the date is outside the supported range.
+     */
+    public int toHijri(LocalDate date) {
+        return toHijri(Math.toIntExact(date.toEpochDay()));
+    }
+
+    /**
+     * Formats a packed Hijri date as {@code yyyy-MM-dd}.
+     *
+     * @param hijriDate the Hijri date as {@code year * 10000 + month * 100 + day}.
+     * @return the formatted date, e.g. {@code 1446-09-01}.
+     */
+    public static String format(int hijriDate) {
+        return String.format("%04d-%02d-%02d", hijriDate / 10000, hijriDate / 100 % 100, hijriDate % 100);
+    }
+
+    /**
+     * Returns the Hijri year containing an epoch day.
+     *
+     * @param epochDay the number of days since 1970-01-01.
+     * @return the Hijri year.
+     * @throws IllegalArgumentException if the day is outside the supported range.
+     */
+    public int getYear(int epochDay) {
+        return toHijri(epochDay) / 10000;
+    }
+
+    /**
+     * Returns the index of a month in {@link #monthStarts}.
+     */
+    private int monthIndex(int year, int month) {
+        if (year < minYear || year > maxYear || month < 1 || month > 12) {
+            throw new IllegalArgumentException("Hijri month " + year + "-" + month + " is outside years " + minYear + "-" + maxYear);
+        }
+        return (year - minYear) * 12 + month - 1;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+/**
+ * Source of Hijri calendar data used to build the lookup tables of {@link HijriCalendarConverter}.
+ * <p>
+ * Implementations are only consulted while the tables are built, so they are free to be slow or
+ * allocation-heavy.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public interface HijriCalendarSource {
+
+    /**
+     * Returns the name of the calendar source.
+     *
+     * @return the name of the source, as used in the {@code calendar.source} property.
+     */
+    public String getName();
+
+    /**
+     * Returns the first Hijri year supported by the source.
+     *
+     * @return the minimum supported Hijri year.
+     */
+    public int getMinYear();
+
+    /**
+     * Returns the last Hijri year supported by the source.
+     *
+     * @return the maximum supported Hijri year.
+     */
+    public int getMaxYear();
+
+    /**
+     * Returns the epoch day of the first day of a Hijri month.
+     *
+     * @param year  the Hijri year.
+     * @param month the Hijri month (1-12).
+     * @return the number of days since 1970-01-01 of the first day of the month.
+     */
+    public long getMonthStartEpochDay(int year, int month);
+
+    /**
+     * Returns the number of days in a Hijri month.
+     *
+     * @param year  the Hijri year.
+     * @param month the Hijri month (1-12).
+     * @return the length of the month in days.
+     */
+    public int getLengthOfMonth(int year, int month);
+}
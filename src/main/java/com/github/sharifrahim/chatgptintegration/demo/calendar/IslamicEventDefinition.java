@@ -0,0 +1,36 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import java.util.List;
+
+/**
+ * Definition of a recurring Islamic event on the Hijri calendar.
+ * <p>
+ * The identifier is stable and identifies the event itself rather than a single occurrence,
+ * so the same event has the same identifier in every Hijri year.
+ * </p>
+ *
+ * @param id         the stable identifier of the event.
+ * @param hijriMonth the Hijri month of the event (1-12).
+ * @param hijriDay   the day of the Hijri month of the event.
+ * @param eventName  the name of the event.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public record IslamicEventDefinition(long id, int hijriMonth, int hijriDay, String eventName) {
+
+    /**
+     * The significant Islamic events shown on the timeline, in calendar order.
+     */
+    public static final List<IslamicEventDefinition> ALL = List.of(
+        new IslamicEventDefinition(1, 1, 1, "Start of the Hijri Year"),
+        new IslamicEventDefinition(2, 1, 10, "Day of Ashura"),
+        new IslamicEventDefinition(3, 3, 12, "Mawlid an Nabi"),
+        new IslamicEventDefinition(4, 7, 27, "Isra and Miraj"),
+        new IslamicEventDefinition(5, 8, 15, "Nisf Shaban"),
+        new IslamicEventDefinition(6, 9, 1, "Start of Ramadan"),
+        new IslamicEventDefinition(7, 9, 17, "Battle of Badr"),
+        new IslamicEventDefinition(8, 10, 1, "Eid al Fitr"),
+        new IslamicEventDefinition(9, 12, 9, "Yawm Arafah"),
+        new IslamicEventDefinition(10, 12, 10, "Eid al Adha"));
+}
@@ -0,0 +1,172 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry resolving the events shown on the timeline to their canonical definitions.
+ * <p>
+ * Events are looked up by their stable ID or by name. Names are folded before the lookup: diacritics and
+ * case are dropped along with every character other than letters and digits, so {@code "Eid al Fitr"},
+ * {@code "eid al fitr "} and {@code "Eid-al-Fitr"} all resolve to the same event. A name that still matches
+ * no event is compared with the event names by their character trigrams, and resolves to the most similar
+ * event if the similarity reaches {@link #MIN_SIMILARITY} and no other event is as similar.
+ * </p>
+ * <p>
+ * Requests built from the resolved definition use the canonical event name, so every spelling of an event
+ * shares one cache entry and one upstream call.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Component
+public class IslamicEventRegistry {
+
+    /**
+     * Minimum trigram similarity, as a Dice coefficient, for a name to resolve to an event it does not match
+     * exactly.
+     */
+    static final double MIN_SIMILARITY = 0.5;
+
+    /**
+     * Events by ID.
+     */
+    private final Map<Long, IslamicEventDefinition> byId;
+
+    /**
+     * Events by folded name.
+     */
+    private final Map<String, IslamicEventDefinition> byName;
+
+    /**
+     * Trigrams of the folded name of each event.
+     */
+    private final Map<IslamicEventDefinition, Set<String>> trigrams;
+
+    /**
+     * Creates the registry of the events in {@link IslamicEventDefinition#ALL}.
+     */
+    public IslamicEventRegistry() {
+        this(IslamicEventDefinition.ALL);
+    }
+
+    /**
+     * Creates the registry of the given events.
+     *
+     * @param events the events, whose IDs and folded names must be unique.
+     */
+    IslamicEventRegistry(List<IslamicEventDefinition> events) {
+        this.byId = events.stream().collect(Collectors.toUnmodifiableMap(IslamicEventDefinition::id, Function.identity()));
+        this.byName = events.stream().collect(Collectors.toUnmodifiableMap(event -> fold(event.eventName()), Function.identity()));
+        this.trigrams = events.stream().collect(Collectors.toUnmodifiableMap(Function.identity(), event -> trigramsOf(fold(event.eventName()))));
+    }
+
+    /**
+     * Finds an event by its stable ID.
+     *
+     * @param id the ID of the event.
+     * @return the event, or empty if no event has the ID.
+     */
+    public Optional<IslamicEventDefinition> findById(long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Finds an event by name, tolerating differences in case, diacritics, spacing and punctuation as well as
+     * small misspellings.
+     *
+     * @param eventName the name of the event.
+     * @return the event, or empty if the name matches no event or is as similar to several events.
+     */
+    public Optional<IslamicEventDefinition> findByName(String eventName) {
+        if (eventName == null) {
+            return Optional.empty();
+        }
+        String folded = fold(eventName);
+        if (folded.isEmpty()) {
+            return Optional.empty();
+        }
+        IslamicEventDefinition exact = byName.get(folded);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+
+        // Fall back to the most similar event, unless another one is as similar.
+        Set<String> nameTrigrams = trigramsOf(folded);
+        IslamicEventDefinition best = null;
+        double bestSimilarity = 0;
+        boolean tied = false;
+        for (Map.Entry<IslamicEventDefinition, Set<String>> entry : trigrams.entrySet()) {
+            double similarity = similarity(nameTrigrams, entry.getValue());
+            if (similarity > bestSimilarity) {
+                best = entry.getKey();
+                bestSimilarity = similarity;
+                tied = false;
+            } else if (similarity == bestSimilarity) {
+                tied = true;
+            }
+        }
+        return bestSimilarity >= MIN_SIMILARITY && !tied ? Optional.of(best) : Optional.empty();
+    }
+
+    /**
+     * Resolves an event by ID, falling back to its name when the ID is unknown or missing.
+     *
+     * @param id        the ID of the event (optional).
+     * @param eventName the name of the event (optional).
+     * @return the event, or empty if neither the ID nor the name identifies one.
+     */
+    public Optional<IslamicEventDefinition> resolve(Long id, String eventName) {
+        Optional<IslamicEventDefinition> event = id != null ? findById(id) : Optional.empty();
+        return event.isPresent() ? event : findByName(eventName);
+    }
+
+    /**
+     * Folds a name to the key of the name index: diacritics are stripped, the name is lower-cased and only
+     * letters and digits are kept.
+     *
+     * @param name the name to fold.
+     * @return the folded name.
+     */
+    static String fold(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        decomposed.codePoints()
+            .filter(Character::isLetterOrDigit)
+            // Modifier letters such as the ayn in "Shaʿban" are transliteration marks, not letters.
+            .filter(codePoint -> Character.getType(codePoint) != Character.MODIFIER_LETTER)
+            .forEach(folded::appendCodePoint);
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the character trigrams of a folded name, with its start and end marked so that short names
+     * still have trigrams.
+     */
+    private static Set<String> trigramsOf(String folded) {
+        String padded = "^" + folded + "$";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the Dice coefficient of two trigram sets, from 0 for nothing in common to 1 for the same set.
+     */
+    private static double similarity(Set<String> first, Set<String> second) {
+        long common = first.stream().filter(second::contains).count();
+        return 2.0 * common / (first.size() + second.size());
+    }
+}
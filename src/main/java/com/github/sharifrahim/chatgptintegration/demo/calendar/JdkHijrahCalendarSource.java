@@ -0,0 +1,50 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import java.time.chrono.HijrahChronology;
+import java.time.chrono.HijrahDate;
+import java.time.temporal.ChronoField;
+import java.time.temporal.ValueRange;
+
+/**
+ * Hijri calendar source backed by the JDK's {@link HijrahChronology}.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public class JdkHijrahCalendarSource implements HijriCalendarSource {
+
+    /**
+     * Name of this source in the {@code calendar.source} property.
+     */
+    public static final String NAME = "jdk";
+
+    /**
+     * Range of Hijri years supported by the JDK chronology.
+     */
+    private final ValueRange yearRange = HijrahChronology.INSTANCE.range(ChronoField.YEAR);
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getMinYear() {
+        return (int) yearRange.getMinimum();
+    }
+
+    @Override
+    public int getMaxYear() {
+        return (int) yearRange.getMaximum();
+    }
+
+    @Override
+    public long getMonthStartEpochDay(int year, int month) {
+        return HijrahDate.of(year, month, 1).toEpochDay();
+    }
+
+    @Override
+    public int getLengthOfMonth(int year, int month) {
+        return HijrahDate.of(year, month, 1).lengthOfMonth();
+    }
+}
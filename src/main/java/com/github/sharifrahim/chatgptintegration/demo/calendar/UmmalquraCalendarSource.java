@@ -0,0 +1,55 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import com.github.msarhan.ummalqura.calendar.UmmalquraCalendar;
+
+/**
+ * Hijri calendar source backed by the {@code ummalqura-calendar} library.
+ * <p>
+ * The library numbers months from 0, so months are shifted when delegating to it.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public class UmmalquraCalendarSource implements HijriCalendarSource {
+
+    /**
+     * Name of this source in the {@code calendar.source} property.
+     */
+    public static final String NAME = "ummalqura";
+
+    /**
+     * First Hijri year covered by the Umm al-Qura tables of the library.
+     */
+    private static final int MIN_YEAR = 1300;
+
+    /**
+     * Last Hijri year covered by the Umm al-Qura tables of the library.
+     */
+    private static final int MAX_YEAR = 1600;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int getMinYear() {
+        return MIN_YEAR;
+    }
+
+    @Override
+    public int getMaxYear() {
+        return MAX_YEAR;
+    }
+
+    @Override
+    public long getMonthStartEpochDay(int year, int month) {
+        return new UmmalquraCalendar(year, month - 1, 1).toZonedDateTime().toLocalDate().toEpochDay();
+    }
+
+    @Override
+    public int getLengthOfMonth(int year, int month) {
+        return UmmalquraCalendar.lengthOfMonth(year, month - 1);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openai.models.ChatCompletionCreateParams;
+
+/**
+ * Reads cassette files and derives the keys that match recorded requests to replayed ones.
+ * <p>
+ * A cassette is a text file holding one {@link CassetteInteraction} as JSON per line, in the order the
+ * responses completed. Requests are identified by a hash of their parameters, so a cassette only matches
+ * requests built the same way with the same version of the OpenAI SDK and must be recorded again when either
+ * changes.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class Cassette {
+
+    /**
+     * Mapper used to write and read the cassette lines.
+     */
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Cassette() {
+    }
+
+    /**
+     * Returns the key identifying a request in a cassette.
+     *
+     * @param params the request parameters.
+     * @return the SHA-256 hash of the parameters, in hexadecimal.
+     */
+    public static String keyOf(ChatCompletionCreateParams params) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(params.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Reads every interaction recorded in a cassette file.
+     *
+     * @param path the cassette file.
+     * @return the interactions, in the order they were recorded.
+     * @throws IOException if the file cannot be read or a line is not a valid interaction.
+     */
+    public static List<CassetteInteraction> read(Path path) throws IOException {
+        List<CassetteInteraction> interactions = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    interactions.add(OBJECT_MAPPER.readValue(line, CassetteInteraction.class));
+                }
+            }
+        }
+        return interactions;
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One recorded exchange with the chat completions API.
+ * <p>
+ * Only what is needed to replay the exchange is kept: the key of the request, the content and token usage of
+ * the response and its timing. Streamed responses also keep every content fragment with the time it arrived.
+ * </p>
+ *
+ * @param key              the key of the request, see {@link Cassette#keyOf}.
+ * @param model            the model the request was sent to.
+ * @param latencyMicros    the time from sending the request until the response was complete.
+ * @param content          the content of the response.
+ * @param promptTokens     the prompt tokens reported for the request.
+ * @param completionTokens the completion tokens reported for the request.
+ * @param chunks           the fragments of a streamed response, or {@code null} if it was not streamed.
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CassetteInteraction(String key, String model, long latencyMicros, String content, long promptTokens,
+    long completionTokens, List<Chunk> chunks) {
+
+    /**
+     * Returns whether the response was streamed.
+     *
+     * @return {@code true} if the fragments of the response were recorded.
+     */
+    @JsonIgnore
+    public boolean isStreamed() {
+        return chunks != null;
+    }
+
+    /**
+     * A fragment of a streamed response.
+     *
+     * @param offsetMicros the time from sending the request until the fragment arrived.
+     * @param content      the content of the fragment.
+     */
+    public record Chunk(long offsetMicros, String content) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Appends recorded interactions to a cassette file.
+ * <p>
+ * Each interaction is written and flushed as soon as it is recorded, so the cassette holds every completed
+ * exchange even if the application is stopped abruptly. Recording into an existing cassette adds to it.
+ * Instances are thread-safe.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+public class CassetteRecorder implements AutoCloseable {
+
+    /**
+     * The cassette file.
+     */
+    private final Path path;
+
+    /**
+     * Writer appending to the cassette file.
+     */
+    private final BufferedWriter writer;
+
+    /**
+     * Opens a cassette file for recording, creating it and its directory if needed.
+     *
+     * @param path the cassette file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CassetteRecorder(Path path) throws IOException {
+        this.path = path;
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+        log.info("Recording OpenAI interactions to cassette {}", path);
+    }
+
+    /**
+     * Appends an interaction to the cassette.
+     * <p>
+     * Failures are logged and otherwise ignored, so that recording never fails the call being recorded.
+     * </p>
+     *
+     * @param interaction the interaction to append.
+     */
+    public synchronized void record(CassetteInteraction interaction) {
+        try {
+            writer.write(Cassette.OBJECT_MAPPER.writeValueAsString(interaction));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Failed to record interaction to cassette {}.", path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
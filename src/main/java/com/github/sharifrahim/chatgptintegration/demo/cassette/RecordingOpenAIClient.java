@@ -0,0 +1,208 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import com.openai.client.OpenAIClient;
+import com.openai.client.OpenAIClientAsync;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.CompletionUsage;
+import com.openai.services.async.ChatServiceAsync;
+import com.openai.services.async.chat.ChatCompletionServiceAsync;
+import com.openai.services.blocking.ChatService;
+import com.openai.services.blocking.chat.ChatCompletionService;
+
+/**
+ * Decorates an {@link OpenAIClient} so that every chat completion made through it is recorded to a cassette.
+ * <p>
+ * Blocking, asynchronous and streaming chat completions are recorded once their response is complete; a
+ * streamed response is complete when it is closed, and only the fragments read before then are recorded.
+ * Failed calls are not recorded. Every other call is passed to the decorated client unchanged.
+ * </p>
+ * <p>
+ * The decorator is built from dynamic proxies over the client's service interfaces rather than an
+ * implementation of them, so it does not depend on the rest of the SDK's API.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class RecordingOpenAIClient {
+
+    private RecordingOpenAIClient() {
+    }
+
+    /**
+     * Returns a client recording the chat completions made through the given client.
+     *
+     * @param client   the client actually sending the requests.
+     * @param recorder the recorder receiving the interactions.
+     * @return the recording client.
+     */
+    public static OpenAIClient wrap(OpenAIClient client, CassetteRecorder recorder) {
+        return proxy(OpenAIClient.class, client, (method, args, target) -> switch (method.getName()) {
+            case "chat" -> proxy(ChatService.class, (ChatService) invoke(target, method, args),
+                (m, a, chat) -> "completions".equals(m.getName())
+                    ? proxy(ChatCompletionService.class, (ChatCompletionService) invoke(chat, m, a), completions(recorder))
+                    : invoke(chat, m, a));
+            case "async" -> proxy(OpenAIClientAsync.class, (OpenAIClientAsync) invoke(target, method, args),
+                (m, a, async) -> "chat".equals(m.getName())
+                    ? proxy(ChatServiceAsync.class, (ChatServiceAsync) invoke(async, m, a),
+                        (cm, ca, chat) -> "completions".equals(cm.getName())
+                            ? proxy(ChatCompletionServiceAsync.class, (ChatCompletionServiceAsync) invoke(chat, cm, ca),
+                                asyncCompletions(recorder))
+                            : invoke(chat, cm, ca))
+                    : invoke(async, m, a));
+            default -> invoke(target, method, args);
+        });
+    }
+
+    /**
+     * Returns the handler recording the calls to the blocking chat completions service.
+     */
+    private static <T> Handler<T> completions(CassetteRecorder recorder) {
+        return (method, args, target) -> {
+            if (args == null || !(args[0] instanceof ChatCompletionCreateParams params)) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            Object result = invoke(target, method, args);
+            if (result instanceof ChatCompletion completion) {
+                recorder.record(interaction(params, start, completion));
+            } else if ("createStreaming".equals(method.getName())) {
+                return recordingStream((StreamResponse<?>) result, params, start, recorder);
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns the handler recording the calls to the asynchronous chat completions service.
+     */
+    private static <T> Handler<T> asyncCompletions(CassetteRecorder recorder) {
+        return (method, args, target) -> {
+            if (args == null || !(args[0] instanceof ChatCompletionCreateParams params)) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            Object result = invoke(target, method, args);
+            if (result instanceof CompletableFuture<?> future) {
+                return future.whenComplete((completion, error) -> {
+                    if (completion instanceof ChatCompletion chatCompletion) {
+                        recorder.record(interaction(params, start, chatCompletion));
+                    }
+                });
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns a streamed response recording the fragments read from the given one, and the interaction once
+     * it is closed.
+     */
+    private static Object recordingStream(StreamResponse<?> response, ChatCompletionCreateParams params, long start,
+        CassetteRecorder recorder) {
+        List<CassetteInteraction.Chunk> chunks = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        AtomicBoolean closed = new AtomicBoolean();
+        return proxy(StreamResponse.class, response, (method, args, target) -> switch (method.getName()) {
+            case "stream" -> ((Stream<?>) invoke(target, method, args)).peek(chunk -> {
+                if (chunk instanceof ChatCompletionChunk completionChunk) {
+                    for (ChatCompletionChunk.Choice choice : completionChunk.choices()) {
+                        choice.delta().content().ifPresent(fragment -> {
+                            synchronized (chunks) {
+                                chunks.add(new CassetteInteraction.Chunk(micros(start), fragment));
+                                content.append(fragment);
+                            }
+                        });
+                    }
+                }
+            });
+            case "close" -> {
+                Object result = invoke(target, method, args);
+                if (closed.compareAndSet(false, true)) {
+                    synchronized (chunks) {
+                        recorder.record(new CassetteInteraction(Cassette.keyOf(params), params.model().toString(),
+                            micros(start), content.toString(), 0, 0, List.copyOf(chunks)));
+                    }
+                }
+                yield result;
+            }
+            default -> invoke(target, method, args);
+        });
+    }
+
+    /**
+     * Returns the interaction of a completed blocking or asynchronous call.
+     */
+    private static CassetteInteraction interaction(ChatCompletionCreateParams params, long start, ChatCompletion completion) {
+        long latency = micros(start);
+        String content = completion.choices().isEmpty()
+            ? ""
+            : completion.choices().get(0).message().content().orElse("");
+        Optional<CompletionUsage> usage = completion.usage();
+        return new CassetteInteraction(Cassette.keyOf(params), params.model().toString(), latency, content,
+            usage.map(CompletionUsage::promptTokens).orElse(0L), usage.map(CompletionUsage::completionTokens).orElse(0L),
+            null);
+    }
+
+    /**
+     * Returns the microseconds elapsed since the given {@link System#nanoTime()}.
+     */
+    private static long micros(long start) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns a proxy of the given interface passing every call to the given handler.
+     */
+    private static <T> T proxy(Class<?> type, T target, Handler<T> handler) {
+        @SuppressWarnings("unchecked")
+        T proxy = (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (p, method, args) ->
+            method.getDeclaringClass() == Object.class ? invoke(target, method, args) : handler.handle(method, args, target));
+        return proxy;
+    }
+
+    /**
+     * Calls a method on the decorated object, rethrowing whatever it throws.
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Handles a call made through a proxy.
+     *
+     * @param <T> the type of the decorated object.
+     */
+    @FunctionalInterface
+    private interface Handler<T> {
+
+        /**
+         * Handles a call.
+         *
+         * @param method the method called.
+         * @param args   the arguments, or {@code null} if there are none.
+         * @param target the decorated object.
+         * @return the result of the call.
+         * @throws Throwable whatever the call throws.
+         */
+        Object handle(Method method, Object[] args, T target) throws Throwable;
+    }
+}
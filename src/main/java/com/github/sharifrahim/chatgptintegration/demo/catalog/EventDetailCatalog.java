@@ -0,0 +1,163 @@
+package com.github.sharifrahim.chatgptintegration.demo.catalog;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
+import com.github.sharifrahim.chatgptintegration.demo.config.EventDetailCatalogProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catalog of pre-generated event details, by canonical event ID.
+ * <p>
+ * The details are generated offline by the {@link EventDetailGenerator} and appended to the catalog file as
+ * one JSON record per line. The file is loaded when the application starts, so that the timeline answers
+ * the details of every catalogued event without calling ChatGPT, however long ago they were generated. The
+ * latest record of an event wins; a partially written record at the end of the file, left by an interrupted
+ * job, is truncated.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class EventDetailCatalog {
+
+    /**
+     * Mapper used to write and read the catalog records.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The catalog configuration.
+     */
+    private final EventDetailCatalogProperties properties;
+
+    /**
+     * Catalogued details by event ID.
+     */
+    private final Map<Long, IslamicEventDetailDTO> details = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the catalog using the given properties.
+     *
+     * @param properties the catalog configuration.
+     */
+    public EventDetailCatalog(EventDetailCatalogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the catalog file, if there is one.
+     */
+    @PostConstruct
+    public void load() {
+        Path path = properties.getPath();
+        if (!properties.isEnabled() || !Files.exists(path)) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(path);
+            int lineStart = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] == '\n') {
+                    loadRecord(new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8), lineStart);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < content.length) {
+                log.warn("Truncating partially written record at offset {} of {}.", lineStart, path);
+                try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.WRITE)) {
+                    channel.truncate(lineStart);
+                }
+            }
+            log.info("Loaded event detail catalog {} with {} events.", path, details.size());
+        } catch (IOException e) {
+            log.warn("Event detail catalog {} is unavailable, event details will be requested from ChatGPT.", path, e);
+        }
+    }
+
+    /**
+     * Returns the catalogued details of an event.
+     *
+     * @param eventId the canonical ID of the event.
+     * @return the details, or empty if the event is not catalogued or the catalog is disabled.
+     */
+    public Optional<IslamicEventDetailDTO> find(long eventId) {
+        return properties.isEnabled() ? Optional.ofNullable(details.get(eventId)) : Optional.empty();
+    }
+
+    /**
+     * Indicates whether the details of an event are catalogued.
+     *
+     * @param eventId the canonical ID of the event.
+     * @return {@code true} if the details are catalogued.
+     */
+    public boolean contains(long eventId) {
+        return find(eventId).isPresent();
+    }
+
+    /**
+     * Returns the number of catalogued events.
+     *
+     * @return the number of events.
+     */
+    public int size() {
+        return details.size();
+    }
+
+    /**
+     * Appends the details of an event to the catalog file and serves them from now on.
+     * <p>
+     * The record is written with a single append, so an interrupted job loses at most the record being
+     * written.
+     * </p>
+     *
+     * @param event  the canonical event.
+     * @param detail the generated details.
+     * @throws IOException if the record cannot be written.
+     */
+    public synchronized void add(IslamicEventDefinition event, IslamicEventDetailDTO detail) throws IOException {
+        Path path = properties.getPath();
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        CatalogRecord record = new CatalogRecord(event.id(), event.eventName(), System.currentTimeMillis(), detail);
+        Files.writeString(path, objectMapper.writeValueAsString(record) + "\n", StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        details.put(event.id(), detail);
+    }
+
+    /**
+     * Adds a record read from the catalog file.
+     */
+    private void loadRecord(String line, int offset) {
+        try {
+            CatalogRecord record = objectMapper.readValue(line, CatalogRecord.class);
+            details.put(record.eventId(), record.detail());
+        } catch (IOException e) {
+            log.debug("Skipping unreadable record at offset {}.", offset, e);
+        }
+    }
+
+    /**
+     * A record of the catalog: the event, the time its details were generated and the details.
+     */
+    private record CatalogRecord(long eventId, String eventName, long generatedAt, IslamicEventDetailDTO detail) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sharifrahim.chatgptintegration.demo.catalog;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.EventDetailCatalogProperties;
+import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the {@link EventDetailGenerator} at startup when {@code timeline.details.generate} is set, then exits.
+ * <p>
+ * The exit status is {@code 0} when the details of every event were generated and {@code 1} when some
+ * failed, in which case running the job again generates only those.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(prefix = "timeline.details", name = "generate", havingValue = "true")
+public class EventDetailGenerationRunner implements ApplicationRunner {
+
+    /**
+     * The generation job.
+     */
+    private final EventDetailGenerator generator;
+
+    /**
+     * Service providing the current Hijri year, the default range of the job.
+     */
+    private final IslamicEventService islamicEventService;
+
+    /**
+     * The job configuration.
+     */
+    private final EventDetailCatalogProperties properties;
+
+    /**
+     * The application context, closed once the job is done.
+     */
+    private final ApplicationContext applicationContext;
+
+    /**
+     * Generates the event details of the configured years and exits.
+     *
+     * @param args the application arguments (unused).
+     * @throws InterruptedException if interrupted while generating.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        int fromYear = properties.getFromYear() != null ? properties.getFromYear() : islamicEventService.getCurrentHijriYear();
+        int toYear = properties.getToYear() != null ? properties.getToYear() : fromYear;
+
+        EventDetailGenerator.Report report = generator.generate(fromYear, toYear, properties.getConcurrency());
+        int exitCode = report.failed() > 0 ? 1 : 0;
+        log.info("Event detail generation finished with exit code {}.", exitCode);
+        System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+    }
+}
@@ -0,0 +1,151 @@
+package com.github.sharifrahim.chatgptintegration.demo.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
+import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates the details of every event of a range of Hijri years into the {@link EventDetailCatalog}.
+ * <p>
+ * The events of the range are taken from the {@link IslamicEventService} and reduced to their canonical
+ * events, since the details of an event are the same in every year. Events already in the catalog are
+ * skipped, so an interrupted job resumes where it stopped and running it again is harmless. The others are
+ * requested through the {@link ChatGptService}, at most {@code concurrency} at a time, and each is appended to
+ * the catalog as soon as it is received.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class EventDetailGenerator {
+
+    /**
+     * Service requesting the event details.
+     */
+    private final ChatGptService chatGptService;
+
+    /**
+     * Service providing the events of each Hijri year.
+     */
+    private final IslamicEventService islamicEventService;
+
+    /**
+     * Registry resolving the events to their canonical definitions.
+     */
+    private final IslamicEventRegistry islamicEventRegistry;
+
+    /**
+     * Catalog the details are generated into.
+     */
+    private final EventDetailCatalog catalog;
+
+    /**
+     * Generates the details of the events of the given Hijri years that are not yet catalogued.
+     *
+     * @param fromYear    the first Hijri year, inclusive.
+     * @param toYear      the last Hijri year, inclusive.
+     * @param concurrency the maximum number of details requested at once.
+     * @return the outcome of the job.
+     * @throws IllegalArgumentException if the range of years is invalid.
+     * @throws InterruptedException     if interrupted while waiting for a request slot.
+     */
+    public Report generate(int fromYear, int toYear, int concurrency) throws InterruptedException {
+        long start = System.nanoTime();
+
+        // Reduce the events of every year to the distinct canonical events.
+        Map<Long, IslamicEventDefinition> events = new LinkedHashMap<>();
+        for (TimelineItemDTO item : islamicEventService.getIslamicEvents(fromYear, toYear)) {
+            islamicEventRegistry.findById(item.getId()).ifPresent(event -> events.putIfAbsent(event.id(), event));
+        }
+        List<IslamicEventDefinition> missing = events.values().stream().filter(event -> !catalog.contains(event.id())).toList();
+        log.info("Generating details of {} events of Hijri years {} to {}, {} already catalogued.",
+            missing.size(), fromYear, toYear, events.size() - missing.size());
+
+        // Request the missing details, holding a permit per request in flight.
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicInteger generated = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (IslamicEventDefinition event : missing) {
+            permits.acquire();
+            requests.add(request(event)
+                .thenAccept(detail -> {
+                    try {
+                        catalog.add(event, detail);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    log.info("Generated details of {} ({} of {}).", event.eventName(), generated.incrementAndGet(), missing.size());
+                })
+                .exceptionally(e -> {
+                    log.warn("Failed to generate details of {}: {}", event.eventName(), e.toString());
+                    failed.incrementAndGet();
+                    return null;
+                })
+                .whenComplete((done, e) -> permits.release()));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+
+        Report report = new Report(events.size(), events.size() - missing.size(), generated.get(), failed.get(),
+            Duration.ofNanos(System.nanoTime() - start));
+        log.info("Generated details of {} events in {} ms ({} per minute), skipped {}, failed {}.", report.generated(),
+            report.elapsed().toMillis(), String.format("%.1f", report.perMinute()), report.skipped(), report.failed());
+        return report;
+    }
+
+    /**
+     * Requests the details of an event, turning a call rejected outright into a failed future.
+     */
+    private CompletableFuture<IslamicEventDetailDTO> request(IslamicEventDefinition event) {
+        try {
+            return chatGptService.getResponseAsync(IslamicEvent.of(event));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Outcome of a generation job.
+     *
+     * @param events    the number of distinct events in the range of years.
+     * @param skipped   the number of events already catalogued.
+     * @param generated the number of events whose details were generated.
+     * @param failed    the number of events whose details could not be generated.
+     * @param elapsed   the duration of the job.
+     */
+    public record Report(int events, int skipped, int generated, int failed, Duration elapsed) {
+
+        /**
+         * Returns the throughput of the job.
+         *
+         * @return the number of details generated per minute.
+         */
+        public double perMinute() {
+            long millis = Math.max(1, elapsed.toMillis());
+            return generated * 60_000.0 / millis;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarSource;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.JdkHijrahCalendarSource;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.UmmalquraCalendarSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for setting up the Hijri calendar converter.
+ * <p>
+ * The calendar source is selected with the {@code calendar.source} property: {@code jdk} for the JDK's
+ * Hijrah chronology (the default) or {@code ummalqura} for the Umm al-Qura calendar.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Configuration
+public class CalendarConfig {
+
+    /**
+     * The name of the calendar source, injected from the configuration property {@code calendar.source}.
+     */
+    @Value("${calendar.source:jdk}")
+    private String calendarSource;
+
+    /**
+     * Creates the Hijri calendar converter bean for the configured calendar source.
+     *
+     * @return a {@link HijriCalendarConverter} with its lookup tables built.
+     * @throws IllegalArgumentException if the calendar source is unknown.
+     */
+    @Bean
+    public HijriCalendarConverter hijriCalendarConverter() {
+        // Resolve the configured calendar source
+        HijriCalendarSource source = switch (calendarSource.trim().toLowerCase()) {
+            case JdkHijrahCalendarSource.NAME -> new JdkHijrahCalendarSource();
+            case UmmalquraCalendarSource.NAME -> new UmmalquraCalendarSource();
+            default -> throw new IllegalArgumentException("Unknown calendar source: " + calendarSource);
+        };
+        log.info("Initializing HijriCalendarConverter with calendar source {}.", source.getName());
+
+        // Build the lookup tables for every year supported by the source
+        return new HijriCalendarConverter(source);
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the ChatGPT response cache.
+ * <p>
+ * Bound from the {@code chatgpt.cache.*} properties. Time-to-live values can be overridden per
+ * response type using the simple name of the DTO, e.g.
+ * {@code chatgpt.cache.ttl.IslamicEventDetailDTO=7d}. A TTL of zero disables caching for that type.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "chatgpt.cache")
+public class ChatGptCacheProperties {
+
+    /**
+     * Maximum number of responses kept in memory before the least valuable entries are evicted.
+     */
+    private long maximumSize = 1_000;
+
+    /**
+     * Time-to-live applied to response types without an explicit override.
+     */
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    /**
+     * Per response type time-to-live overrides, keyed by the simple name of the response class.
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    /**
+     * Resolves the time-to-live for the given response type.
+     *
+     * @param responseType the class type of the cached response.
+     * @return the configured TTL for the type, or {@link #defaultTtl} if none is configured.
+     */
+    public Duration ttlFor(Class<?> responseType) {
+        return ttl.getOrDefault(responseType.getSimpleName(), defaultTtl);
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the persistent ChatGPT response store.
+ * <p>
+ * Bound from the {@code chatgpt.store.*} properties. The compaction schedule itself is configured
+ * with {@code chatgpt.store.compaction-interval}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "chatgpt.store")
+public class ChatGptStoreProperties {
+
+    /**
+     * Whether responses are persisted to disk.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Location of the append-only log file holding the persisted responses.
+     */
+    private Path path = Path.of("data", "chatgpt-responses.log");
+
+    /**
+     * Minimum ratio of obsolete records to live records before the log is compacted.
+     */
+    private double compactionThreshold = 1.0;
+}
@@ -0,0 +1,53 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the catalog of pre-generated event details and the job generating it.
+ * <p>
+ * Bound from the {@code timeline.details.*} properties. When {@code generate} is set, the application
+ * generates the details of every event of the Hijri years {@code from-year} to {@code to-year} into the
+ * catalog and exits instead of serving requests.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "timeline.details")
+public class EventDetailCatalogProperties {
+
+    /**
+     * Whether event details are served from the catalog.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Location of the catalog file, holding one generated event detail per line.
+     */
+    private Path path = Path.of("data", "event-details.jsonl");
+
+    /**
+     * Whether to run the generation job and exit.
+     */
+    private boolean generate = false;
+
+    /**
+     * First Hijri year whose events are generated; the current year if not set.
+     */
+    private Integer fromYear;
+
+    /**
+     * Last Hijri year whose events are generated; {@code from-year} if not set.
+     */
+    private Integer toYear;
+
+    /**
+     * Maximum number of event details requested at once by the generation job.
+     */
+    private int concurrency = 4;
+}
@@ -0,0 +1,46 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for hedging slow ChatGPT calls.
+ * <p>
+ * Bound from the {@code chatgpt.hedging.*} properties. Calls of the listed strategies, identified by the
+ * simple name of the strategy class, e.g. {@code chatgpt.hedging.strategies=IslamicEvent}, are sent a second
+ * time if they have not completed after the rolling p95 latency of their model. Hedging is off while no
+ * strategy is listed.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "chatgpt.hedging")
+public class HedgingProperties {
+
+    /**
+     * Simple names of the strategy classes whose calls are hedged.
+     */
+    private Set<String> strategies = new HashSet<>();
+
+    /**
+     * Delay before hedging a call to a model with too few recent calls to know its p95 latency.
+     */
+    private Duration delay = Duration.ofSeconds(3);
+
+    /**
+     * Shortest delay before hedging a call, however fast the model's recent calls were.
+     */
+    private Duration minDelay = Duration.ofMillis(500);
+
+    /**
+     * Maximum number of hedges per hedgeable call, bounding the extra cost of hedging.
+     */
+    private double maxHedgeRate = 0.05;
+}
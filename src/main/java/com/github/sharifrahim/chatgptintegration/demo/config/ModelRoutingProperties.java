@@ -0,0 +1,65 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for routing ChatGPT calls between models.
+ * <p>
+ * Bound from the {@code chatgpt.routing.*} properties. Each strategy has an ordered list of models, its
+ * first choice first. The list can be overridden per strategy using the simple name of the strategy class,
+ * e.g. {@code chatgpt.routing.models.IslamicEvent=gpt-3.5-turbo,gpt-4o-mini}. A model is skipped while the
+ * p95 latency or error rate of its recent calls exceed the configured limits.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "chatgpt.routing")
+public class ModelRoutingProperties {
+
+    /**
+     * Models used by strategies that neither declare nor are configured with their own.
+     */
+    private List<String> defaultModels = new ArrayList<>(List.of("gpt-3.5-turbo"));
+
+    /**
+     * Per strategy model lists, keyed by the simple name of the strategy class, overriding the models
+     * declared by the strategy.
+     */
+    private Map<String, List<String>> models = new HashMap<>();
+
+    /**
+     * p95 latency of successful calls above which a model is considered degraded.
+     */
+    private Duration maxP95Latency = Duration.ofSeconds(10);
+
+    /**
+     * Share of failed calls above which a model is considered degraded.
+     */
+    private double maxErrorRate = 0.25;
+
+    /**
+     * Number of recent calls a model needs before it can be considered degraded.
+     */
+    private int minSamples = 20;
+
+    /**
+     * Maximum number of recent calls kept per model.
+     */
+    private int windowSize = 200;
+
+    /**
+     * Age after which a call no longer counts, so that a degraded model is tried again once its slow or
+     * failed calls have aged out.
+     */
+    private Duration windowDuration = Duration.ofMinutes(5);
+}
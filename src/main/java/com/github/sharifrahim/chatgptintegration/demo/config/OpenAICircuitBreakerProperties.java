@@ -0,0 +1,48 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the circuit breaker around calls to the OpenAI API.
+ * <p>
+ * Bound from the {@code openai.circuit-breaker.*} properties. The circuit opens when the share of failed
+ * calls among the most recent ones reaches the threshold, and stays open for the configured duration before
+ * a single trial call is let through.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "openai.circuit-breaker")
+public class OpenAICircuitBreakerProperties {
+
+    /**
+     * Whether the circuit breaker is enabled. When disabled, calls are always sent.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Share of failed calls among the recent calls at which the circuit opens.
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * Number of recent calls needed before the circuit may open.
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * Number of most recent calls the failure rate is computed over.
+     */
+    private int windowSize = 20;
+
+    /**
+     * Time the circuit stays open before a trial call is let through.
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+}
@@ -0,0 +1,45 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the HTTP client sending requests to the OpenAI API.
+ * <p>
+ * Bound from the {@code openai.client.*} properties. Settings left unset keep the defaults of the OpenAI
+ * SDK, which manages its own connection pool.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "openai.client")
+public class OpenAIClientProperties {
+
+    /**
+     * Base URL of the OpenAI API. When empty, the SDK's default endpoint is used.
+     */
+    private String baseUrl = "";
+
+    /**
+     * Timeout of each request, applied by the SDK to connecting, reading and the whole call. When unset, the
+     * SDK's default applies.
+     */
+    private Duration timeout;
+
+    /**
+     * Number of times the SDK retries a failed request. Ignored while the governor is enabled, since the
+     * governor retries calls itself. When unset, the SDK's default applies.
+     */
+    private Integer maxRetries;
+
+    /**
+     * Number of concurrent requests sent at startup to open pooled connections before the first real request.
+     * Each costs a few tokens. {@code 0} disables the warm-up.
+     */
+    private int warmUpRequests;
+}
@@ -0,0 +1,101 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.openai.client.OpenAIClient;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatModel;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opens connections to the OpenAI API when the application starts.
+ * <p>
+ * Sends {@code openai.client.warm-up-requests} minimal chat completions at once, so that the DNS lookup and
+ * the TCP and TLS handshakes of as many pooled connections are paid before the first real request. The
+ * requests go through the {@link OpenAIGovernor} like any other call. Failures are only logged.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class OpenAIClientWarmUp {
+
+    /**
+     * The message of the warm-up requests, chosen for a short answer.
+     */
+    static final String WARM_UP_MESSAGE = "Reply with OK.";
+
+    /**
+     * The client whose connections are opened.
+     */
+    private final OpenAIClient openAiClient;
+
+    /**
+     * Governor admitting the warm-up requests.
+     */
+    private final OpenAIGovernor governor;
+
+    /**
+     * Properties providing the number of warm-up requests.
+     */
+    private final OpenAIClientProperties properties;
+
+    /**
+     * Properties providing the model the warm-up requests are sent to.
+     */
+    private final ModelRoutingProperties routingProperties;
+
+    /**
+     * Warms up the client's connections once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        warmUp();
+    }
+
+    /**
+     * Sends the warm-up requests concurrently.
+     *
+     * @return a future completed once every warm-up request has completed, successfully or not.
+     */
+    public CompletableFuture<Void> warmUp() {
+        int requests = properties.getWarmUpRequests();
+        if (requests <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.info("Warming up {} OpenAI connections.", requests);
+
+        // Send every request at once, so that each needs its own connection
+        ChatCompletionCreateParams params = ChatCompletionCreateParams.builder()
+            .addUserMessage(WARM_UP_MESSAGE)
+            .model(ChatModel.of(routingProperties.getDefaultModels().get(0)))
+            .build();
+        long estimatedTokens = governor.estimateTokens(WARM_UP_MESSAGE.length());
+        long start = System.nanoTime();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            calls[i] = governor.executeAsync(estimatedTokens, () -> openAiClient.async().chat().completions().create(params));
+        }
+
+        return CompletableFuture.allOf(calls).handle((done, error) -> {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (error != null) {
+                log.warn("OpenAI connection warm-up failed after {} ms.", millis, error);
+            } else {
+                log.info("Warmed up {} OpenAI connections in {} ms.", requests, millis);
+            }
+            return null;
+        });
+    }
+}
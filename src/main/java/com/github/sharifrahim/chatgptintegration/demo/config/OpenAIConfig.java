@@ -1,12 +1,19 @@
 package com.github.sharifrahim.chatgptintegration.demo.config;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.github.sharifrahim.chatgptintegration.demo.cassette.CassetteRecorder;
+import com.github.sharifrahim.chatgptintegration.demo.cassette.RecordingOpenAIClient;
 import com.openai.client.OpenAIClient;
 import com.openai.client.okhttp.OpenAIOkHttpClient;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -28,27 +35,90 @@ public class OpenAIConfig {
     @Value("${openai.api.key}")
     private String openAiApiKey;
 
+    /**
+     * Whether the OpenAI governor, which retries failed calls itself, is enabled.
+     */
+    @Value("${openai.governor.enabled:true}")
+    private boolean governorEnabled;
+
+    /**
+     * Cassette file the chat completions are recorded to, injected from the configuration property
+     * {@code openai.cassette.record-path}. When empty, nothing is recorded.
+     */
+    @Value("${openai.cassette.record-path:}")
+    private String cassetteRecordPath;
+
+    /**
+     * Recorder of the chat completions, when recording is enabled.
+     */
+    private CassetteRecorder cassetteRecorder;
+
     /**
      * Creates and configures the OpenAI client bean.
      * <p>
-     * The client is built using the {@code OpenAIOkHttpClient.builder()} by providing the API key.
+     * The client is built using the {@code OpenAIOkHttpClient.builder()} by providing the API key and the
+     * transport settings of {@link OpenAIClientProperties}.
+     * If {@code openai.client.base-url} is set, requests are sent there instead of to OpenAI, for example to
+     * a local stand-in server during load tests.
+     * When the governor is enabled, the client's own retries are disabled so that retries are not
+     * multiplied and every attempt is accounted for by the governor.
+     * If {@code openai.cassette.record-path} is set, every chat completion is also recorded to that
+     * cassette, to be replayed by offline regression tests.
      * </p>
      *
+     * @param properties the transport settings of the client.
      * @return a fully configured instance of {@link OpenAIClient}.
      */
     @Bean
-    public OpenAIClient openAiClient() {
+    public OpenAIClient openAiClient(OpenAIClientProperties properties) {
         // Log the start of the client initialization process
         log.info("Initializing OpenAIClient bean with provided API key.");
 
         // Build the OpenAI client using the provided API key
-        OpenAIClient client = OpenAIOkHttpClient.builder()
-            .apiKey(openAiApiKey)
-            .build();
+        OpenAIOkHttpClient.Builder builder = OpenAIOkHttpClient.builder()
+            .apiKey(openAiApiKey);
+        if (!properties.getBaseUrl().isBlank()) {
+            log.info("Sending OpenAI requests to {}", properties.getBaseUrl());
+            builder.baseUrl(properties.getBaseUrl());
+        }
+        if (properties.getTimeout() != null) {
+            builder.timeout(properties.getTimeout());
+        }
+
+        // Retry in one place only: the governor when enabled, otherwise the SDK
+        if (governorEnabled) {
+            if (properties.getMaxRetries() != null) {
+                log.info("Ignoring openai.client.max-retries, the governor retries OpenAI calls.");
+            }
+            builder.maxRetries(0);
+        } else if (properties.getMaxRetries() != null) {
+            builder.maxRetries(properties.getMaxRetries());
+        }
+        OpenAIClient client = builder.build();
+        if (!cassetteRecordPath.isBlank()) {
+            try {
+                cassetteRecorder = new CassetteRecorder(Path.of(cassetteRecordPath));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open cassette " + cassetteRecordPath, e);
+            }
+            client = RecordingOpenAIClient.wrap(client, cassetteRecorder);
+        }
 
         // Log successful creation of the client bean
         log.info("OpenAIClient bean created successfully.");
 
         return client;
     }
+
+    /**
+     * Closes the cassette the chat completions are recorded to, if any.
+     *
+     * @throws IOException if the cassette cannot be closed.
+     */
+    @PreDestroy
+    public void closeCassette() throws IOException {
+        if (cassetteRecorder != null) {
+            cassetteRecorder.close();
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the governor limiting calls to the OpenAI API.
+ * <p>
+ * Bound from the {@code openai.governor.*} properties. The request and token rates should be set to the
+ * limits of the OpenAI account, so that calls are spread over the minute instead of failing with
+ * {@code 429 Too Many Requests}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "openai.governor")
+public class OpenAIGovernorProperties {
+
+    /**
+     * Whether calls to the OpenAI API are governed. When disabled, calls are sent immediately and not retried.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of requests sent per minute.
+     */
+    private long requestsPerMinute = 500;
+
+    /**
+     * Maximum number of tokens, prompt and completion combined, consumed per minute.
+     */
+    private long tokensPerMinute = 60_000;
+
+    /**
+     * Maximum number of requests in flight at the same time.
+     */
+    private int maxConcurrentRequests = 8;
+
+    /**
+     * Maximum time a caller waits for permission to send a request before the call is rejected.
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /**
+     * Number of threads waiting for admission on behalf of asynchronous callers.
+     */
+    private int asyncAdmissionThreads = 4;
+
+    /**
+     * Maximum number of asynchronous calls queued for an admission thread; calls beyond it are rejected.
+     */
+    private int asyncAdmissionQueueCapacity = 100;
+
+    /**
+     * Maximum number of times a rate-limited or failed request is retried.
+     */
+    private int maxRetries = 3;
+
+    /**
+     * Backoff before the first retry when the API does not send a {@code Retry-After} header.
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    /**
+     * Upper bound of the backoff between retries.
+     */
+    private Duration maxBackoff = Duration.ofSeconds(60);
+
+    /**
+     * Number of completion tokens assumed for a request until its actual usage is known.
+     */
+    private long estimatedCompletionTokens = 500;
+}
@@ -0,0 +1,41 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for prefetching the details of upcoming timeline events.
+ * <p>
+ * Bound from the {@code timeline.prefetch.*} properties. Whenever the timeline is served, the details of the
+ * next {@code events} upcoming events are requested in the background, so that opening one of them is
+ * answered from the cache.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "timeline.prefetch")
+public class TimelinePrefetchProperties {
+
+    /**
+     * Whether event details are prefetched.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of upcoming events whose details are prefetched each time the timeline is served.
+     */
+    private int events = 5;
+
+    /**
+     * Number of threads requesting prefetched details.
+     */
+    private int threads = 2;
+
+    /**
+     * Maximum number of prefetches waiting for a thread; further prefetches are dropped.
+     */
+    private int queueCapacity = 100;
+}
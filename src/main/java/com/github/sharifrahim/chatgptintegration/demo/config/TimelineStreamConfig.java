@@ -0,0 +1,47 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for setting up the executor streaming timeline event details.
+ * <p>
+ * The executor is not a default candidate for injection, so it only serves the streams it is requested for
+ * by name and does not replace the application's task executor.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Configuration
+public class TimelineStreamConfig {
+
+    /**
+     * Name of the executor streaming timeline event details.
+     */
+    public static final String TIMELINE_STREAM_EXECUTOR = "timelineStreamExecutor";
+
+    /**
+     * Creates the bounded executor streaming timeline event details.
+     *
+     * @param properties the stream configuration.
+     * @return a {@link ThreadPoolTaskExecutor} rejecting streams once its threads are busy and its queue is full.
+     */
+    @Bean(name = TIMELINE_STREAM_EXECUTOR, defaultCandidate = false)
+    public ThreadPoolTaskExecutor timelineStreamExecutor(TimelineStreamProperties properties) {
+        log.info("Initializing timeline stream executor with {} threads and a queue of {}.", properties.getThreads(),
+            properties.getQueueCapacity());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("timeline-stream-");
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
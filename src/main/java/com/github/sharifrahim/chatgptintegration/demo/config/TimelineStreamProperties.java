@@ -0,0 +1,31 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for streaming timeline event details.
+ * <p>
+ * Bound from the {@code timeline.stream.*} properties. Streamed event details are written by a bounded pool
+ * of threads, so that request threads are released while ChatGPT responds; streams that find every thread
+ * busy and the queue full are answered with {@code 503 Service Unavailable}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Data
+@ConfigurationProperties(prefix = "timeline.stream")
+public class TimelineStreamProperties {
+
+    /**
+     * Number of threads streaming event details.
+     */
+    private int threads = 8;
+
+    /**
+     * Maximum number of streams waiting for a thread; further streams are rejected.
+     */
+    private int queueCapacity = 20;
+}
@@ -0,0 +1,59 @@
+package com.github.sharifrahim.chatgptintegration.demo.controller;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.DailyContentService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * REST controller exposing the precomputed daily content.
+ * <p>
+ * This controller returns the Hadith and Quran of the day currently served on the timeline page and
+ * allows a manual refresh of that content.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/daily-content")
+public class DailyContentApiController {
+
+    /**
+     * Service holding the precomputed daily content.
+     */
+    private final DailyContentService dailyContentService;
+
+    /**
+     * Endpoint to fetch the daily content currently being served.
+     *
+     * @return the current {@link DailyContentDTO}, or {@code 204 No Content} if none has been generated yet.
+     */
+    @GetMapping
+    public ResponseEntity<DailyContentDTO> getDailyContent() {
+        DailyContentDTO content = dailyContentService.getDailyContent();
+        return content != null ? ResponseEntity.ok(content) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to regenerate the daily content immediately.
+     *
+     * @return a future completed with the newly published {@link DailyContentDTO}.
+     */
+    @PostMapping("/refresh")
+    public CompletableFuture<DailyContentDTO> refresh() {
+        log.info("Manual refresh of the daily content requested.");
+        return dailyContentService.refresh();
+    }
+}
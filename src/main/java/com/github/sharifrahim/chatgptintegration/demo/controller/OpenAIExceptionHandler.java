@@ -0,0 +1,103 @@
+package com.github.sharifrahim.chatgptintegration.demo.controller;
+
+import java.time.Duration;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitOpenException;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIThrottledException;
+import com.openai.errors.RateLimitException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Translates OpenAI capacity failures raised by REST controllers into {@code 503 Service Unavailable}
+ * responses.
+ * <p>
+ * Calls rejected by the {@link OpenAIGovernor} or the open circuit breaker, and calls still rate limited after
+ * all retries, are reported with a {@code Retry-After} header, so that clients back off instead of receiving
+ * a generic server error. Event detail streams rejected because every streaming thread is busy are reported
+ * the same way.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RestControllerAdvice(annotations = RestController.class)
+public class OpenAIExceptionHandler {
+
+    /**
+     * Delay suggested to clients when the API did not tell how long to wait.
+     */
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(30);
+
+    /**
+     * Delay suggested to clients whose stream was rejected, roughly the time a streamed detail takes.
+     */
+    private static final Duration STREAM_RETRY_AFTER = Duration.ofSeconds(10);
+
+    /**
+     * Handles calls rejected by the governor.
+     *
+     * @param e the exception.
+     * @return a {@code 503} response with a {@code Retry-After} header.
+     */
+    @ExceptionHandler(OpenAIThrottledException.class)
+    public ResponseEntity<ProblemDetail> handleThrottled(OpenAIThrottledException e) {
+        return serviceUnavailable(e.getMessage(), e.getRetryAfter());
+    }
+
+    /**
+     * Handles calls rejected by the open circuit breaker.
+     *
+     * @param e the exception.
+     * @return a {@code 503} response with a {@code Retry-After} header.
+     */
+    @ExceptionHandler(OpenAICircuitOpenException.class)
+    public ResponseEntity<ProblemDetail> handleCircuitOpen(OpenAICircuitOpenException e) {
+        return serviceUnavailable(e.getMessage(), e.getRetryAfter());
+    }
+
+    /**
+     * Handles calls still rate limited by OpenAI after all retries.
+     *
+     * @param e the exception.
+     * @return a {@code 503} response with a {@code Retry-After} header.
+     */
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<ProblemDetail> handleRateLimited(RateLimitException e) {
+        Duration retryAfter = OpenAIGovernor.getRetryAfter(e.headers());
+        return serviceUnavailable("OpenAI rate limit exceeded", retryAfter != null ? retryAfter : DEFAULT_RETRY_AFTER);
+    }
+
+    /**
+     * Handles event detail streams rejected by the saturated streaming executor.
+     *
+     * @param e the exception.
+     * @return a {@code 503} response with a {@code Retry-After} header.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ProblemDetail> handleTaskRejected(TaskRejectedException e) {
+        return serviceUnavailable("Too many event details are being streamed", STREAM_RETRY_AFTER);
+    }
+
+    /**
+     * Builds a {@code 503} response asking the client to retry after the given delay.
+     */
+    private ResponseEntity<ProblemDetail> serviceUnavailable(String detail, Duration retryAfter) {
+        long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        log.warn("Responding with 503, retry after {} seconds: {}", seconds, detail);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+            .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, detail));
+    }
+}
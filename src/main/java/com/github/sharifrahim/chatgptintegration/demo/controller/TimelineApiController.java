@@ -1,17 +1,33 @@
 package com.github.sharifrahim.chatgptintegration.demo.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.catalog.EventDetailCatalog;
+import com.github.sharifrahim.chatgptintegration.demo.config.TimelineStreamConfig;
 import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
 import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineDetailDTO;
 import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
 import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
+import com.github.sharifrahim.chatgptintegration.demo.service.EventDetailPrefetcher;
 import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
 import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
 
@@ -23,6 +39,19 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * This controller provides endpoints to retrieve timeline events and detailed information for a specific event.
  * </p>
+ * <p>
+ * Event details can also be streamed as Server-Sent Events, pushing each field to the browser as soon as
+ * ChatGPT has written it instead of waiting for the whole response.
+ * </p>
+ * <p>
+ * Serving the timeline also starts prefetching the details of the next upcoming events with the
+ * {@link EventDetailPrefetcher}, so that opening one of them is answered from the cache.
+ * </p>
+ * <p>
+ * Event details are requested for the canonical event resolved by the {@link IslamicEventRegistry}, by ID or
+ * else by name, so that differently spelled requests for the same event share one cache entry. Details
+ * pre-generated into the {@link EventDetailCatalog} are answered from it without calling ChatGPT.
+ * </p>
  * 
  * @author sharif
  * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
@@ -33,6 +62,11 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/timeline")
 public class TimelineApiController {
 
+    /**
+     * How long a streamed event detail may take before the connection is closed.
+     */
+    private static final Duration STREAM_TIMEOUT = Duration.ofMinutes(2);
+
     /**
      * Service for handling ChatGPT-related operations.
      */
@@ -44,51 +78,208 @@ public class TimelineApiController {
     private final IslamicEventService islamicEventService;
 
     /**
-     * Endpoint to fetch Islamic timeline events for the current year.
+     * Registry resolving requested events to their canonical definitions.
+     */
+    private final IslamicEventRegistry islamicEventRegistry;
+
+    /**
+     * Catalog of pre-generated event details.
+     */
+    private final EventDetailCatalog eventDetailCatalog;
+
+    /**
+     * Prefetcher of the details of upcoming events.
+     */
+    private final EventDetailPrefetcher eventDetailPrefetcher;
+
+    /**
+     * Executor streaming event details, so that request threads are released while ChatGPT responds.
+     */
+    @Qualifier(TimelineStreamConfig.TIMELINE_STREAM_EXECUTOR)
+    private final AsyncTaskExecutor streamExecutor;
+
+    /**
+     * Endpoint to fetch Islamic timeline events for the current year, or for a range of Hijri years.
+     * <p>
+     * When only one of {@code fromYear} and {@code toYear} is given, the range covers that single year.
+     * </p>
      *
+     * @param fromYear the first Hijri year of the range, inclusive (optional).
+     * @param toYear the last Hijri year of the range, inclusive (optional).
      * @return a list of {@link TimelineItemDTO} representing timeline items.
-     * @throws Exception if an error occurs while fetching the events.
+     * @throws ResponseStatusException with status 400 if the requested range is invalid.
      */
     @GetMapping
-    public List<TimelineItemDTO> getTimelineItems() throws Exception {
-        // Log the beginning of the request processing
-        log.info("Fetching Islamic timeline events for the current year.");
-        
-        // Retrieve the list of timeline events from the IslamicEventService
-        List<TimelineItemDTO> timelineItems = islamicEventService.getIslamicEventsForCurrentYear();
-        
+    public List<TimelineItemDTO> getTimelineItems(@RequestParam(required = false) Integer fromYear,
+                                                  @RequestParam(required = false) Integer toYear) {
+        List<TimelineItemDTO> timelineItems;
+        if (fromYear == null && toYear == null) {
+            // Log the beginning of the request processing
+            log.info("Fetching Islamic timeline events for the current year.");
+
+            // Retrieve the list of timeline events from the IslamicEventService
+            timelineItems = islamicEventService.getIslamicEventsForCurrentYear();
+        } else {
+            int from = fromYear != null ? fromYear : toYear;
+            int to = toYear != null ? toYear : fromYear;
+            log.info("Fetching Islamic timeline events for Hijri years {} to {}.", from, to);
+            try {
+                timelineItems = islamicEventService.getIslamicEvents(from, to);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+        }
+
         // Log the successful retrieval along with the number of items returned
         log.info("Fetched {} timeline items.", timelineItems.size());
-        
+
+        // Fetch the details of the next events in the background, before the user opens one of them.
+        eventDetailPrefetcher.prefetch(timelineItems);
+
         return timelineItems;
     }
 
     /**
      * Endpoint to fetch detailed information for a given Islamic event.
      * <p>
-     * Accepts the {@code eventName} query parameter from the frontend to identify the event.
+     * The event is identified by its ID, or by the optional {@code eventName} query parameter when the ID is
+     * unknown.
      * </p>
      *
      * @param id the unique identifier of the timeline event.
-     * @param eventName the name of the Islamic event.
+     * @param eventName the name of the Islamic event (optional).
      * @return a {@link TimelineDetailDTO} containing detailed event information.
+     * @throws ResponseStatusException with status 404 if neither the ID nor the name identifies an event.
      * @throws Exception if an error occurs while fetching the event details.
      */
     @GetMapping("/{id}")
-    public TimelineDetailDTO getTimelineDetail(@PathVariable Long id, @RequestParam String eventName) throws Exception {
+    public TimelineDetailDTO getTimelineDetail(@PathVariable Long id, @RequestParam(required = false) String eventName) throws Exception {
         // Log the start of detailed event information retrieval
         log.info("Fetching detailed information for event with id: {} and eventName: {}", id, eventName);
 
-        // Create a new IslamicEvent instance and set the event name from the request
-        IslamicEvent message = new IslamicEvent();
-        message.setEventName(eventName);
+        // Resolve the canonical event and request its details under its canonical name
+        IslamicEventDefinition event = resolveEvent(id, eventName);
+        IslamicEvent message = IslamicEvent.of(event);
+        String canonicalName = event.eventName();
 
-        // Retrieve event details using ChatGptService
-        IslamicEventDetailDTO eventDetail = chatGptService.getResponse(message.getUserMessage(), message.getResponseClass());
-        log.info("Received event details from ChatGptService for event: {}", eventName);
+        // Serve pre-generated details, or else retrieve them using ChatGptService, passing the strategy so that
+        // metrics are tagged with it
+        Optional<IslamicEventDetailDTO> catalogued = eventDetailCatalog.find(event.id());
+        IslamicEventDetailDTO eventDetail = catalogued.isPresent() ? catalogued.get() : chatGptService.getResponse(message);
+        log.info("Received event details for event: {} (catalogued: {})", canonicalName, catalogued.isPresent());
 
         // Construct the TimelineDetailDTO using the retrieved event details
-        TimelineDetailDTO detailDTO = new TimelineDetailDTO(
+        TimelineDetailDTO detailDTO = toTimelineDetail(event.id(), canonicalName, eventDetail);
+        
+        // Log completion of the detailed event information retrieval
+        log.info("Returning detailed event information for event: {}", canonicalName);
+        return detailDTO;
+    }
+
+    /**
+     * Endpoint streaming detailed information for a given Islamic event as Server-Sent Events.
+     * <p>
+     * Each field of the event detail ({@code origin}, {@code originRefLink}, {@code sunnah} and
+     * {@code sunnahRefLink}) is sent as an event named after the field, with the field's text as data, as soon
+     * as it is complete. A final {@code complete} event carries the whole {@link TimelineDetailDTO}. If the
+     * details cannot be retrieved, a {@code failed} event carrying a message is sent instead.
+     * </p>
+     * <p>
+     * Details are streamed by a bounded executor; when it is saturated the request is answered with
+     * {@code 503 Service Unavailable} instead.
+     * </p>
+     *
+     * @param id the unique identifier of the timeline event.
+     * @param eventName the name of the Islamic event (optional).
+     * @return the emitter the events are sent through.
+     * @throws ResponseStatusException with status 404 if neither the ID nor the name identifies an event.
+     * @throws org.springframework.core.task.TaskRejectedException if too many details are being streamed.
+     */
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTimelineDetail(@PathVariable Long id, @RequestParam(required = false) String eventName) {
+        log.info("Streaming detailed information for event with id: {} and eventName: {}", id, eventName);
+
+        IslamicEventDefinition event = resolveEvent(id, eventName);
+        IslamicEvent message = IslamicEvent.of(event);
+        String canonicalName = event.eventName();
+
+        // Stream the details on a separate thread, releasing the request thread.
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT.toMillis());
+        streamExecutor.execute(() -> stream(emitter, event, message));
+        log.debug("Queued streaming of event: {}", canonicalName);
+        return emitter;
+    }
+
+    /**
+     * Streams the details of an event through an emitter.
+     */
+    private void stream(SseEmitter emitter, IslamicEventDefinition event, IslamicEvent message) {
+        String canonicalName = event.eventName();
+        try {
+            BiConsumer<String, String> onField = (field, value) -> send(emitter, SseEmitter.event().name(field).data(value));
+            Optional<IslamicEventDetailDTO> catalogued = eventDetailCatalog.find(event.id());
+            IslamicEventDetailDTO eventDetail = catalogued.isPresent() ? sendFields(catalogued.get(), onField)
+                : chatGptService.streamResponse(message, onField);
+            send(emitter, SseEmitter.event().name("complete").data(toTimelineDetail(event.id(), canonicalName, eventDetail),
+                MediaType.APPLICATION_JSON));
+            emitter.complete();
+            log.info("Streamed detailed event information for event: {}", canonicalName);
+        } catch (UncheckedIOException e) {
+            // The client has gone away; there is nobody left to notify.
+            log.info("Stopped streaming event {}: {}", canonicalName, e.getMessage());
+            emitter.completeWithError(e);
+        } catch (Exception e) {
+            log.warn("Failed to stream detailed information for event: {}", canonicalName, e);
+            try {
+                emitter.send(SseEmitter.event().name("failed").data("Event details are unavailable, please try again later."));
+                emitter.complete();
+            } catch (IOException | IllegalStateException sendFailure) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Resolves the canonical event requested by ID or, failing that, by name.
+     *
+     * @throws ResponseStatusException with status 404 if neither identifies an event.
+     */
+    private IslamicEventDefinition resolveEvent(Long id, String eventName) {
+        return islamicEventRegistry.resolve(id, eventName)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown event: " + id + " " + eventName));
+    }
+
+    /**
+     * Sends each field of catalogued event details at once.
+     *
+     * @return the details.
+     */
+    private static IslamicEventDetailDTO sendFields(IslamicEventDetailDTO eventDetail, BiConsumer<String, String> onField) {
+        onField.accept("origin", eventDetail.getOrigin());
+        onField.accept("originRefLink", eventDetail.getOriginRefLink());
+        onField.accept("sunnah", eventDetail.getSunnah());
+        onField.accept("sunnahRefLink", eventDetail.getSunnahRefLink());
+        return eventDetail;
+    }
+
+    /**
+     * Sends an event to the client.
+     *
+     * @throws UncheckedIOException if the client has disconnected.
+     */
+    private static void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds the timeline detail of an event from the details returned by ChatGPT.
+     */
+    private static TimelineDetailDTO toTimelineDetail(Long id, String eventName, IslamicEventDetailDTO eventDetail) {
+        return new TimelineDetailDTO(
                 id,
                 eventName,
                 eventDetail.getOrigin(),
@@ -96,9 +287,5 @@ public class TimelineApiController {
                 eventDetail.getSunnah(),
                 eventDetail.getSunnahRefLink()
         );
-        
-        // Log completion of the detailed event information retrieval
-        log.info("Returning detailed event information for event: {}", eventName);
-        return detailDTO;
     }
 }
@@ -1,19 +1,37 @@
 package com.github.sharifrahim.chatgptintegration.demo.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.chrono.HijrahDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
 
-import com.github.sharifrahim.chatgptintegration.demo.dto.HadithOfTheDayDTO;
-import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
-import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
-import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.HadithOfTheDayStrategy;
-import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.QuranOfTheDay;
+import com.github.sharifrahim.chatgptintegration.demo.cache.TimelinePageCache;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.DailyContentService;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,9 +39,20 @@ import lombok.extern.slf4j.Slf4j;
  * Controller responsible for handling timeline requests.
  * <p>
  * This controller processes the timeline view which displays Islamic (Hijri) and Gregorian dates,
- * along with the Hadith and Quran of the day retrieved via the ChatGptService.
+ * along with the Hadith and Quran of the day precomputed by the DailyContentService.
  * </p>
- * 
+ * <p>
+ * The page only changes with the day and the daily content, so its HTML is rendered once per day, content
+ * and locale and then served from the {@link TimelinePageCache}. Responses carry an {@code ETag} and a
+ * {@code Last-Modified} header, and conditional requests for an unchanged page are answered with
+ * {@code 304 Not Modified}.
+ * </p>
+ * <p>
+ * Until the first daily content has been generated, the page is progressive: everything but the Hadith and
+ * Quran is sent at once with placeholders for them, and their sections follow in the same response as soon
+ * as the content is ready, each in a {@code template} element that a script swaps in for its placeholder.
+ * </p>
+ *
  * @author sharif
  * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
  */
@@ -31,62 +60,220 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Controller
 public class TimelineController {
-	
+
+	/**
+	 * Format of the month, year and era of the Islamic (Hijri) date, the day coming from the configured calendar.
+	 */
+	private static final DateTimeFormatter HIJRAH_MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMMM yyyy G");
+
+	/**
+	 * Format of the Gregorian date.
+	 */
+	private static final DateTimeFormatter GREGORIAN_FORMATTER = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+
+	/**
+	 * Content type of the rendered page.
+	 */
+	private static final MediaType TEXT_HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+
+	/**
+	 * Fragments of the timeline template streamed once the daily content is ready, in order.
+	 */
+	private static final List<String> STREAMED_SECTIONS = List.of("hadith", "quran");
+
 	/**
-	 * Service for interacting with ChatGPT to retrieve daily content.
+	 * End of the page body, before which streamed sections are inserted.
 	 */
-	private final ChatGptService chatGptService;
+	private static final byte[] BODY_END = "</body>".getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Time a progressive request is kept open beyond the content wait, to write the rest of the page.
+	 */
+	private static final Duration ASYNC_GRACE = Duration.ofSeconds(10);
+
+	/**
+	 * Service holding the precomputed daily content.
+	 */
+	private final DailyContentService dailyContentService;
+
+	/**
+	 * Engine rendering the timeline template.
+	 */
+	private final ITemplateEngine templateEngine;
+
+	/**
+	 * Cache of the rendered page.
+	 */
+	private final TimelinePageCache timelinePageCache;
+
+	/**
+	 * Converter determining the Hijri date in the configured calendar.
+	 */
+	private final HijriCalendarConverter calendarConverter;
+
+	/**
+	 * Whether the Hadith and Quran sections are streamed after the rest of the page while there is no daily
+	 * content yet, injected from {@code timeline.page.progressive}.
+	 */
+	@Value("${timeline.page.progressive:true}")
+	private boolean progressive;
+
+	/**
+	 * How long a progressive page waits for the daily content before leaving the placeholders, injected from
+	 * {@code timeline.page.content-wait}.
+	 */
+	@Value("${timeline.page.content-wait:30s}")
+	private Duration contentWait;
 
 	/**
 	 * Handles GET requests for the timeline page.
 	 * <p>
-	 * This method computes the Islamic (Hijri) and Gregorian dates, fetches the Hadith and Quran
-	 * of the day using the ChatGptService, and adds them to the model to be rendered in the view.
+	 * The page is served from the cache when it has already been rendered for today's date, the current
+	 * daily content and the request's locale; otherwise it is rendered and cached. The page is never held
+	 * back waiting for ChatGPT: if no content has been generated yet, it is sent with placeholders, which
+	 * are replaced by the Hadith and Quran streamed once they are ready when the page is progressive.
 	 * </p>
 	 *
-	 * @param model the Spring Model used to pass attributes to the view.
-	 * @return the name of the view template for the timeline.
-	 * @throws Exception if an error occurs during content retrieval.
+	 * @param locale   the locale of the request.
+	 * @param request  the request, put in asynchronous mode for a progressive page.
+	 * @param response the response a progressive page is written to.
+	 * @return the rendered timeline page, or {@code null} if a progressive page is being written to the response.
+	 * @throws IOException if the progressive page cannot be written.
 	 */
 	@GetMapping("/timeline")
-	public String timeline(Model model) throws Exception {
-	    log.info("Starting timeline endpoint");
+	public ResponseEntity<byte[]> timeline(Locale locale, HttpServletRequest request, HttpServletResponse response)
+		throws IOException {
+		LocalDate today = LocalDate.now();
+		DailyContentDTO dailyContent = dailyContentService.getDailyContent();
+		TimelinePageCache.RenderedPage page = timelinePageCache.get(locale, today, dailyContent,
+			() -> render(locale, today, dailyContent));
 
-		// Compute Islamic (Hijri) date
-		HijrahDate hijrahDate = HijrahDate.now();
-		DateTimeFormatter hijrahFormatter = DateTimeFormatter.ofPattern("d MMMM yyyy G");
-		String islamicDate = hijrahFormatter.format(hijrahDate);
-		log.info("Computed Islamic (Hijri) date: {}", islamicDate);
+		if (dailyContent == null && progressive) {
+			streamSections(request, response, locale, today, page.html());
+			return null;
+		}
 
-		// Compute Gregorian date
-		LocalDate today = LocalDate.now();
-		DateTimeFormatter gregorianFormatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
-		String gregorianDate = today.format(gregorianFormatter);
-		log.info("Computed Gregorian date: {}", gregorianDate);
-
-		// Retrieve Hadith of the Day values using ChatGptService
-		HadithOfTheDayStrategy hadithOfTheDayStrategy = new HadithOfTheDayStrategy();
-		HadithOfTheDayDTO hadith = chatGptService.getResponse(
-		    hadithOfTheDayStrategy.getUserMessage(),
-		    hadithOfTheDayStrategy.getResponseClass()
-		);
-		log.info("Fetched Hadith of the Day.");
-
-		// Retrieve Quran of the Day values using ChatGptService
-		QuranOfTheDay quranStrategy = new QuranOfTheDay();
-		QuranOfTheDayDTO resultQuran = chatGptService.getResponse(
-		    quranStrategy.getUserMessage(),
-		    quranStrategy.getResponseClass()
-		);
-		log.info("Fetched Quran of the Day.");
+		// Let browsers keep the page but check with us before reusing it, since it changes with the day
+		return ResponseEntity.ok()
+			.contentType(TEXT_HTML_UTF8)
+			.cacheControl(CacheControl.noCache())
+			.eTag(page.etag())
+			.lastModified(page.lastModified())
+			.body(page.html());
+	}
+
+	/**
+	 * Adds the values shown on the timeline page to a model.
+	 * <p>
+	 * This method formats the Islamic (Hijri) and Gregorian dates of the given day and adds them to the
+	 * model along with the Hadith and Quran of the day.
+	 * </p>
+	 *
+	 * @param model        the model the values are added to.
+	 * @param today        the day shown.
+	 * @param dailyContent the daily content shown, or {@code null} if none has been generated yet.
+	 */
+	public void addTimelineAttributes(Model model, LocalDate today, DailyContentDTO dailyContent) {
+		// Compute the Islamic (Hijri) and Gregorian dates
+		int hijriDate = calendarConverter.toHijri(today);
+		String islamicDate = hijriDate % 100 + " "
+			+ HIJRAH_MONTH_FORMATTER.format(HijrahDate.of(hijriDate / 10000, hijriDate / 100 % 100, 1));
+		String gregorianDate = today.format(GREGORIAN_FORMATTER);
+		log.info("Computed Islamic (Hijri) date {} and Gregorian date {}", islamicDate, gregorianDate);
+
+		if (dailyContent == null) {
+			log.info("Daily content has not been generated yet.");
+		}
 
 		// Add all values to the model to be used in the view
 		model.addAttribute("islamicDate", islamicDate);
 		model.addAttribute("gregorianDate", gregorianDate);
-		model.addAttribute("hadith", hadith);
-		model.addAttribute("quran", resultQuran);
-		log.info("Timeline data added to the model. Returning timeline view.");
+		model.addAttribute("hadith", dailyContent != null ? dailyContent.getHadith() : null);
+		model.addAttribute("quran", dailyContent != null ? dailyContent.getQuran() : null);
+	}
 
-		return "timeline";
+	/**
+	 * Sends the page without daily content at once, then streams the sections of the daily content into it
+	 * once it is ready.
+	 * <p>
+	 * The request is put in asynchronous mode and released straight away: the rest of the page is written by
+	 * whichever thread completes the refresh in progress, or the timeout, which then completes the request.
+	 * </p>
+	 */
+	private void streamSections(HttpServletRequest request, HttpServletResponse response, Locale locale, LocalDate today,
+		byte[] page) throws IOException {
+		int bodyEnd = lastIndexOf(page, BODY_END);
+		AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(contentWait.plus(ASYNC_GRACE).toMillis());
+		response.setContentType(TEXT_HTML_UTF8.toString());
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+
+		// Send everything up to the end of the body, placeholders included, straight away
+		OutputStream out = response.getOutputStream();
+		out.write(page, 0, bodyEnd);
+		response.flushBuffer();
+
+		// Stream each section once the content is generated; the placeholders stay if it takes too long
+		dailyContentService.awaitDailyContent()
+			.copy()
+			.orTimeout(contentWait.toMillis(), TimeUnit.MILLISECONDS)
+			.whenComplete((dailyContent, error) -> {
+				try {
+					if (error != null) {
+						log.warn("Daily content is not ready, leaving placeholders on the timeline page: {}", error.toString());
+					} else {
+						writeSections(response, locale, today, dailyContent);
+					}
+					out.write(page, bodyEnd, page.length - bodyEnd);
+				} catch (IOException | RuntimeException e) {
+					// The client went away, or the request timed out
+					log.warn("Failed to stream the daily content into the timeline page: {}", e.toString());
+				} finally {
+					asyncContext.complete();
+				}
+			});
+	}
+
+	/**
+	 * Renders the sections of the daily content and writes each in a template swapped in for its placeholder.
+	 */
+	private void writeSections(HttpServletResponse response, Locale locale, LocalDate today, DailyContentDTO dailyContent)
+		throws IOException {
+		ExtendedModelMap model = new ExtendedModelMap();
+		addTimelineAttributes(model, today, dailyContent);
+		Context context = new Context(locale, model);
+		for (String section : STREAMED_SECTIONS) {
+			String id = section + "Section";
+			String html = templateEngine.process("timeline", Set.of(section), context);
+			response.getOutputStream().write(("<template id=\"" + id + "Streamed\">" + html + "</template>\n<script>swapSection('"
+				+ id + "');</script>\n").getBytes(StandardCharsets.UTF_8));
+			response.flushBuffer();
+		}
+		log.info("Streamed the daily content into the timeline page.");
+	}
+
+	/**
+	 * Returns the position of the last occurrence of a byte sequence, or the length of the array if absent.
+	 */
+	private static int lastIndexOf(byte[] array, byte[] target) {
+		for (int i = array.length - target.length; i >= 0; i--) {
+			int j = 0;
+			while (j < target.length && array[i + j] == target[j]) {
+				j++;
+			}
+			if (j == target.length) {
+				return i;
+			}
+		}
+		return array.length;
+	}
+
+	/**
+	 * Renders the timeline template to UTF-8 encoded HTML.
+	 */
+	private byte[] render(Locale locale, LocalDate today, DailyContentDTO dailyContent) {
+		ExtendedModelMap model = new ExtendedModelMap();
+		addTimelineAttributes(model, today, dailyContent);
+		return templateEngine.process("timeline", new Context(locale, model)).getBytes(StandardCharsets.UTF_8);
 	}
 }
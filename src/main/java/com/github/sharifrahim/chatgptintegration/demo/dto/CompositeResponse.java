@@ -0,0 +1,66 @@
+package com.github.sharifrahim.chatgptintegration.demo.dto;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
+
+/**
+ * Responses to several {@link MessageStrategy} requests answered together.
+ * <p>
+ * Each response is stored under the strategy instance that requested it and is retrieved with the
+ * strategy's response type, so callers get typed results without casting.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public class CompositeResponse {
+
+    /**
+     * The responses, keyed by the strategy that requested them.
+     */
+    private final Map<MessageStrategy<?>, Object> responses = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the response to a strategy.
+     *
+     * @param strategy the strategy that requested the response.
+     * @param <T>      the response type of the strategy.
+     * @return the response, or {@code null} if the strategy was not part of the request.
+     */
+    public <T> T get(MessageStrategy<T> strategy) {
+        return strategy.getResponseClass().cast(responses.get(strategy));
+    }
+
+    /**
+     * Stores the response to a strategy.
+     *
+     * @param strategy the strategy that requested the response.
+     * @param response the response to the strategy.
+     * @param <T>      the response type of the strategy.
+     */
+    public <T> void put(MessageStrategy<T> strategy, T response) {
+        responses.put(strategy, response);
+    }
+
+    /**
+     * Stores every response of another composite response.
+     *
+     * @param other the responses to add.
+     * @return this composite response.
+     */
+    public CompositeResponse putAll(CompositeResponse other) {
+        responses.putAll(other.responses);
+        return this;
+    }
+
+    /**
+     * Returns the number of responses.
+     *
+     * @return the number of strategies answered.
+     */
+    public int size() {
+        return responses.size();
+    }
+}
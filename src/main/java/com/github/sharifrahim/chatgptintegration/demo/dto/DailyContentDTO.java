@@ -0,0 +1,40 @@
+package com.github.sharifrahim.chatgptintegration.demo.dto;
+
+import java.time.Instant;
+
+import lombok.Value;
+
+/**
+ * Immutable snapshot of the content shown for one Hijri day.
+ * <p>
+ * This DTO bundles the Hadith and Quran of the day generated for a specific Hijri date, together
+ * with the time at which the content was generated. Snapshots are replaced as a whole, so readers
+ * always see a consistent pair of Hadith and Quran.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Value
+public class DailyContentDTO {
+
+    /**
+     * The Hijri date the content was generated for, as {@code yyyy-MM-dd} in the configured calendar.
+     */
+    String hijriDate;
+
+    /**
+     * The Hadith of the day.
+     */
+    HadithOfTheDayDTO hadith;
+
+    /**
+     * The Quran verse of the day.
+     */
+    QuranOfTheDayDTO quran;
+
+    /**
+     * The time at which the content was generated.
+     */
+    Instant generatedAt;
+}
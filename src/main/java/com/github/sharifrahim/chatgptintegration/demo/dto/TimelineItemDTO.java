@@ -7,9 +7,14 @@ import lombok.NoArgsConstructor;
 /**
  * Data Transfer Object representing a timeline item.
  * <p>
- * This DTO encapsulates the unique identifier, name, and date of a timeline event.
+ * This DTO encapsulates the identifier, name, and date of a timeline event.
  * It is used to transfer event data between the service and presentation layers.
  * </p>
+ * <p>
+ * The identifier is the ID of the event definition, which details are requested by, so the same event has
+ * the same identifier in every year. A list covering several years therefore repeats identifiers; the
+ * occurrence key identifies each item uniquely.
+ * </p>
  * 
  * @author sharif
  * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
@@ -20,9 +25,14 @@ import lombok.NoArgsConstructor;
 public class TimelineItemDTO {
     
     /**
-     * Unique identifier for the timeline event.
+     * Identifier of the event definition, shared by the occurrences of the event in every year.
      */
     private Long id;
+
+    /**
+     * Unique key of this occurrence of the event, made of its Hijri year and the event ID.
+     */
+    private String occurrenceKey;
     
     /**
      * Name of the timeline event.
@@ -0,0 +1,298 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAICircuitBreakerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Circuit breaker stopping calls to the OpenAI API while most of them fail.
+ * <p>
+ * While the circuit is closed, the outcome of the most recent calls is recorded, and once the share of
+ * failures among them reaches {@code openai.circuit-breaker.failure-rate-threshold} the circuit opens. An open
+ * circuit rejects calls at once with an {@link OpenAICircuitOpenException} instead of letting them wait for
+ * the API to time out, so callers can fall back to a stale response or fail fast. After
+ * {@code openai.circuit-breaker.open-duration} a single trial call is let through: the circuit closes if it
+ * succeeds and opens again if it fails.
+ * </p>
+ * <p>
+ * Calls rejected by the {@link OpenAIGovernor} and cancelled calls say nothing about the API and are not
+ * counted as failures.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class OpenAICircuitBreaker {
+
+    /**
+     * The states of the circuit.
+     */
+    public enum State {
+
+        /**
+         * Calls are sent and their outcome is recorded.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected.
+         */
+        OPEN,
+
+        /**
+         * A trial call is let through, and the others are rejected until it completes.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The circuit breaker configuration.
+     */
+    private final OpenAICircuitBreakerProperties properties;
+
+    /**
+     * Outcome of the most recent calls, {@code true} for a failure, used as a ring buffer.
+     */
+    private final boolean[] outcomes;
+
+    /**
+     * Number of calls rejected because the circuit was open.
+     */
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Index of the next outcome to record.
+     */
+    private int next;
+
+    /**
+     * Number of outcomes recorded, up to the window size.
+     */
+    private int recorded;
+
+    /**
+     * Number of failures among the recorded outcomes.
+     */
+    private int failures;
+
+    /**
+     * The current state.
+     */
+    private State state = State.CLOSED;
+
+    /**
+     * The {@link System#nanoTime()} at which the circuit last opened.
+     */
+    private long openedAt;
+
+    /**
+     * Whether the trial call of the half-open circuit is in flight.
+     */
+    private boolean trialInFlight;
+
+    /**
+     * Creates the circuit breaker.
+     *
+     * @param properties the circuit breaker configuration.
+     */
+    public OpenAICircuitBreaker(OpenAICircuitBreakerProperties properties) {
+        this.properties = properties;
+        this.outcomes = new boolean[properties.getWindowSize()];
+    }
+
+    /**
+     * Returns whether calls are sent without restriction.
+     *
+     * @return {@code true} if the circuit breaker is disabled or the circuit is closed.
+     */
+    public synchronized boolean isClosed() {
+        return !properties.isEnabled() || state == State.CLOSED;
+    }
+
+    /**
+     * Returns the current state of the circuit.
+     *
+     * @return the state.
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of calls rejected because the circuit was open.
+     *
+     * @return the total number of rejected calls.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Sends a blocking call unless the circuit is open, recording its outcome.
+     *
+     * @param call the call to send.
+     * @param <T>  the result type of the call.
+     * @return the result of the call.
+     * @throws OpenAICircuitOpenException if the circuit is open.
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        boolean trial = acquirePermission();
+        T result;
+        try {
+            result = call.get();
+        } catch (Throwable e) {
+            // Errors count as failures too, so that a trial call never leaves the circuit half-open for good
+            onFailure(trial, e);
+            throw e;
+        }
+        onSuccess(trial);
+        return result;
+    }
+
+    /**
+     * Sends an asynchronous call unless the circuit is open, recording its outcome once it completes.
+     *
+     * @param call the call to send.
+     * @param <T>  the result type of the call.
+     * @return the future returned by the call, or a future completed exceptionally with an
+     *         {@link OpenAICircuitOpenException} if the circuit is open.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        boolean trial;
+        try {
+            trial = acquirePermission();
+        } catch (OpenAICircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable e) {
+            onFailure(trial, e);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> {
+            if (error == null) {
+                onSuccess(trial);
+            } else {
+                onFailure(trial, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+    }
+
+    /**
+     * Admits a call, or rejects it if the circuit is open.
+     *
+     * @return {@code true} if the call is the trial call of the half-open circuit.
+     * @throws OpenAICircuitOpenException if the call is rejected.
+     */
+    private synchronized boolean acquirePermission() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        long openNanos = System.nanoTime() - openedAt;
+        if (state == State.OPEN && openNanos >= properties.getOpenDuration().toNanos()) {
+            log.info("OpenAI circuit breaker half-open, letting a trial call through.");
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        Duration retryAfter = properties.getOpenDuration().minusNanos(openNanos);
+        throw new OpenAICircuitOpenException("OpenAI circuit breaker is open",
+            retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+    }
+
+    /**
+     * Records a successful call, closing the circuit if it was the trial call.
+     */
+    private synchronized void onSuccess(boolean trial) {
+        if (trial) {
+            log.info("OpenAI circuit breaker closed after a successful trial call.");
+            state = State.CLOSED;
+            trialInFlight = false;
+            reset();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed call, opening the circuit if it was the trial call or the failure rate is too high.
+     */
+    private synchronized void onFailure(boolean trial, Throwable error) {
+        if (error instanceof OpenAIThrottledException || error instanceof CancellationException) {
+            // Not a failure of the API; let another call be the trial.
+            if (trial) {
+                trialInFlight = false;
+            }
+            return;
+        }
+        if (trial) {
+            log.warn("OpenAI circuit breaker trial call failed, opening the circuit again: {}", error.toString());
+            trialInFlight = false;
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= properties.getMinimumCalls() && failures >= properties.getFailureRateThreshold() * recorded) {
+                log.warn("OpenAI circuit breaker opened after {} of the last {} calls failed.", failures, recorded);
+                open();
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a call in the window.
+     */
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    /**
+     * Opens the circuit.
+     */
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        reset();
+    }
+
+    /**
+     * Forgets the recorded outcomes.
+     */
+    private void reset() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
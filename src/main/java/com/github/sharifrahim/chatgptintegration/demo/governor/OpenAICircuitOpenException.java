@@ -0,0 +1,39 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call to the OpenAI API is not sent because the circuit breaker is open.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public class OpenAICircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Time after which the circuit breaker lets a trial call through.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message    the detail message.
+     * @param retryAfter the time after which the circuit breaker lets a trial call through.
+     */
+    public OpenAICircuitOpenException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the time after which the circuit breaker lets a trial call through.
+     *
+     * @return the time to wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,534 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAIGovernorProperties;
+import com.openai.core.http.Headers;
+import com.openai.errors.InternalServerException;
+import com.openai.errors.OpenAIIoException;
+import com.openai.errors.OpenAIServiceException;
+import com.openai.errors.RateLimitException;
+import com.openai.models.ChatCompletion;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Governs calls to the OpenAI API so that they stay within the account's rate limits.
+ * <p>
+ * Every call must first be admitted. Admission takes one permit from a requests-per-minute token bucket
+ * and the call's estimated token count from a tokens-per-minute token bucket, then one of a bounded number
+ * of concurrency slots. Callers are admitted in arrival order and wait at most
+ * {@link OpenAIGovernorProperties#getMaxWait()}; if they would have to wait longer they fail fast with an
+ * {@link OpenAIThrottledException}. Once a call completes, its token estimate is corrected with the actual
+ * usage reported by the API.
+ * </p>
+ * <p>
+ * Asynchronous callers wait for admission on a small, bounded pool of threads. When all of them are busy and
+ * the queue in front of them is full, further calls are rejected with an {@link OpenAIThrottledException}
+ * instead of starting more threads.
+ * </p>
+ * <p>
+ * Rate-limited ({@code 429}), server-error and I/O failures are retried with exponential backoff and jitter,
+ * honouring the {@code Retry-After} header when the API sends one. A {@code 429} also pauses admission for
+ * every caller until the retry time, so that the governor backs off as a whole instead of letting other
+ * callers run into the same limit.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class OpenAIGovernor {
+
+    /**
+     * Rough number of characters per token, used to estimate prompt sizes.
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * The limits to enforce.
+     */
+    private final OpenAIGovernorProperties properties;
+
+    /**
+     * Bucket of requests per minute.
+     */
+    private final TokenBucket requestBucket;
+
+    /**
+     * Bucket of tokens per minute.
+     */
+    private final TokenBucket tokenBucket;
+
+    /**
+     * Slots for requests in flight.
+     */
+    private final Semaphore concurrency;
+
+    /**
+     * Fair lock ordering callers waiting for rate budget.
+     */
+    private final ReentrantLock admission = new ReentrantLock(true);
+
+    /**
+     * Time until which admission is paused after a {@code 429}.
+     */
+    private volatile long pausedUntil = System.nanoTime();
+
+    /**
+     * Threads waiting for admission on behalf of asynchronous callers.
+     */
+    private final ThreadPoolExecutor admissionExecutor;
+
+    /**
+     * Number of calls rejected because they could not be admitted in time.
+     */
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    /**
+     * Number of retried calls.
+     */
+    private final AtomicLong retryCount = new AtomicLong();
+
+    /**
+     * Number of {@code 429} responses received.
+     */
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+
+    /**
+     * Creates the governor.
+     *
+     * @param properties the limits to enforce.
+     */
+    public OpenAIGovernor(OpenAIGovernorProperties properties) {
+        this.properties = properties;
+        long now = System.nanoTime();
+        this.requestBucket = new TokenBucket(properties.getRequestsPerMinute(), now);
+        this.tokenBucket = new TokenBucket(properties.getTokensPerMinute(), now);
+        this.concurrency = new Semaphore(properties.getMaxConcurrentRequests(), true);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.admissionExecutor = new ThreadPoolExecutor(properties.getAsyncAdmissionThreads(),
+            properties.getAsyncAdmissionThreads(), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(properties.getAsyncAdmissionQueueCapacity()), runnable -> {
+                Thread thread = new Thread(runnable, "openai-governor-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        log.info("OpenAIGovernor created with {} requests/min, {} tokens/min and {} concurrent requests.",
+            properties.getRequestsPerMinute(), properties.getTokensPerMinute(), properties.getMaxConcurrentRequests());
+    }
+
+    /**
+     * Estimates the number of tokens a request will consume.
+     *
+     * @param promptLength the total number of characters of the request's messages.
+     * @return the estimated prompt tokens plus the configured estimate of completion tokens.
+     */
+    public long estimateTokens(int promptLength) {
+        return (promptLength + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN + properties.getEstimatedCompletionTokens();
+    }
+
+    /**
+     * Sends a blocking call to the OpenAI API once admitted, retrying it on transient failures.
+     * <p>
+     * The concurrency slot is held until the call returns, so a call that consumes a streaming response
+     * inside {@code call} keeps its slot for the whole stream.
+     * </p>
+     *
+     * @param estimatedTokens the estimated number of tokens the call consumes.
+     * @param call            the call to send.
+     * @param <T>             the result type of the call.
+     * @return the result of the call.
+     * @throws OpenAIThrottledException if the call could not be admitted in time.
+     */
+    public <T> T execute(long estimatedTokens, Supplier<T> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        for (int attempt = 0;; attempt++) {
+            acquire(estimatedTokens, System.nanoTime() + properties.getMaxWait().toNanos());
+            T completion = null;
+            RuntimeException failure = null;
+            try {
+                completion = call.get();
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                concurrency.release();
+            }
+            if (failure == null) {
+                recordUsage(completion, estimatedTokens);
+                return completion;
+            }
+
+            // Give up on permanent failures, otherwise wait before the next attempt.
+            Duration delay = getRetryDelay(failure, attempt);
+            if (delay == null) {
+                throw failure;
+            }
+            sleep(delay);
+        }
+    }
+
+    /**
+     * Sends an asynchronous call to the OpenAI API once admitted, retrying it on transient failures.
+     * <p>
+     * Waiting for admission and for retries never blocks the calling thread. The call is rejected at once
+     * when the threads waiting for admission are all busy and their queue is full.
+     * </p>
+     *
+     * @param estimatedTokens the estimated number of tokens the call consumes.
+     * @param call            the call to send.
+     * @param <T>             the result type of the call.
+     * @return a future completed with the result of the call, or completed exceptionally with an
+     *         {@link OpenAIThrottledException} if the call could not be admitted in time.
+     */
+    public <T> CompletableFuture<T> executeAsync(long estimatedTokens, Supplier<CompletableFuture<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        return executeAsync(estimatedTokens, call, 0);
+    }
+
+    /**
+     * Sends an asynchronous call to the OpenAI API if it can be admitted at once, without retrying it.
+     * <p>
+     * The call is only admitted if admission is not paused, no other caller is waiting, and the rate budget
+     * and a concurrency slot are available right away. This suits optional calls, such as hedges, which must
+     * never hold up or compete with regular calls.
+     * </p>
+     *
+     * @param estimatedTokens the estimated number of tokens the call consumes.
+     * @param call            the call to send.
+     * @param <T>             the result type of the call.
+     * @return the future of the call, whose cancellation cancels the call, or an empty result if the call could
+     *         not be admitted at once.
+     */
+    public <T> Optional<CompletableFuture<T>> tryExecuteAsync(long estimatedTokens, Supplier<CompletableFuture<T>> call) {
+        if (!properties.isEnabled()) {
+            return Optional.of(call.get());
+        }
+        if (!tryAcquire(estimatedTokens)) {
+            return Optional.empty();
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> sent = future;
+        sent.whenComplete((completion, error) -> {
+            concurrency.release();
+            if (error == null) {
+                recordUsage(completion, estimatedTokens);
+            }
+        });
+        // Cancelling the returned future cancels the call, which releases its slot at once
+        CompletableFuture<T> governed = sent.copy();
+        governed.whenComplete((completion, error) -> {
+            if (error instanceof CancellationException) {
+                sent.cancel(true);
+            }
+        });
+        return Optional.of(governed);
+    }
+
+    /**
+     * Returns the number of calls rejected because they could not be admitted in time.
+     *
+     * @return the total number of throttled calls.
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Returns the number of retried calls.
+     *
+     * @return the total number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Returns the number of {@code 429} responses received from the API.
+     *
+     * @return the total number of rate-limited calls.
+     */
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    /**
+     * Returns the number of calls currently in flight.
+     * <p>
+     * This is the number of concurrency slots taken, not the state of the client's connection pool, which
+     * cannot be inspected. Calls are not counted while the governor is disabled.
+     * </p>
+     *
+     * @return the number of admitted calls that have not completed.
+     */
+    public int getActiveCallCount() {
+        return properties.getMaxConcurrentRequests() - concurrency.availablePermits();
+    }
+
+    /**
+     * Returns the number of asynchronous calls queued for an admission thread.
+     *
+     * @return the number of asynchronous calls not yet waiting for admission.
+     */
+    public int getQueuedAdmissionCount() {
+        return admissionExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the maximum number of calls in flight at once.
+     *
+     * @return the configured concurrency limit.
+     */
+    public int getMaxConcurrentCalls() {
+        return properties.getMaxConcurrentRequests();
+    }
+
+    /**
+     * Stops the threads waiting for admission on behalf of asynchronous callers.
+     */
+    @PreDestroy
+    public void close() {
+        admissionExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs one attempt of an asynchronous call and schedules a retry if it fails transiently.
+     */
+    private <T> CompletableFuture<T> executeAsync(long estimatedTokens, Supplier<CompletableFuture<T>> call, int attempt) {
+        // The maximum wait includes the time spent queued for an admission thread
+        long deadline = System.nanoTime() + properties.getMaxWait().toNanos();
+        CompletableFuture<Void> admitted;
+        try {
+            admitted = CompletableFuture.runAsync(() -> acquire(estimatedTokens, deadline), admissionExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(throttled("Too many OpenAI calls waiting for admission", properties.getMaxWait()));
+        }
+        return admitted
+            .thenCompose(ignored -> {
+                CompletableFuture<T> future;
+                try {
+                    future = call.get();
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                return future.whenComplete((completion, error) -> concurrency.release());
+            })
+            .handle((completion, error) -> {
+                if (error == null) {
+                    recordUsage(completion, estimatedTokens);
+                    return CompletableFuture.completedFuture(completion);
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                Duration delay = getRetryDelay(cause, attempt);
+                if (delay == null) {
+                    return CompletableFuture.<T>failedFuture(cause);
+                }
+                return CompletableFuture.runAsync(() -> {
+                }, CompletableFuture.delayedExecutor(delay.toNanos(), TimeUnit.NANOSECONDS))
+                    .thenCompose(retry -> executeAsync(estimatedTokens, call, attempt + 1));
+            })
+            .thenCompose(future -> future);
+    }
+
+    /**
+     * Waits until a call may be sent and takes its rate budget and a concurrency slot.
+     *
+     * @param estimatedTokens the estimated number of tokens the call consumes.
+     * @param deadline        the {@link System#nanoTime()} by which the call must be admitted.
+     * @throws OpenAIThrottledException if the call cannot be admitted by the deadline.
+     */
+    private void acquire(long estimatedTokens, long deadline) {
+        try {
+            // Queue behind earlier callers, then wait for the rate budget.
+            if (!admission.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw throttled("Timed out waiting for earlier OpenAI calls to be admitted", properties.getMaxWait());
+            }
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long wait = Math.max(pausedUntil - now, 0);
+                    if (wait == 0) {
+                        wait = Math.max(requestBucket.nanosUntilAvailable(1, now), tokenBucket.nanosUntilAvailable(estimatedTokens, now));
+                    }
+                    if (wait == 0) {
+                        requestBucket.consume(1, now);
+                        tokenBucket.consume(estimatedTokens, now);
+                        break;
+                    }
+                    if (now + wait > deadline) {
+                        throw throttled("OpenAI rate limit budget exhausted", Duration.ofNanos(wait));
+                    }
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            } finally {
+                admission.unlock();
+            }
+
+            // Bound the number of calls in flight; return the rate budget if no slot frees up in time.
+            if (!concurrency.tryAcquire(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                long now = System.nanoTime();
+                requestBucket.consume(-1, now);
+                tokenBucket.consume(-estimatedTokens, now);
+                throw throttled("Too many concurrent OpenAI calls", properties.getMaxWait());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw throttled("Interrupted while waiting to call OpenAI", properties.getMaxWait());
+        }
+    }
+
+    /**
+     * Takes the rate budget and a concurrency slot of a call if they are available at once.
+     *
+     * @param estimatedTokens the estimated number of tokens the call consumes.
+     * @return {@code true} if the call was admitted.
+     */
+    private boolean tryAcquire(long estimatedTokens) {
+        // Never overtake callers already waiting for admission or for a slot.
+        if (concurrency.hasQueuedThreads() || !admission.tryLock()) {
+            return false;
+        }
+        try {
+            long now = System.nanoTime();
+            if (pausedUntil > now || requestBucket.nanosUntilAvailable(1, now) > 0
+                || tokenBucket.nanosUntilAvailable(estimatedTokens, now) > 0 || !concurrency.tryAcquire()) {
+                return false;
+            }
+            requestBucket.consume(1, now);
+            tokenBucket.consume(estimatedTokens, now);
+            return true;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    /**
+     * Counts a rejected call and creates the exception reporting it.
+     */
+    private OpenAIThrottledException throttled(String message, Duration retryAfter) {
+        throttledCount.incrementAndGet();
+        log.warn("{}, rejecting call (retry after {}).", message, retryAfter);
+        return new OpenAIThrottledException(message, retryAfter);
+    }
+
+    /**
+     * Corrects the token budget with the usage reported by the API, when the result of the call carries it.
+     */
+    private void recordUsage(Object result, long estimatedTokens) {
+        if (result instanceof ChatCompletion completion) {
+            completion.usage().ifPresent(usage -> tokenBucket.consume(usage.totalTokens() - estimatedTokens, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Decides whether a failed call is retried and how long to wait before the retry.
+     *
+     * @param error   the failure of the call.
+     * @param attempt the number of retries already made.
+     * @return the delay before the retry, or {@code null} if the call must not be retried.
+     */
+    private Duration getRetryDelay(Throwable error, int attempt) {
+        boolean rateLimited = error instanceof RateLimitException;
+        if (!rateLimited && !(error instanceof InternalServerException) && !(error instanceof OpenAIIoException)) {
+            return null;
+        }
+        if (rateLimited) {
+            rateLimitedCount.incrementAndGet();
+        }
+        if (attempt >= properties.getMaxRetries()) {
+            log.warn("OpenAI call failed after {} retries.", attempt);
+            return null;
+        }
+
+        // Prefer the delay requested by the API, otherwise back off exponentially with jitter.
+        Duration delay = error instanceof OpenAIServiceException serviceException ? getRetryAfter(serviceException.headers()) : null;
+        if (delay == null) {
+            long backoff = Math.min(properties.getMaxBackoff().toNanos(), properties.getInitialBackoff().toNanos() << Math.min(attempt, 20));
+            delay = Duration.ofNanos(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1));
+        }
+        delay = delay.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : delay;
+
+        // Pause every caller after a 429 rather than letting them hit the same limit.
+        if (rateLimited) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + delay.toNanos());
+        }
+        retryCount.incrementAndGet();
+        log.info("Retrying OpenAI call after {} (retry {} of {}, cause: {}).", delay, attempt + 1, properties.getMaxRetries(),
+            error.getClass().getSimpleName());
+        return delay;
+    }
+
+    /**
+     * Reads the delay requested by the {@code retry-after-ms} or {@code retry-after} response header.
+     *
+     * @param headers the response headers, may be {@code null}.
+     * @return the requested delay, or {@code null} if none was requested.
+     */
+    public static Duration getRetryAfter(Headers headers) {
+        if (headers == null) {
+            return null;
+        }
+        try {
+            List<String> millis = headers.values("retry-after-ms");
+            if (!millis.isEmpty()) {
+                return Duration.ofMillis(Math.max(0, (long) Double.parseDouble(millis.get(0).trim())));
+            }
+            List<String> retryAfter = headers.values("retry-after");
+            if (!retryAfter.isEmpty()) {
+                String value = retryAfter.get(0).trim();
+                if (value.chars().allMatch(Character::isDigit)) {
+                    return Duration.ofSeconds(Long.parseLong(value));
+                }
+                Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            log.debug("Ignoring unparseable Retry-After header.", e);
+        }
+        return null;
+    }
+
+    /**
+     * Sleeps before a retry.
+     */
+    private static void sleep(Duration delay) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OpenAIThrottledException("Interrupted while waiting to retry an OpenAI call", delay);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call to the OpenAI API is not sent because the governor's limits would be exceeded
+ * for longer than the caller is allowed to wait.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public class OpenAIThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Estimated time after which the call could be sent.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Creates the exception.
+     *
+     * @param message    the detail message.
+     * @param retryAfter the estimated time after which the call could be sent.
+     */
+    public OpenAIThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Returns the estimated time after which the call could be sent.
+     *
+     * @return the time to wait before trying again.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+/**
+ * Token bucket refilled continuously at a fixed rate per minute.
+ * <p>
+ * The bucket holds at most one minute's worth of permits. Consumption may drive the balance negative,
+ * which records a debt that is repaid by later refills; this is how usage that turns out higher than
+ * estimated is accounted for. All times are {@link System#nanoTime()} readings passed in by the caller.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+final class TokenBucket {
+
+    /**
+     * Maximum number of permits the bucket holds.
+     */
+    private final double capacity;
+
+    /**
+     * Number of permits added per nanosecond.
+     */
+    private final double refillPerNano;
+
+    /**
+     * Number of permits currently available, negative while in debt.
+     */
+    private double available;
+
+    /**
+     * Time of the last refill.
+     */
+    private long lastRefill;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param permitsPerMinute the refill rate and capacity of the bucket.
+     * @param now              the current time.
+     */
+    TokenBucket(long permitsPerMinute, long now) {
+        if (permitsPerMinute <= 0) {
+            throw new IllegalArgumentException("Permits per minute must be positive: " + permitsPerMinute);
+        }
+        this.capacity = permitsPerMinute;
+        this.refillPerNano = permitsPerMinute / 60_000_000_000d;
+        this.available = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Returns how long to wait until the given number of permits is available.
+     * <p>
+     * Requests larger than the capacity wait for a full bucket, so that they are delayed but never starved.
+     * </p>
+     *
+     * @param permits the number of permits needed.
+     * @param now     the current time.
+     * @return the time to wait in nanoseconds, or {@code 0} if the permits are available now.
+     */
+    synchronized long nanosUntilAvailable(long permits, long now) {
+        refill(now);
+        double missing = Math.min(permits, capacity) - available;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano);
+    }
+
+    /**
+     * Takes permits from the bucket, going into debt if fewer are available.
+     *
+     * @param permits the number of permits to take; negative values return permits to the bucket.
+     * @param now     the current time.
+     */
+    synchronized void consume(long permits, long now) {
+        refill(now);
+        available = Math.min(capacity, available - permits);
+    }
+
+    /**
+     * Adds the permits accrued since the last refill.
+     */
+    private void refill(long now) {
+        if (now > lastRefill) {
+            available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.github.sharifrahim.chatgptintegration.demo.hedging;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.HedgingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.routing.ModelRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hedges slow ChatGPT calls by sending them a second time.
+ * <p>
+ * A hedged call that has not completed after the rolling p95 latency of its model, as tracked by the
+ * {@link ModelRouter}, is sent again. Whichever attempt succeeds first answers the call, and the other one is
+ * cancelled. An attempt that fails is ignored while the other one is still running. Cutting the slowest calls
+ * short this way trims the latency tail at the cost of a few duplicate requests.
+ * </p>
+ * <p>
+ * Hedges are paid for from a budget: every hedgeable call adds {@code chatgpt.hedging.max-hedge-rate} to it
+ * and every hedge takes one from it, so hedges never exceed that share of calls, even when the API is slow
+ * across the board. A call that is due a hedge while the budget is empty just keeps waiting for its first
+ * attempt.
+ * </p>
+ * <p>
+ * A hedge is a request of its own and must be admitted by the
+ * {@link com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor governor} like any other. It
+ * is only sent if it can be admitted at once, without waiting for rate budget or a concurrency slot, so
+ * hedging never delays other calls; otherwise the call keeps waiting for its first attempt. The following
+ * meter is published:
+ * </p>
+ * <ul>
+ * <li>{@code chatgpt.hedges} - a counter of hedge decisions, tagged with the {@code strategy} and the
+ * {@code outcome}: {@code won} or {@code lost} when a hedge was sent and did or did not answer the call, and
+ * {@code skipped} when the budget was empty or the governor had no capacity to spare.</li>
+ * </ul>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class RequestHedger {
+
+    /**
+     * Most hedges the budget may save up, so a quiet period cannot be followed by a burst of hedges.
+     */
+    static final double MAX_BUDGET = 10;
+
+    /**
+     * The hedging configuration.
+     */
+    private final HedgingProperties properties;
+
+    /**
+     * Router tracking the latency of each model.
+     */
+    private final ModelRouter modelRouter;
+
+    /**
+     * The registry the hedging meter is published to.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Hedges that may currently be sent.
+     */
+    private double budget;
+
+    /**
+     * Creates the hedger.
+     *
+     * @param properties    the hedging configuration.
+     * @param modelRouter   router tracking the latency of each model.
+     * @param meterRegistry the registry the hedging meter is published to.
+     */
+    public RequestHedger(HedgingProperties properties, ModelRouter modelRouter, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.modelRouter = modelRouter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns whether the calls of a strategy are hedged.
+     *
+     * @param strategy the strategy tag of the call.
+     * @return {@code true} if the strategy is configured for hedging.
+     */
+    public boolean isHedged(String strategy) {
+        return properties.getStrategies().contains(strategy);
+    }
+
+    /**
+     * Makes a blocking call, hedging it if its strategy is configured for hedging.
+     *
+     * @param strategy  the strategy tag of the call.
+     * @param model     the model the call is sent to.
+     * @param call      the blocking call, made when the strategy is not hedged.
+     * @param asyncCall the same call made asynchronously, the first attempt when the strategy is hedged.
+     * @param hedgeCall the same call made asynchronously if it can be admitted at once, the hedge.
+     * @param <T>       the result type of the call.
+     * @return the result of the call.
+     */
+    public <T> T execute(String strategy, String model, Supplier<T> call, Supplier<CompletableFuture<T>> asyncCall,
+        Supplier<Optional<CompletableFuture<T>>> hedgeCall) {
+        if (!isHedged(strategy)) {
+            return call.get();
+        }
+        try {
+            return hedge(strategy, model, asyncCall, hedgeCall).join();
+        } catch (CompletionException e) {
+            // Rethrow what the call threw, so that callers such as the governor see the actual error.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Makes an asynchronous call, hedging it if its strategy is configured for hedging.
+     * <p>
+     * Cancelling the returned future cancels every attempt still running.
+     * </p>
+     *
+     * @param strategy  the strategy tag of the call.
+     * @param model     the model the call is sent to.
+     * @param call      the call, the first attempt.
+     * @param hedgeCall the same call if it can be admitted at once, returning an empty result otherwise; the
+     *                  hedge.
+     * @param <T>       the result type of the call.
+     * @return a future completed with the result of the first attempt to succeed, or with the failure of the
+     *         first attempt if none succeeds.
+     */
+    public <T> CompletableFuture<T> hedge(String strategy, String model, Supplier<CompletableFuture<T>> call,
+        Supplier<Optional<CompletableFuture<T>>> hedgeCall) {
+        if (!isHedged(strategy)) {
+            return call.get();
+        }
+        deposit();
+        HedgedCall<T> hedgedCall = new HedgedCall<>(strategy, call, hedgeCall);
+        hedgedCall.start();
+        if (!hedgedCall.result.isDone()) {
+            long delayNanos = getDelay(model).toNanos();
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(hedgedCall::sendHedge);
+        }
+        return hedgedCall.result;
+    }
+
+    /**
+     * Returns how long a call to a model may run before it is hedged.
+     *
+     * @param model the model the call is sent to.
+     * @return the p95 latency of the model's recent calls, but at least the configured minimum, or the
+     *         configured delay if the model has too few recent calls.
+     */
+    public Duration getDelay(String model) {
+        return modelRouter.getP95Latency(model)
+            .map(p95 -> p95.compareTo(properties.getMinDelay()) < 0 ? properties.getMinDelay() : p95)
+            .orElse(properties.getDelay());
+    }
+
+    /**
+     * Adds a hedgeable call's share to the budget.
+     */
+    private synchronized void deposit() {
+        budget = Math.min(MAX_BUDGET, budget + properties.getMaxHedgeRate());
+    }
+
+    /**
+     * Returns a hedge that could not be sent to the budget.
+     */
+    private synchronized void refund() {
+        budget = Math.min(MAX_BUDGET, budget + 1);
+    }
+
+    /**
+     * Takes one hedge from the budget, if there is one.
+     */
+    private synchronized boolean withdraw() {
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * Counts a hedge decision.
+     */
+    private void count(String strategy, String outcome) {
+        Counter.builder("chatgpt.hedges")
+            .description("Hedged ChatGPT calls by whether the hedge answered the call")
+            .tag("strategy", strategy)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * A call and its possible hedge.
+     *
+     * @param <T> the result type of the call.
+     */
+    private final class HedgedCall<T> {
+
+        /**
+         * The strategy tag of the call.
+         */
+        private final String strategy;
+
+        /**
+         * Makes the first attempt of the call.
+         */
+        private final Supplier<CompletableFuture<T>> call;
+
+        /**
+         * Makes the hedge if it can be admitted at once.
+         */
+        private final Supplier<Optional<CompletableFuture<T>>> hedgeCall;
+
+        /**
+         * Completed by the first attempt to succeed, or by the first failure once no attempt is left.
+         */
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        /**
+         * The first attempt.
+         */
+        private CompletableFuture<T> primary;
+
+        /**
+         * The hedge, or {@code null} if it has not been sent.
+         */
+        private CompletableFuture<T> hedge;
+
+        /**
+         * Whether it has been decided whether to send the hedge.
+         */
+        private boolean hedgeDecided;
+
+        /**
+         * Whether the hedge has been sent.
+         */
+        private boolean hedgeSent;
+
+        /**
+         * Whether an attempt has succeeded.
+         */
+        private boolean answered;
+
+        /**
+         * Attempts that have been sent and have not completed.
+         */
+        private int running;
+
+        /**
+         * The failure of the first attempt, reported if no attempt succeeds.
+         */
+        private Throwable primaryError;
+
+        private HedgedCall(String strategy, Supplier<CompletableFuture<T>> call, Supplier<Optional<CompletableFuture<T>>> hedgeCall) {
+            this.strategy = strategy;
+            this.call = call;
+            this.hedgeCall = hedgeCall;
+            // Cancelling the result cancels the attempts.
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    cancelAttempts();
+                }
+            });
+        }
+
+        /**
+         * Sends the first attempt.
+         */
+        private void start() {
+            CompletableFuture<T> attempt = call.get();
+            synchronized (this) {
+                primary = attempt;
+                running++;
+            }
+            attempt.whenComplete(onComplete(attempt));
+        }
+
+        /**
+         * Sends the hedge if the call is still running, the budget allows it and the governor admits it at once.
+         */
+        private void sendHedge() {
+            synchronized (this) {
+                if (hedgeDecided || answered || result.isDone()) {
+                    return;
+                }
+                hedgeDecided = true;
+                if (!withdraw()) {
+                    log.debug("Hedge budget exhausted, not hedging a {} call.", strategy);
+                    count(strategy, "skipped");
+                    return;
+                }
+                hedgeSent = true;
+                running++;
+            }
+            log.debug("Hedging a slow {} call.", strategy);
+            Optional<CompletableFuture<T>> admitted;
+            try {
+                admitted = hedgeCall.get();
+            } catch (RuntimeException e) {
+                admitted = Optional.of(CompletableFuture.failedFuture(e));
+            }
+            if (admitted.isEmpty()) {
+                log.debug("No OpenAI capacity to spare, not hedging a {} call.", strategy);
+                refund();
+                count(strategy, "skipped");
+                withdrawHedge();
+                return;
+            }
+            CompletableFuture<T> attempt = admitted.get();
+            boolean answeredMeanwhile;
+            synchronized (this) {
+                hedge = attempt;
+                answeredMeanwhile = answered || result.isDone();
+            }
+            if (answeredMeanwhile) {
+                // The first attempt completed while the hedge was being sent.
+                attempt.cancel(true);
+            }
+            attempt.whenComplete(onComplete(attempt));
+        }
+
+        /**
+         * Forgets a hedge that could not be sent, reporting the failure of the first attempt if it failed meanwhile.
+         */
+        private void withdrawHedge() {
+            Throwable failure = null;
+            synchronized (this) {
+                hedgeSent = false;
+                running--;
+                if (!answered && running == 0 && primaryError != null) {
+                    failure = primaryError;
+                }
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause()
+                    : failure);
+            }
+        }
+
+        /**
+         * Returns the callback handling the completion of an attempt.
+         */
+        private BiConsumer<T, Throwable> onComplete(CompletableFuture<T> attempt) {
+            return (value, error) -> {
+                boolean isHedge;
+                boolean hedged;
+                Throwable failure = null;
+                synchronized (this) {
+                    running--;
+                    if (answered) {
+                        return;
+                    }
+                    isHedge = attempt != primary;
+                    hedged = hedgeSent;
+                    if (error == null) {
+                        answered = true;
+                    } else {
+                        if (!isHedge) {
+                            // A first attempt failing before the hedge is sent is not hedged, leaving retries to the caller.
+                            primaryError = error;
+                            hedgeDecided = true;
+                        }
+                        if (running == 0 && primaryError != null) {
+                            failure = primaryError;
+                        }
+                    }
+                }
+                if (error == null) {
+                    if (hedged) {
+                        count(strategy, isHedge ? "won" : "lost");
+                    }
+                    // Cancel the other attempt before answering, so the caller never sees it still running.
+                    cancelAttempts();
+                    result.complete(value);
+                } else if (failure != null) {
+                    result.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure);
+                }
+            };
+        }
+
+        /**
+         * Cancels the attempts that are still running.
+         */
+        private void cancelAttempts() {
+            CompletableFuture<T> first;
+            CompletableFuture<T> second;
+            synchronized (this) {
+                hedgeDecided = true;
+                first = primary;
+                second = hedge;
+            }
+            if (first != null) {
+                first.cancel(true);
+            }
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+}
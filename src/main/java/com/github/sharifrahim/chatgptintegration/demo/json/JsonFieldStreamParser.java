@@ -0,0 +1,180 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parses a JSON object that arrives in fragments and reports each top-level field as soon as its value is
+ * complete.
+ * <p>
+ * The fragments are fed to Jackson's non-blocking parser, so no fragment is parsed twice however the
+ * object is split. Text before the opening brace, such as a markdown code fence, is skipped, and text after
+ * the closing brace is ignored. Only scalar top-level fields are reported; nested objects and arrays are
+ * consumed without being reported. Once the object is complete, its full text is available from
+ * {@link #getJson()} for regular deserialization.
+ * </p>
+ * <p>
+ * Instances are not thread-safe and parse a single object.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class JsonFieldStreamParser {
+
+    /**
+     * Factory creating the non-blocking parsers.
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Mapper converting complete responses to their fields, shared by every caller.
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Non-blocking parser of the object.
+     */
+    private final JsonParser parser;
+
+    /**
+     * Feeder passing the fragments to the parser.
+     */
+    private final ByteArrayFeeder feeder;
+
+    /**
+     * Callback receiving the name and text value of each completed top-level field.
+     */
+    private final BiConsumer<String, String> onField;
+
+    /**
+     * The bytes fed to the parser so far.
+     */
+    private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+    /**
+     * Nesting depth of the current token, {@code 1} inside the object.
+     */
+    private int depth;
+
+    /**
+     * Whether the opening brace has been found.
+     */
+    private boolean started;
+
+    /**
+     * Length in bytes of the complete object, or {@code -1} while it is incomplete.
+     */
+    private long length = -1;
+
+    /**
+     * Creates a parser reporting completed top-level fields to the given callback.
+     *
+     * @param onField the callback receiving the name and text value of each completed field; {@code null}
+     *                values are not reported.
+     * @throws IOException if the underlying parser cannot be created.
+     */
+    public JsonFieldStreamParser(BiConsumer<String, String> onField) throws IOException {
+        this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.onField = onField;
+    }
+
+    /**
+     * Reports the top-level fields of a complete response, as a parser fed its JSON would.
+     * <p>
+     * Used when the whole response is already available, such as a cached response.
+     * </p>
+     *
+     * @param response the response.
+     * @param onField  the callback receiving the name and text value of each scalar top-level field;
+     *                 {@code null} values are not reported.
+     */
+    public static void reportFields(Object response, BiConsumer<String, String> onField) {
+        OBJECT_MAPPER.valueToTree(response).fields().forEachRemaining(field -> {
+            if (field.getValue().isValueNode() && !field.getValue().isNull()) {
+                onField.accept(field.getKey(), field.getValue().asText());
+            }
+        });
+    }
+
+    /**
+     * Feeds the next fragment of the JSON text, reporting every field completed by it.
+     *
+     * @param fragment the next fragment.
+     * @throws IOException if the text is not valid JSON.
+     */
+    public void feed(String fragment) throws IOException {
+        if (isComplete() || fragment.isEmpty()) {
+            return;
+        }
+
+        // Skip anything before the opening brace.
+        if (!started) {
+            int start = fragment.indexOf('{');
+            if (start < 0) {
+                return;
+            }
+            fragment = fragment.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = fragment.getBytes(StandardCharsets.UTF_8);
+        json.write(bytes, 0, bytes.length);
+        feeder.feedInput(bytes, 0, bytes.length);
+
+        // Consume every token that is complete so far.
+        JsonToken token;
+        while (!isComplete() && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT, START_ARRAY -> depth++;
+                case END_OBJECT, END_ARRAY -> {
+                    if (--depth == 0) {
+                        length = parser.currentTokenLocation().getByteOffset() + 1;
+                    }
+                }
+                case FIELD_NAME -> {
+                    // Field names are reported together with their value.
+                }
+                default -> {
+                    if (depth == 1) {
+                        String value = parser.getValueAsString();
+                        if (value != null) {
+                            onField.accept(parser.currentName(), value);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the closing brace of the object has been parsed.
+     *
+     * @return {@code true} if the object is complete.
+     */
+    public boolean isComplete() {
+        return length >= 0;
+    }
+
+    /**
+     * Returns the full text of the object.
+     *
+     * @return the JSON text, from the opening to the closing brace.
+     * @throws IOException if the object is not complete.
+     */
+    public String getJson() throws IOException {
+        if (!isComplete()) {
+            throw new IOException("Incomplete JSON object after " + json.size() + " bytes");
+        }
+        return new String(json.toByteArray(), 0, (int) length, StandardCharsets.UTF_8);
+    }
+}
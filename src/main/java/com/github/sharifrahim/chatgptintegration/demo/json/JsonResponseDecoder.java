@@ -0,0 +1,118 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import java.io.Reader;
+
+/**
+ * Locates the JSON object in a ChatGPT response without copying it.
+ * <p>
+ * ChatGPT may wrap the JSON it is asked for in a markdown code fence, or surround it with prose. Instead of
+ * trimming the response into new strings, the decoder scans it once to find the first {@code '{'} and its
+ * matching {@code '}'}, skipping braces inside JSON strings, and returns a {@link Reader} over that range.
+ * Jackson reads the range straight from the response into its own recycled buffer, so decoding needs
+ * constant extra memory however large the response is.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class JsonResponseDecoder {
+
+    private JsonResponseDecoder() {
+    }
+
+    /**
+     * Returns a reader over the first JSON object in a response.
+     * <p>
+     * If the object is not closed, the reader extends to the end of the response, and if there is no
+     * object at all, the reader covers the whole response, so that the parser reports what is wrong with it.
+     * </p>
+     *
+     * @param content the response content.
+     * @return a reader over the JSON object, without any surrounding text.
+     */
+    public static Reader jsonReader(String content) {
+        int start = content.indexOf('{');
+        if (start < 0) {
+            return new RangeReader(content, 0, content.length());
+        }
+        return new RangeReader(content, start, findObjectEnd(content, start));
+    }
+
+    /**
+     * Returns the end of the JSON object starting at the given index.
+     *
+     * @param content the response content.
+     * @param start the index of the opening brace.
+     * @return the index after the matching closing brace, or the length of the content if there is none.
+     */
+    static int findObjectEnd(String content, int start) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = start; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    // Skip the escaped character, which may be a quote.
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return content.length();
+    }
+
+    /**
+     * Reader over a range of a string.
+     */
+    private static final class RangeReader extends Reader {
+
+        /**
+         * The string read.
+         */
+        private final String content;
+
+        /**
+         * The index after the last character of the range.
+         */
+        private final int end;
+
+        /**
+         * The index of the next character to read.
+         */
+        private int position;
+
+        private RangeReader(String content, int start, int end) {
+            this.content = content;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position >= end) {
+                return -1;
+            }
+            int count = Math.min(length, end - position);
+            content.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int read() {
+            return position < end ? content.charAt(position++) : -1;
+        }
+
+        @Override
+        public void close() {
+            position = end;
+        }
+    }
+}
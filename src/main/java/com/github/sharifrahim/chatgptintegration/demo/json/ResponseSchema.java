@@ -0,0 +1,64 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * The precomputed JSON format of a ChatGPT response type.
+ * <p>
+ * Holds everything a request needs that depends only on the response type: the example JSON describing
+ * the format, the system message instructing ChatGPT to respond in it, and a warmed-up reader that
+ * deserializes responses into the type. Instances are immutable and shared by every request for the type.
+ * </p>
+ *
+ * @param responseType  the class type of the response.
+ * @param example       the JSON tree of an empty instance of the response type; callers must not modify it.
+ * @param exampleJson   the example as JSON text.
+ * @param systemMessage the system message asking ChatGPT to respond in the example's format.
+ * @param reader        the reader deserializing responses into the response type.
+ * @param <T>           the type of the response.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public record ResponseSchema<T>(Class<T> responseType, JsonNode example, String exampleJson, String systemMessage,
+    ObjectReader reader) {
+
+    /**
+     * Returns the system message asking ChatGPT to respond in the format of the given example.
+     *
+     * @param exampleJson an example of the JSON the response must follow.
+     * @return the system message.
+     */
+    public static String systemMessageFor(String exampleJson) {
+        return "Response in this json format : " + exampleJson + ". Only output JSON.";
+    }
+
+    /**
+     * Deserializes a response into the response type.
+     * <p>
+     * The JSON object is read in place by the {@link JsonResponseDecoder}, ignoring any code fence or prose
+     * around it.
+     * </p>
+     *
+     * @param content the response content.
+     * @return the deserialized response.
+     * @throws IOException if the content holds no valid JSON of the response type.
+     */
+    public T read(String content) throws IOException {
+        return reader.readValue(JsonResponseDecoder.jsonReader(content));
+    }
+
+    /**
+     * Deserializes a JSON tree into the response type.
+     *
+     * @param json the JSON tree.
+     * @return the deserialized response.
+     * @throws IOException if the tree does not match the response type.
+     */
+    public T read(JsonNode json) throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of the {@link ResponseSchema} of every ChatGPT response type.
+ * <p>
+ * The schema of a type is computed once, on first use or at startup for the types listed in
+ * {@code chatgpt.schema.preload}: an empty instance is created and serialized to describe the expected
+ * JSON format, and the reader for the type is warmed up by deserializing that example, so that Jackson
+ * builds its deserializer before the first real response arrives. All schemas share a single
+ * {@link ObjectMapper}.
+ * </p>
+ * <p>
+ * The format is described by example rather than by an OpenAI structured-output JSON schema, since the
+ * configured model does not support structured outputs.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class ResponseSchemaRegistry {
+
+    /**
+     * Mapper shared by every schema.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Schemas computed so far, by response type.
+     */
+    private final ConcurrentMap<Class<?>, ResponseSchema<?>> schemas = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the registry and computes the schemas of the given response types.
+     *
+     * @param preload the response types whose schemas are computed at startup.
+     */
+    public ResponseSchemaRegistry(@Value("${chatgpt.schema.preload:}") List<Class<?>> preload) {
+        preload.forEach(this::get);
+        log.info("ResponseSchemaRegistry created with {} preloaded schemas.", schemas.size());
+    }
+
+    /**
+     * Returns the schema of a response type, computing it on first use.
+     *
+     * @param responseType the class type of the response.
+     * @param <T>          the type of the response.
+     * @return the schema of the response type.
+     * @throws IllegalArgumentException if the response type cannot be instantiated or serialized.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseSchema<T> get(Class<T> responseType) {
+        return (ResponseSchema<T>) schemas.computeIfAbsent(responseType, this::createSchema);
+    }
+
+    /**
+     * Returns the mapper shared by every schema.
+     *
+     * @return the shared mapper; callers must not reconfigure it.
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Computes the schema of a response type.
+     */
+    private <T> ResponseSchema<T> createSchema(Class<T> responseType) {
+        try {
+            // Describe the expected format with an empty instance of the response type.
+            T instance = responseType.getDeclaredConstructor().newInstance();
+            JsonNode example = objectMapper.valueToTree(instance);
+            String exampleJson = objectMapper.writeValueAsString(example);
+
+            // Warm up the reader so the deserializer is built before the first response.
+            ObjectReader reader = objectMapper.readerFor(responseType);
+            reader.readValue(exampleJson);
+
+            log.info("Computed response schema for type: {}", responseType.getSimpleName());
+            return new ResponseSchema<>(responseType, example, exampleJson, ResponseSchema.systemMessageFor(exampleJson), reader);
+        } catch (ReflectiveOperationException | IOException e) {
+            throw new IllegalArgumentException("Cannot describe response type " + responseType.getName(), e);
+        }
+    }
+}
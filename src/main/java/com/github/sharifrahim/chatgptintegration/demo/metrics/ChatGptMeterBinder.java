@@ -0,0 +1,132 @@
+package com.github.sharifrahim.chatgptintegration.demo.metrics;
+
+import java.util.function.ToLongFunction;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseCache;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseStore;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitBreaker;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes the internal counters of the ChatGPT pipeline as Micrometer meters.
+ * <p>
+ * Covers the response cache ({@code chatgpt.cache.*}), the persistent store ({@code chatgpt.store.size}),
+ * request coalescing ({@code chatgpt.coalesced}), stale responses ({@code chatgpt.stale.served}), the OpenAI
+ * governor ({@code openai.governor.*}), the circuit breaker ({@code openai.circuit.breaker.*}) and the
+ * OpenAI calls in flight ({@code openai.calls.in-flight*}).
+ * The values are read from the components when the registry is scraped.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@RequiredArgsConstructor
+@Component
+public class ChatGptMeterBinder implements MeterBinder {
+
+    /**
+     * Cache of deserialized responses.
+     */
+    private final ChatResponseCache responseCache;
+
+    /**
+     * Persistent store of responses.
+     */
+    private final ChatResponseStore responseStore;
+
+    /**
+     * Service coalescing identical requests.
+     */
+    private final ChatGptServiceImpl chatGptService;
+
+    /**
+     * Governor limiting calls to the OpenAI API.
+     */
+    private final OpenAIGovernor governor;
+
+    /**
+     * Circuit breaker around calls to the OpenAI API.
+     */
+    private final OpenAICircuitBreaker circuitBreaker;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Response cache
+        Gauge.builder("chatgpt.cache.size", responseCache, ChatResponseCache::size)
+            .description("Responses held in the in-memory cache")
+            .register(registry);
+        cacheCounter(registry, "chatgpt.cache.requests", "hit", "Cache lookups that found a response", CacheStats::hitCount);
+        cacheCounter(registry, "chatgpt.cache.requests", "miss", "Cache lookups that found no response", CacheStats::missCount);
+        cacheCounter(registry, "chatgpt.cache.evictions", null, "Responses evicted from the cache", CacheStats::evictionCount);
+
+        // Persistent store
+        Gauge.builder("chatgpt.store.size", responseStore, ChatResponseStore::size)
+            .description("Responses held in the persistent store")
+            .register(registry);
+
+        // Request coalescing
+        FunctionCounter.builder("chatgpt.coalesced", chatGptService, ChatGptServiceImpl::getCoalescedRequestCount)
+            .description("Requests served by an identical request already in flight")
+            .register(registry);
+        FunctionCounter.builder("chatgpt.stale.served", chatGptService, ChatGptServiceImpl::getStaleResponseCount)
+            .description("Requests answered with a stale response while the circuit breaker was not closed")
+            .register(registry);
+
+        // Governor
+        FunctionCounter.builder("openai.governor.throttled", governor, OpenAIGovernor::getThrottledCount)
+            .description("Calls rejected because they could not be admitted in time")
+            .register(registry);
+        FunctionCounter.builder("openai.governor.retries", governor, OpenAIGovernor::getRetryCount)
+            .description("Calls retried after a transient failure")
+            .register(registry);
+        FunctionCounter.builder("openai.governor.rate.limited", governor, OpenAIGovernor::getRateLimitedCount)
+            .description("Calls rejected by the API with 429 Too Many Requests")
+            .register(registry);
+        Gauge.builder("openai.governor.admission.queued", governor, OpenAIGovernor::getQueuedAdmissionCount)
+            .description("Asynchronous calls queued for an admission thread")
+            .register(registry);
+
+        // Circuit breaker, one gauge per state set to 1 for the current state
+        for (OpenAICircuitBreaker.State state : OpenAICircuitBreaker.State.values()) {
+            Gauge.builder("openai.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                .description("Whether the OpenAI circuit breaker is in the given state")
+                .tag("state", state.name().toLowerCase())
+                .register(registry);
+        }
+        FunctionCounter.builder("openai.circuit.breaker.rejected", circuitBreaker, OpenAICircuitBreaker::getRejectedCount)
+            .description("Calls rejected because the circuit breaker was open")
+            .register(registry);
+
+        // Calls in flight, as admitted by the governor; the client's connection pool cannot be inspected
+        Gauge.builder("openai.calls.in-flight", governor, OpenAIGovernor::getActiveCallCount)
+            .description("OpenAI calls admitted by the governor that have not completed")
+            .register(registry);
+        Gauge.builder("openai.calls.in-flight.max", governor, OpenAIGovernor::getMaxConcurrentCalls)
+            .description("Maximum number of OpenAI calls in flight at once")
+            .register(registry);
+    }
+
+    /**
+     * Registers a counter reading a statistic of the response cache.
+     */
+    private void cacheCounter(MeterRegistry registry, String name, String result, String description,
+        ToLongFunction<CacheStats> statistic) {
+        FunctionCounter.Builder<ChatResponseCache> builder = FunctionCounter
+            .builder(name, responseCache, cache -> statistic.applyAsLong(cache.stats()))
+            .description(description);
+        if (result != null) {
+            builder.tag("result", result);
+        }
+        builder.register(registry);
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.sharifrahim.chatgptintegration.demo.metrics;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.openai.models.ChatCompletion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Records Micrometer metrics for every call to the ChatGPT API.
+ * <p>
+ * The following meters are published, all tagged with the {@code strategy} that issued the call and the
+ * {@code model} it was sent to:
+ * </p>
+ * <ul>
+ * <li>{@code chatgpt.requests} - a timer with a percentile histogram of call latency, additionally tagged
+ * with the {@code outcome} and, on failure, the {@code exception} type.</li>
+ * <li>{@code chatgpt.tokens} - counters of prompt and completion tokens, tagged by {@code type}, taken
+ * from the usage reported in each completion.</li>
+ * <li>{@code chatgpt.parse.failures} - a counter of responses that could not be parsed as the expected
+ * JSON.</li>
+ * <li>{@code chatgpt.stream.first.field} - a timer of the time from sending a streaming call until its first
+ * complete JSON field arrives.</li>
+ * </ul>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@RequiredArgsConstructor
+@Component
+public class ChatGptMetrics {
+
+    /**
+     * Strategy tag of calls made with a raw user message rather than a {@code MessageStrategy}.
+     */
+    public static final String DIRECT = "direct";
+
+    /**
+     * Strategy tag of composite calls answering several strategies at once.
+     */
+    public static final String COMPOSITE = "composite";
+
+    /**
+     * The registry the meters are published to.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Times a blocking call and records its token usage if the call returns a {@link ChatCompletion}.
+     *
+     * @param strategy the strategy tag of the call.
+     * @param model    the model the call is sent to.
+     * @param call     the call.
+     * @param <T>      the result type of the call.
+     * @return the result of the call.
+     */
+    public <T> T timeCall(String strategy, String model, Supplier<T> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        T completion;
+        try {
+            completion = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(strategy, model, e));
+            throw e;
+        }
+        sample.stop(timer(strategy, model, null));
+        if (completion instanceof ChatCompletion chatCompletion) {
+            recordUsage(strategy, model, chatCompletion);
+        }
+        return completion;
+    }
+
+    /**
+     * Times an asynchronous call and records its token usage once it completes.
+     * <p>
+     * Cancelling the returned future cancels the call.
+     * </p>
+     *
+     * @param strategy the strategy tag of the call.
+     * @param model    the model the call is sent to.
+     * @param call     the call.
+     * @return the future returned by the call.
+     */
+    public CompletableFuture<ChatCompletion> timeCallAsync(String strategy, String model, Supplier<CompletableFuture<ChatCompletion>> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<ChatCompletion> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            sample.stop(timer(strategy, model, e));
+            throw e;
+        }
+        CompletableFuture<ChatCompletion> timed = future.whenComplete((completion, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            sample.stop(timer(strategy, model, cause));
+            if (completion != null) {
+                recordUsage(strategy, model, completion);
+            }
+        });
+        timed.whenComplete((completion, error) -> {
+            if (error instanceof CancellationException) {
+                future.cancel(true);
+            }
+        });
+        return timed;
+    }
+
+    /**
+     * Records the time until the first complete JSON field of a streaming call arrived.
+     *
+     * @param strategy the strategy tag of the call.
+     * @param model    the model the call was sent to.
+     * @param nanos    the time since the call was sent, in nanoseconds.
+     */
+    public void recordFirstField(String strategy, String model, long nanos) {
+        Timer.builder("chatgpt.stream.first.field")
+            .description("Time from sending a streaming ChatGPT call until its first complete field arrives")
+            .tag("strategy", strategy)
+            .tag("model", model)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a response that could not be parsed as the expected JSON.
+     *
+     * @param strategy the strategy tag of the call.
+     * @param model    the model the call was sent to.
+     */
+    public void recordParseFailure(String strategy, String model) {
+        Counter.builder("chatgpt.parse.failures")
+            .description("ChatGPT responses that could not be parsed as the expected JSON")
+            .tag("strategy", strategy)
+            .tag("model", model)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * Adds the token usage reported in a completion to the token counters.
+     */
+    private void recordUsage(String strategy, String model, ChatCompletion completion) {
+        completion.usage().ifPresent(usage -> {
+            tokens(strategy, model, "prompt").increment(usage.promptTokens());
+            tokens(strategy, model, "completion").increment(usage.completionTokens());
+        });
+    }
+
+    /**
+     * Returns the latency timer for calls with the given tags.
+     */
+    private Timer timer(String strategy, String model, Throwable error) {
+        return Timer.builder("chatgpt.requests")
+            .description("Latency of ChatGPT API calls")
+            .tag("strategy", strategy)
+            .tag("model", model)
+            .tag("outcome", error == null ? "success" : "error")
+            .tag("exception", error == null ? "none" : error.getClass().getSimpleName())
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the token counter for the given tags.
+     */
+    private Counter tokens(String strategy, String model, String type) {
+        return Counter.builder("chatgpt.tokens")
+            .description("Tokens consumed by ChatGPT API calls")
+            .baseUnit("tokens")
+            .tag("strategy", strategy)
+            .tag("model", model)
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.sharifrahim.chatgptintegration.demo.routing;
+
+import java.util.Arrays;
+
+/**
+ * Rolling window of the most recent calls to one model.
+ * <p>
+ * Keeps the time, latency and outcome of a bounded number of calls in a ring buffer, and summarises the
+ * calls younger than a given age. Instances are thread-safe.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+final class LatencyWindow {
+
+    /**
+     * Time each call completed, from {@link System#nanoTime()}.
+     */
+    private final long[] times;
+
+    /**
+     * Latency of each call, in nanoseconds.
+     */
+    private final long[] latencies;
+
+    /**
+     * Whether each call succeeded.
+     */
+    private final boolean[] successes;
+
+    /**
+     * Number of calls recorded so far, the next slot being {@code count % capacity}.
+     */
+    private long count;
+
+    /**
+     * Creates a window of the given number of calls.
+     *
+     * @param capacity the maximum number of calls kept.
+     */
+    LatencyWindow(int capacity) {
+        this.times = new long[capacity];
+        this.latencies = new long[capacity];
+        this.successes = new boolean[capacity];
+    }
+
+    /**
+     * Records a call, replacing the oldest one if the window is full.
+     *
+     * @param now          the time the call completed.
+     * @param latencyNanos the latency of the call.
+     * @param success      whether the call succeeded.
+     */
+    synchronized void record(long now, long latencyNanos, boolean success) {
+        int slot = (int) (count++ % times.length);
+        times[slot] = now;
+        latencies[slot] = latencyNanos;
+        successes[slot] = success;
+    }
+
+    /**
+     * Summarises the calls that completed within the given age.
+     *
+     * @param now         the current time.
+     * @param maxAgeNanos the age after which calls are ignored.
+     * @return the summary of the recent calls.
+     */
+    synchronized Stats stats(long now, long maxAgeNanos) {
+        int size = (int) Math.min(count, times.length);
+        long[] successful = new long[size];
+        int samples = 0;
+        int succeeded = 0;
+        for (int i = 0; i < size; i++) {
+            if (now - times[i] <= maxAgeNanos) {
+                samples++;
+                if (successes[i]) {
+                    successful[succeeded++] = latencies[i];
+                }
+            }
+        }
+        if (samples == 0) {
+            return new Stats(0, 0, 0);
+        }
+        Arrays.sort(successful, 0, succeeded);
+        long p95 = succeeded == 0 ? 0 : successful[(int) Math.ceil(succeeded * 0.95) - 1];
+        return new Stats(samples, p95, (double) (samples - succeeded) / samples);
+    }
+
+    /**
+     * Summary of the recent calls to a model.
+     *
+     * @param samples   the number of recent calls.
+     * @param p95Nanos  the 95th percentile latency of the successful calls, or {@code 0} if there are none.
+     * @param errorRate the share of the calls that failed.
+     */
+    record Stats(int samples, long p95Nanos, double errorRate) {
+    }
+}
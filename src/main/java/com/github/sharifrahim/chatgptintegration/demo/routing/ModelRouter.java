@@ -0,0 +1,246 @@
+package com.github.sharifrahim.chatgptintegration.demo.routing;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.ModelRoutingProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Chooses the model each ChatGPT call is sent to.
+ * <p>
+ * Every strategy has an ordered list of models, taken from {@code chatgpt.routing.models}, from the strategy
+ * itself, or from {@code chatgpt.routing.default-models}, in that order. A call goes to the first model of
+ * the list that is healthy, meaning that the p95 latency and error rate of its calls within the rolling
+ * window are within the configured limits, or that it has too few recent calls to tell. If every model is
+ * degraded, the call goes to the one with the lowest p95 latency. Calls leave the window once they are older
+ * than {@code chatgpt.routing.window-duration}, so a degraded model is tried again after a while.
+ * </p>
+ * <p>
+ * The following meters are published:
+ * </p>
+ * <ul>
+ * <li>{@code chatgpt.routing.decisions} - a counter of routed calls, tagged with the {@code strategy}, the
+ * chosen {@code model} and the {@code reason}: {@code preferred}, {@code fallback} or {@code degraded}.</li>
+ * <li>{@code chatgpt.routing.latency.p95} and {@code chatgpt.routing.error.rate} - gauges of the rolling
+ * window of each {@code model}.</li>
+ * </ul>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+
+    /**
+     * The routing configuration.
+     */
+    private final ModelRoutingProperties properties;
+
+    /**
+     * The registry the routing meters are published to.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Rolling window of the recent calls of each model.
+     */
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the router.
+     *
+     * @param properties    the routing configuration.
+     * @param meterRegistry the registry the routing meters are published to.
+     */
+    public ModelRouter(ModelRoutingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Returns the models a strategy may be routed to, its first choice first.
+     *
+     * @param strategy the strategy tag of the call.
+     * @param declared the models declared by the strategy, possibly empty.
+     * @return the configured models of the strategy, or else the declared ones, or else the default ones.
+     */
+    public List<String> getModels(String strategy, List<String> declared) {
+        List<String> configured = properties.getModels().get(strategy);
+        if (configured != null && !configured.isEmpty()) {
+            return configured;
+        }
+        return declared.isEmpty() ? properties.getDefaultModels() : declared;
+    }
+
+    /**
+     * Chooses the model of a call.
+     *
+     * @param strategy the strategy tag of the call.
+     * @param models   the models the strategy may be routed to, its first choice first.
+     * @return the chosen model.
+     */
+    public String route(String strategy, List<String> models) {
+        // Take the first healthy model, keeping the least degraded one in case none is healthy.
+        long now = System.nanoTime();
+        String fastest = models.get(0);
+        long fastestP95 = Long.MAX_VALUE;
+        for (int i = 0; i < models.size(); i++) {
+            String model = models.get(i);
+            LatencyWindow.Stats stats = window(model).stats(now, properties.getWindowDuration().toNanos());
+            if (isHealthy(stats)) {
+                if (i > 0) {
+                    log.debug("Routing {} to fallback model {}.", strategy, model);
+                }
+                return decide(strategy, model, i == 0 ? "preferred" : "fallback");
+            }
+            // A model whose recent calls all failed ranks last.
+            long p95 = stats.errorRate() < 1 ? stats.p95Nanos() : Long.MAX_VALUE;
+            if (p95 < fastestP95) {
+                fastest = model;
+                fastestP95 = p95;
+            }
+        }
+        log.warn("Every model of {} is degraded, routing to {}.", strategy, fastest);
+        return decide(strategy, fastest, "degraded");
+    }
+
+    /**
+     * Records the latency and outcome of a blocking call in the window of its model.
+     *
+     * @param model the model the call is sent to.
+     * @param call  the call.
+     * @param <T>   the result type of the call.
+     * @return the result of the call.
+     */
+    public <T> T observe(String model, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            record(model, System.nanoTime() - start, true);
+            return result;
+        } catch (RuntimeException e) {
+            record(model, System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Records the latency and outcome of an asynchronous call in the window of its model once it completes.
+     * <p>
+     * Cancelling the returned future cancels the call, which is then not recorded.
+     * </p>
+     *
+     * @param model the model the call is sent to.
+     * @param call  the call.
+     * @param <T>   the result type of the call.
+     * @return the future returned by the call.
+     */
+    public <T> CompletableFuture<T> observeAsync(String model, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            record(model, System.nanoTime() - start, false);
+            throw e;
+        }
+        CompletableFuture<T> observed = future.whenComplete((result, error) -> {
+            if (!(error instanceof CancellationException)) {
+                record(model, System.nanoTime() - start, error == null);
+            }
+        });
+        observed.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                future.cancel(true);
+            }
+        });
+        return observed;
+    }
+
+    /**
+     * Returns the p95 latency of a model's recent successful calls.
+     *
+     * @param model the model.
+     * @return the p95 latency, or empty if the model has fewer recent calls than the configured minimum.
+     */
+    public Optional<Duration> getP95Latency(String model) {
+        LatencyWindow.Stats stats = stats(window(model));
+        if (stats.samples() < properties.getMinSamples() || stats.errorRate() >= 1) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(stats.p95Nanos()));
+    }
+
+    /**
+     * Records a call in the window of its model.
+     *
+     * @param model        the model the call was sent to.
+     * @param latencyNanos the latency of the call.
+     * @param success      whether the call succeeded.
+     */
+    public void record(String model, long latencyNanos, boolean success) {
+        window(model).record(System.nanoTime(), latencyNanos, success);
+    }
+
+    /**
+     * Returns whether a model's recent calls are within the configured limits.
+     */
+    private boolean isHealthy(LatencyWindow.Stats stats) {
+        return stats.samples() < properties.getMinSamples()
+            || (stats.p95Nanos() <= properties.getMaxP95Latency().toNanos() && stats.errorRate() <= properties.getMaxErrorRate());
+    }
+
+    /**
+     * Counts a routing decision and returns the chosen model.
+     */
+    private String decide(String strategy, String model, String reason) {
+        Counter.builder("chatgpt.routing.decisions")
+            .description("ChatGPT calls routed to each model")
+            .tag("strategy", strategy)
+            .tag("model", model)
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+        return model;
+    }
+
+    /**
+     * Returns the window of a model, creating it and its gauges on first use.
+     */
+    private LatencyWindow window(String model) {
+        return windows.computeIfAbsent(model, m -> {
+            LatencyWindow window = new LatencyWindow(properties.getWindowSize());
+            Gauge.builder("chatgpt.routing.latency.p95", window, w -> stats(w).p95Nanos() / 1e9)
+                .description("p95 latency of the recent successful calls to the model")
+                .baseUnit("seconds")
+                .tag("model", m)
+                .register(meterRegistry);
+            Gauge.builder("chatgpt.routing.error.rate", window, w -> stats(w).errorRate())
+                .description("Share of the recent calls to the model that failed")
+                .tag("model", m)
+                .register(meterRegistry);
+            return window;
+        });
+    }
+
+    /**
+     * Summarises the calls of a window that are within the rolling window duration.
+     */
+    private LatencyWindow.Stats stats(LatencyWindow window) {
+        return window.stats(System.nanoTime(), properties.getWindowDuration().toNanos());
+    }
+}
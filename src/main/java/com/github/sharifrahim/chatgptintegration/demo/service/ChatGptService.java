@@ -1,5 +1,13 @@
 package com.github.sharifrahim.chatgptintegration.demo.service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.CompositeResponse;
+import com.github.sharifrahim.chatgptintegration.demo.json.JsonFieldStreamParser;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
+
 /**
  * Service interface for interacting with ChatGPT.
  * <p>
@@ -8,7 +16,21 @@ package com.github.sharifrahim.chatgptintegration.demo.service;
  * should handle the communication with the ChatGPT API and return a response
  * matching the provided type.
  * </p>
- * 
+ * <p>
+ * Non-blocking variants return a {@link CompletableFuture}, allowing callers to
+ * issue several requests in parallel and wait only for the slowest one.
+ * </p>
+ * <p>
+ * Several strategies can also be answered together with
+ * {@link #getResponsesAsync(List)}, which implementations may merge into a
+ * single ChatGPT request.
+ * </p>
+ * <p>
+ * {@link #streamResponse(MessageStrategy, BiConsumer)} reports the fields of a
+ * response one by one as they become available, for callers that display them
+ * progressively.
+ * </p>
+ *
  * @author sharif
  * @see <a href=
  *      "https://github.com/sharifrahim">https://github.com/sharifrahim</a>
@@ -27,4 +49,106 @@ public interface ChatGptService {
 	 *                   parsing.
 	 */
 	public <T> T getResponse(String userMessage, Class<T> responseType) throws Exception;
+
+	/**
+	 * Sends a user message to ChatGPT without blocking the calling thread.
+	 *
+	 * @param userMessage  the message to be sent to ChatGPT.
+	 * @param responseType the class type of the expected response.
+	 * @param <T>          the type of the response.
+	 * @return a future completed with the response from ChatGPT, or completed
+	 *         exceptionally if the communication or response parsing fails.
+	 */
+	public <T> CompletableFuture<T> getResponseAsync(String userMessage, Class<T> responseType);
+
+	/**
+	 * Sends the user message of the given strategy to ChatGPT and retrieves a
+	 * response of the strategy's response type.
+	 *
+	 * @param strategy the strategy providing the user message and response type.
+	 * @param <T>      the type of the response.
+	 * @return a response from ChatGPT of type {@code T}.
+	 * @throws Exception if an error occurs during the communication or response
+	 *                   parsing.
+	 */
+	public default <T> T getResponse(MessageStrategy<T> strategy) throws Exception {
+		return getResponse(strategy.getUserMessage(), strategy.getResponseClass());
+	}
+
+	/**
+	 * Sends the user message of the given strategy to ChatGPT without blocking the
+	 * calling thread.
+	 *
+	 * @param strategy the strategy providing the user message and response type.
+	 * @param <T>      the type of the response.
+	 * @return a future completed with the response from ChatGPT.
+	 */
+	public default <T> CompletableFuture<T> getResponseAsync(MessageStrategy<T> strategy) {
+		return getResponseAsync(strategy.getUserMessage(), strategy.getResponseClass());
+	}
+
+	/**
+	 * Sends the user message of the given strategy to ChatGPT and reports each
+	 * top-level field of the response as soon as it is available.
+	 * <p>
+	 * The default implementation waits for the whole response and then reports
+	 * every non-null scalar field.
+	 * </p>
+	 *
+	 * @param strategy the strategy providing the user message and response type.
+	 * @param onField  the callback receiving the name and text value of each
+	 *                 field.
+	 * @param <T>      the type of the response.
+	 * @return the complete response from ChatGPT of type {@code T}.
+	 * @throws Exception if an error occurs during the communication or response
+	 *                   parsing.
+	 */
+	public default <T> T streamResponse(MessageStrategy<T> strategy, BiConsumer<String, String> onField) throws Exception {
+		T response = getResponse(strategy);
+		JsonFieldStreamParser.reportFields(response, onField);
+		return response;
+	}
+
+	/**
+	 * Sends the user messages of several strategies to ChatGPT without blocking
+	 * the calling thread.
+	 * <p>
+	 * The default implementation sends one request per strategy in parallel.
+	 * </p>
+	 *
+	 * @param strategies the strategies providing the user messages and response
+	 *                   types.
+	 * @return a future completed with the response to every strategy, or
+	 *         completed exceptionally if any request fails.
+	 */
+	public default CompletableFuture<CompositeResponse> getResponsesAsync(List<? extends MessageStrategy<?>> strategies) {
+		CompositeResponse response = new CompositeResponse();
+		CompletableFuture<?>[] futures = strategies.stream()
+			.map(strategy -> getResponseInto(strategy, response))
+			.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(futures).thenApply(done -> response);
+	}
+
+	/**
+	 * Indicates whether a fresh response to the given strategy is available
+	 * without contacting ChatGPT.
+	 * <p>
+	 * The default implementation keeps no responses and always returns
+	 * {@code false}.
+	 * </p>
+	 *
+	 * @param strategy the strategy providing the user message and response type.
+	 * @return {@code true} if the strategy would be answered from a cache.
+	 */
+	public default boolean isCached(MessageStrategy<?> strategy) {
+		return false;
+	}
+
+	/**
+	 * Sends the user message of a strategy and stores the response in a
+	 * composite response.
+	 */
+	private <T> CompletableFuture<Void> getResponseInto(MessageStrategy<T> strategy, CompositeResponse response) {
+		return getResponseAsync(strategy).thenAccept(result -> response.put(strategy, result));
+	}
 }
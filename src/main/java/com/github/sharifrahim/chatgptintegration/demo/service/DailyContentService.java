@@ -0,0 +1,177 @@
+package com.github.sharifrahim.chatgptintegration.demo.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.HadithOfTheDayStrategy;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.QuranOfTheDay;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service holding the precomputed Hadith and Quran of the day.
+ * <p>
+ * The content is generated once per Hijri day in the background, using {@link HadithOfTheDayStrategy}
+ * and {@link QuranOfTheDay} answered in a single composite request, and published with an atomic swap. Readers never wait for ChatGPT and
+ * every user sees the same content for the day. If generating the content for a new day fails, the
+ * previous day's content keeps being served until a later refresh succeeds.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class DailyContentService {
+
+    /**
+     * Service for interacting with ChatGPT to generate the daily content.
+     */
+    private final ChatGptService chatGptService;
+
+    /**
+     * Converter determining the current Hijri day in the configured calendar.
+     */
+    private final HijriCalendarConverter calendarConverter;
+
+    /**
+     * The content currently served to readers.
+     */
+    private final AtomicReference<DailyContentDTO> current = new AtomicReference<>();
+
+    /**
+     * The refresh currently in progress, if any.
+     */
+    private final AtomicReference<CompletableFuture<DailyContentDTO>> inProgress = new AtomicReference<>();
+
+    /**
+     * Returns the current daily content.
+     *
+     * @return the latest generated content, which may belong to a previous day if today's content could not
+     *         be generated yet, or {@code null} if no content has been generated since startup.
+     */
+    public DailyContentDTO getDailyContent() {
+        return current.get();
+    }
+
+    /**
+     * Returns the daily content once it is available.
+     * <p>
+     * If no content has been generated since startup, joins the refresh in progress. A refresh is never
+     * started here, so readers cannot trigger ChatGPT calls; refreshes are left to startup, the schedule and
+     * explicit requests.
+     * </p>
+     *
+     * @return a future completed with the current content, or with the content of the refresh in progress, or
+     *         completed exceptionally if that refresh failed or no refresh is in progress.
+     */
+    public CompletableFuture<DailyContentDTO> awaitDailyContent() {
+        DailyContentDTO content = current.get();
+        if (content != null) {
+            return CompletableFuture.completedFuture(content);
+        }
+        CompletableFuture<DailyContentDTO> refresh = inProgress.get();
+        if (refresh != null) {
+            return refresh;
+        }
+        // The refresh may have published its content since the first check
+        content = current.get();
+        return content != null ? CompletableFuture.completedFuture(content)
+            : CompletableFuture.failedFuture(new IllegalStateException("No daily content refresh in progress"));
+    }
+
+    /**
+     * Generates the content for the current Hijri day when the application starts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        log.info("Generating daily content at startup.");
+        refresh();
+    }
+
+    /**
+     * Regenerates the content if the Hijri day has changed since it was last generated.
+     * <p>
+     * Runs on the schedule configured by {@code chatgpt.daily-content.refresh-cron}. Because the check is
+     * cheap, running it frequently bounds how long after the start of a new day the old content is served,
+     * and retries failed refreshes.
+     * </p>
+     */
+    @Scheduled(cron = "${chatgpt.daily-content.refresh-cron:0 */5 * * * *}")
+    public void refreshIfStale() {
+        DailyContentDTO content = current.get();
+        if (content == null || !content.getHijriDate().equals(today())) {
+            log.info("Daily content is missing or stale, refreshing.");
+            refresh().exceptionally(e -> null).join();
+        }
+    }
+
+    /**
+     * Generates new content for the current Hijri day and publishes it.
+     * <p>
+     * The Hadith and Quran are requested together in one composite request. Concurrent callers share the refresh already in
+     * progress. On failure the previously published content is kept.
+     * </p>
+     *
+     * @return a future completed with the newly published content, or completed exceptionally if generation
+     *         failed.
+     */
+    public CompletableFuture<DailyContentDTO> refresh() {
+        CompletableFuture<DailyContentDTO> refresh = new CompletableFuture<>();
+        CompletableFuture<DailyContentDTO> existing = inProgress.compareAndExchange(null, refresh);
+        if (existing != null) {
+            log.info("Daily content refresh already in progress.");
+            return existing;
+        }
+
+        String hijriDate = today();
+        try {
+            HadithOfTheDayStrategy hadithStrategy = new HadithOfTheDayStrategy();
+            QuranOfTheDay quranStrategy = new QuranOfTheDay();
+            chatGptService.getResponsesAsync(List.of(hadithStrategy, quranStrategy))
+                .thenApply(responses -> new DailyContentDTO(hijriDate, responses.get(hadithStrategy), responses.get(quranStrategy), Instant.now()))
+                .whenComplete((content, error) -> complete(refresh, content, error));
+        } catch (RuntimeException e) {
+            complete(refresh, null, e);
+        }
+        return refresh;
+    }
+
+    /**
+     * Returns the current Hijri date in the configured calendar.
+     */
+    private String today() {
+        return HijriCalendarConverter.format(calendarConverter.toHijri(LocalDate.now()));
+    }
+
+    /**
+     * Publishes the outcome of a refresh and releases it so that the next refresh can start.
+     */
+    private void complete(CompletableFuture<DailyContentDTO> refresh, DailyContentDTO content, Throwable error) {
+        if (error != null) {
+            inProgress.set(null);
+            DailyContentDTO previous = current.get();
+            log.warn("Failed to generate daily content, keeping content from {}.",
+                previous != null ? previous.getHijriDate() : "none", error);
+            refresh.completeExceptionally(error);
+            return;
+        }
+        // Publish before releasing, so that a reader who no longer sees the refresh sees its content
+        current.set(content);
+        inProgress.set(null);
+        log.info("Published daily content for {}.", content.getHijriDate());
+        refresh.complete(content);
+    }
+}
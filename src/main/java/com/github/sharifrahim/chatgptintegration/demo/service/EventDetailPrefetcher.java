@@ -0,0 +1,239 @@
+package com.github.sharifrahim.chatgptintegration.demo.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.github.sharifrahim.chatgptintegration.demo.catalog.EventDetailCatalog;
+import com.github.sharifrahim.chatgptintegration.demo.config.TimelinePrefetchProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prefetches the details of upcoming timeline events into the response cache.
+ * <p>
+ * The timeline page requests an event's details only when the user opens it, so each click would otherwise
+ * wait for ChatGPT. Whenever the timeline is served, the next {@code timeline.prefetch.events} events from
+ * today on, by Gregorian date, are requested in the background through the {@link ChatGptService}, whose cache
+ * then answers the click. Events whose details are already cached or catalogued, or already waiting to be
+ * prefetched, are skipped.
+ * </p>
+ * <p>
+ * Prefetches run on a small pool of threads fed from a priority queue, so the soonest events are fetched
+ * first whichever timeline request queued them. The queue is bounded by {@code timeline.prefetch.queue-capacity}
+ * and prefetches beyond it are dropped, since they are only speculative. Each decision is counted in
+ * {@code timeline.prefetch}, tagged with its {@code outcome}: {@code queued}, {@code fresh}, {@code dropped},
+ * {@code loaded} or {@code failed}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+@Component
+public class EventDetailPrefetcher {
+
+    /**
+     * Number of the last prefetch thread created.
+     */
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * Service answering the prefetched requests and caching their responses.
+     */
+    private final ChatGptService chatGptService;
+
+    /**
+     * Catalog of pre-generated event details, which need no prefetching.
+     */
+    private final EventDetailCatalog eventDetailCatalog;
+
+    /**
+     * The prefetch configuration.
+     */
+    private final TimelinePrefetchProperties properties;
+
+    /**
+     * The registry the prefetch meter is published to.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Executor running the prefetches, soonest event first.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Names of the events queued or being prefetched.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sequence number of the last prefetch queued, ordering prefetches of events on the same day.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates the prefetcher and its executor.
+     *
+     * @param chatGptService     service answering the prefetched requests and caching their responses.
+     * @param eventDetailCatalog catalog of pre-generated event details, which need no prefetching.
+     * @param properties         the prefetch configuration.
+     * @param meterRegistry      the registry the prefetch meter is published to.
+     */
+    public EventDetailPrefetcher(ChatGptService chatGptService, EventDetailCatalog eventDetailCatalog,
+                                 TimelinePrefetchProperties properties, MeterRegistry meterRegistry) {
+        this.chatGptService = chatGptService;
+        this.eventDetailCatalog = eventDetailCatalog;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 1, TimeUnit.MINUTES,
+            new PriorityBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "timeline-prefetch-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Prefetches the details of the next upcoming events of a timeline.
+     *
+     * @param items the timeline items served.
+     */
+    public void prefetch(List<TimelineItemDTO> items) {
+        prefetch(items, LocalDate.now());
+    }
+
+    /**
+     * Prefetches the details of the events of a timeline that follow the given day.
+     *
+     * @param items the timeline items served.
+     * @param today the day from which events count as upcoming.
+     */
+    void prefetch(List<TimelineItemDTO> items, LocalDate today) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        // Take the next events from today on that are not catalogued, soonest first.
+        List<Upcoming> upcoming = items.stream()
+            .filter(item -> !eventDetailCatalog.contains(item.getId()))
+            .map(item -> new Upcoming(item.getEventName(), ChronoUnit.DAYS.between(today, LocalDate.parse(item.getEventDate()))))
+            .filter(event -> event.daysAway() >= 0)
+            .sorted(Comparator.comparingLong(Upcoming::daysAway))
+            .limit(properties.getEvents())
+            .toList();
+
+        for (Upcoming event : upcoming) {
+            IslamicEvent strategy = new IslamicEvent();
+            strategy.setEventName(event.eventName());
+            if (chatGptService.isCached(strategy)) {
+                count("fresh");
+            } else if (!pending.add(event.eventName())) {
+                log.debug("Details of {} are already being prefetched.", event.eventName());
+            } else if (executor.getQueue().size() >= properties.getQueueCapacity()) {
+                pending.remove(event.eventName());
+                count("dropped");
+            } else {
+                count("queued");
+                executor.execute(new PrefetchTask(event, sequence.incrementAndGet(), strategy));
+            }
+        }
+    }
+
+    /**
+     * Stops the prefetch threads when the application shuts down.
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Counts a prefetch decision.
+     */
+    private void count(String outcome) {
+        Counter.builder("timeline.prefetch")
+            .description("Timeline event details prefetched into the cache, by outcome")
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    /**
+     * An upcoming event of the timeline.
+     *
+     * @param eventName the name of the event.
+     * @param daysAway  the number of days from today until the event.
+     */
+    private record Upcoming(String eventName, long daysAway) {
+    }
+
+    /**
+     * Prefetch of the details of one event, ordered before the prefetches of later events.
+     */
+    private final class PrefetchTask implements Runnable, Comparable<PrefetchTask> {
+
+        /**
+         * The event prefetched.
+         */
+        private final Upcoming event;
+
+        /**
+         * Order in which the prefetch was queued.
+         */
+        private final long sequence;
+
+        /**
+         * The request for the event's details.
+         */
+        private final IslamicEvent strategy;
+
+        private PrefetchTask(Upcoming event, long sequence, IslamicEvent strategy) {
+            this.event = event;
+            this.sequence = sequence;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // The details may have been requested by a user while the prefetch was queued.
+                if (!chatGptService.isCached(strategy)) {
+                    chatGptService.getResponse(strategy);
+                    log.info("Prefetched details of upcoming event {}.", event.eventName());
+                    count("loaded");
+                } else {
+                    count("fresh");
+                }
+            } catch (Exception e) {
+                log.warn("Failed to prefetch details of upcoming event {}: {}", event.eventName(), e.toString());
+                count("failed");
+            } finally {
+                pending.remove(event.eventName());
+            }
+        }
+
+        @Override
+        public int compareTo(PrefetchTask other) {
+            int byDate = Long.compare(event.daysAway(), other.event.daysAway());
+            return byDate != 0 ? byDate : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -1,25 +1,35 @@
 package com.github.sharifrahim.chatgptintegration.demo.service;
 
 import java.time.LocalDate;
-import java.time.chrono.HijrahDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoField;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.JdkHijrahCalendarSource;
 import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service class for handling Islamic events and generating timeline items for the current Hijri year.
+ * Service class for handling Islamic events and generating timeline items for Hijri years.
  * <p>
- * This service computes the current Hijri year and converts specific Hijri dates to Gregorian dates.
- * It then creates a list of timeline events with their corresponding Gregorian dates.
+ * This service converts the Hijri dates of the events in {@link IslamicEventDefinition#ALL} to Gregorian
+ * dates with a {@link HijriCalendarConverter} and keeps an immutable table of timeline items per Hijri year. Tables for a configurable range
+ * around the current year are precomputed at startup; tables for other years are computed on first
+ * request and cached. Event IDs are the stable IDs of the event definitions, so the same event has the
+ * same ID in every year and on every call; each item also carries an occurrence key, made of its Hijri
+ * year and event ID, which is unique across years.
  * </p>
- * 
+ *
  * @author sharif
  * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
  */
@@ -28,72 +38,182 @@ import lombok.extern.slf4j.Slf4j;
 public class IslamicEventService {
 
     /**
-     * Counter to generate unique IDs for timeline events.
+     * Maximum number of Hijri years that can be requested at once.
      */
-    private long eventIdCounter = 1L;
+    public static final int MAX_YEAR_SPAN = 50;
+
+    /**
+     * Format of the Gregorian event dates.
+     */
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Hijri months of the events in {@link IslamicEventDefinition#ALL}, in order.
+     */
+    private static final int[] EVENT_MONTHS = IslamicEventDefinition.ALL.stream().mapToInt(IslamicEventDefinition::hijriMonth).toArray();
+
+    /**
+     * Hijri days of the events in {@link IslamicEventDefinition#ALL}, in order.
+     */
+    private static final int[] EVENT_DAYS = IslamicEventDefinition.ALL.stream().mapToInt(IslamicEventDefinition::hijriDay).toArray();
+
+    /**
+     * Converter between Hijri dates and epoch days.
+     */
+    private final HijriCalendarConverter calendarConverter;
+
+    /**
+     * Immutable timeline items per Hijri year.
+     */
+    private final Map<Integer, List<TimelineItemDTO>> eventsByYear = new ConcurrentHashMap<>();
+
+    /**
+     * Number of Hijri years before the current year to precompute at startup.
+     */
+    @Value("${timeline.precompute.years-before:1}")
+    private int yearsBefore;
+
+    /**
+     * Number of Hijri years after the current year to precompute at startup.
+     */
+    @Value("${timeline.precompute.years-after:1}")
+    private int yearsAfter;
+
+    /**
+     * The Gregorian day for which the current Hijri year was last computed.
+     */
+    private volatile CurrentYear currentYear = new CurrentYear(Long.MIN_VALUE, 0);
+
+    /**
+     * Creates the service with a converter backed by the JDK's Hijrah chronology.
+     */
+    public IslamicEventService() {
+        this(new HijriCalendarConverter(new JdkHijrahCalendarSource()));
+    }
+
+    /**
+     * Creates the service with the given calendar converter.
+     *
+     * @param calendarConverter the converter between Hijri dates and epoch days.
+     */
+    @Autowired
+    public IslamicEventService(HijriCalendarConverter calendarConverter) {
+        this.calendarConverter = calendarConverter;
+    }
+
+    /**
+     * Precomputes the event tables for the configured range of Hijri years around the current year.
+     */
+    @PostConstruct
+    public void precompute() {
+        int year = getCurrentHijriYear();
+        for (int y = year - yearsBefore; y <= year + yearsAfter; y++) {
+            getEventsForYear(y);
+        }
+        log.info("Precomputed Islamic events for Hijri years {} to {}.", year - yearsBefore, year + yearsAfter);
+    }
 
     /**
      * Retrieves a list of timeline events for the current Hijri year.
-     * <p>
-     * The method computes the current Hijri year and creates timeline events for significant Islamic dates.
-     * Each event's Hijri date is converted to a Gregorian date, and the event is added to the timeline list.
-     * </p>
      *
-     * @return a list of {@link TimelineItemDTO} representing the timeline events.
+     * @return an immutable list of {@link TimelineItemDTO} representing the timeline events.
      */
     public List<TimelineItemDTO> getIslamicEventsForCurrentYear() {
-        log.info("Fetching Islamic events for the current Hijri year.");
-        List<TimelineItemDTO> timelineItemDTOs = new ArrayList<>();
-
-        // Get the current Hijri date and extract the Hijri year
-        HijrahDate currentHijriDate = HijrahDate.now();
-        int currentHijriYear = currentHijriDate.get(ChronoField.YEAR);
-        log.info("Current Hijri year: {}", currentHijriYear);
-
-        // Add predefined Islamic events for the current Hijri year
-        addEvent(currentHijriYear, 1, 1, "Start of the Hijri Year", timelineItemDTOs);
-        addEvent(currentHijriYear, 1, 10, "Day of Ashura", timelineItemDTOs);
-        addEvent(currentHijriYear, 3, 12, "Mawlid an Nabi", timelineItemDTOs);
-        addEvent(currentHijriYear, 7, 27, "Isra and Miraj", timelineItemDTOs);
-        addEvent(currentHijriYear, 8, 15, "Nisf Shaban", timelineItemDTOs);
-        addEvent(currentHijriYear, 9, 1, "Start of Ramadan", timelineItemDTOs);
-        addEvent(currentHijriYear, 9, 17, "Battle of Badr", timelineItemDTOs);
-        addEvent(currentHijriYear, 10, 1, "Eid al Fitr", timelineItemDTOs);
-        addEvent(currentHijriYear, 12, 9, "Yawm Arafah", timelineItemDTOs);
-        addEvent(currentHijriYear, 12, 10, "Eid al Adha", timelineItemDTOs);
-
-        log.info("Total {} events added for the current Hijri year.", timelineItemDTOs.size());
-        return timelineItemDTOs;
+        int hijriYear = getCurrentHijriYear();
+        log.info("Fetching Islamic events for the current Hijri year {}.", hijriYear);
+        return getEventsForYear(hijriYear);
     }
 
     /**
-     * Adds an Islamic event to the timeline items list.
+     * Retrieves the timeline events for a range of Hijri years.
+     *
+     * @param fromYear the first Hijri year, inclusive.
+     * @param toYear   the last Hijri year, inclusive.
+     * @return an immutable list of the events of every year in the range, in chronological order.
+     * @throws IllegalArgumentException if the range is empty, longer than {@link #MAX_YEAR_SPAN} years or
+     *                                  outside the range supported by the calendar converter.
+     */
+    public List<TimelineItemDTO> getIslamicEvents(int fromYear, int toYear) {
+        if (fromYear > toYear || toYear - fromYear >= MAX_YEAR_SPAN) {
+            throw new IllegalArgumentException(
+                "Hijri year range must contain between 1 and " + MAX_YEAR_SPAN + " years: " + fromYear + "-" + toYear);
+        }
+        log.info("Fetching Islamic events for Hijri years {} to {}.", fromYear, toYear);
+        List<TimelineItemDTO> timelineItemDTOs = new ArrayList<>((toYear - fromYear + 1) * IslamicEventDefinition.ALL.size());
+        for (int year = fromYear; year <= toYear; year++) {
+            timelineItemDTOs.addAll(getEventsForYear(year));
+        }
+        return List.copyOf(timelineItemDTOs);
+    }
+
+    /**
+     * Returns the current Hijri year, recomputing it only when the Gregorian day changes.
+     *
+     * @return the current Hijri year.
+     */
+    public int getCurrentHijriYear() {
+        LocalDate today = LocalDate.now();
+        CurrentYear cached = currentYear;
+        if (cached.epochDay() != today.toEpochDay()) {
+            cached = new CurrentYear(today.toEpochDay(), calendarConverter.getYear(Math.toIntExact(today.toEpochDay())));
+            currentYear = cached;
+        }
+        return cached.hijriYear();
+    }
+
+    /**
+     * Returns the cached event table of a Hijri year, computing it on first use.
+     *
+     * @param hijriYear the Hijri year.
+     * @return the immutable list of the year's timeline events.
+     * @throws IllegalArgumentException if the year is outside the range supported by the calendar converter.
+     */
+    private List<TimelineItemDTO> getEventsForYear(int hijriYear) {
+        return eventsByYear.computeIfAbsent(hijriYear, this::buildEventsForYear);
+    }
+
+    /**
+     * Builds the timeline events of a Hijri year.
      * <p>
-     * This method converts a given Hijri date to a Gregorian date format, creates a new
-     * {@link TimelineItemDTO} for the event, and adds it to the provided list.
+     * The Hijri dates of all events are converted to epoch days in one lookup pass and each event is added
+     * to the table with the stable ID of its definition and the key of its occurrence in the year.
      * </p>
      *
-     * @param hijriYear        the Hijri year of the event.
-     * @param hijriMonth       the Hijri month of the event.
-     * @param hijriDay         the Hijri day of the event.
-     * @param eventName        the name of the event.
-     * @param timelineItemDTOs the list to which the event will be added.
-     * @return the updated list of timeline events.
-     */
-    private List<TimelineItemDTO> addEvent(int hijriYear, int hijriMonth, int hijriDay, String eventName,
-                                           List<TimelineItemDTO> timelineItemDTOs) {
-        // Create a HijrahDate instance for the specified event date
-        HijrahDate eventHijriDate = HijrahDate.of(hijriYear, hijriMonth, hijriDay);
-        // Convert the Hijri date to a Gregorian date
-        LocalDate gregorianDate = LocalDate.from(eventHijriDate);
-        // Define the desired Gregorian date format
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        // Create a new timeline item with a unique ID, event name, and formatted Gregorian date
-        TimelineItemDTO timelineItem = new TimelineItemDTO(eventIdCounter, eventName, gregorianDate.format(formatter));
-        timelineItemDTOs.add(timelineItem);
-        log.info("Added event [{}] with Gregorian date: {}", eventName, gregorianDate.format(formatter));
-        // Increment the event ID counter to maintain unique identifiers
-        eventIdCounter++;
-        return timelineItemDTOs;
+     * @param hijriYear the Hijri year.
+     * @return the immutable list of the year's timeline events.
+     */
+    private List<TimelineItemDTO> buildEventsForYear(int hijriYear) {
+        if (hijriYear < calendarConverter.getMinYear() || hijriYear > calendarConverter.getMaxYear()) {
+            throw new IllegalArgumentException("Unsupported Hijri year: " + hijriYear);
+        }
+
+        // Convert the Hijri dates of all events to epoch days
+        int[] epochDays = calendarConverter.toEpochDays(hijriYear, hijriYear, EVENT_MONTHS, EVENT_DAYS);
+
+        List<TimelineItemDTO> timelineItemDTOs = new ArrayList<>(epochDays.length);
+        for (int i = 0; i < epochDays.length; i++) {
+            IslamicEventDefinition event = IslamicEventDefinition.ALL.get(i);
+            timelineItemDTOs.add(new TimelineItemDTO(event.id(), occurrenceKey(hijriYear, event), event.eventName(),
+                DATE_FORMATTER.format(LocalDate.ofEpochDay(epochDays[i]))));
+        }
+        log.info("Computed {} events for Hijri year {}.", timelineItemDTOs.size(), hijriYear);
+        return List.copyOf(timelineItemDTOs);
+    }
+
+    /**
+     * Returns the key identifying the occurrence of an event in a Hijri year.
+     *
+     * @param hijriYear the Hijri year.
+     * @param event     the event definition.
+     * @return the occurrence key, e.g. {@code 1446-8}.
+     */
+    public static String occurrenceKey(int hijriYear, IslamicEventDefinition event) {
+        return hijriYear + "-" + event.id();
+    }
+
+    /**
+     * The current Hijri year together with the Gregorian day it was computed for.
+     */
+    private record CurrentYear(long epochDay, int hijriYear) {
     }
 }
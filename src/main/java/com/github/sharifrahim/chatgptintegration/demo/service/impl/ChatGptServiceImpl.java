@@ -1,11 +1,45 @@
 package com.github.sharifrahim.chatgptintegration.demo.service.impl;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseCache;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseKey;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseStore;
+import com.github.sharifrahim.chatgptintegration.demo.cache.SingleFlight;
+import com.github.sharifrahim.chatgptintegration.demo.dto.CompositeResponse;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitBreaker;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.hedging.RequestHedger;
+import com.github.sharifrahim.chatgptintegration.demo.json.JsonFieldStreamParser;
+import com.github.sharifrahim.chatgptintegration.demo.json.JsonResponseDecoder;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchema;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchemaRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.metrics.ChatGptMetrics;
+import com.github.sharifrahim.chatgptintegration.demo.routing.ModelRouter;
 import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
 import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
 import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
 import com.openai.models.ChatCompletionCreateParams;
 import com.openai.models.ChatModel;
 
@@ -18,6 +52,50 @@ import lombok.extern.slf4j.Slf4j;
  * This service sends a user message to ChatGPT, specifies an expected JSON response format,
  * retrieves the response, and deserializes it into the desired type.
  * </p>
+ * <p>
+ * Deserialized responses are kept in a {@link ChatResponseCache} keyed by prompt, response type and
+ * model, so repeated identical prompts are answered without contacting the API. Responses are also
+ * persisted in a {@link ChatResponseStore}, which serves them after a restart. Concurrent identical
+ * requests that miss the cache are coalesced into a single API call whose result is shared.
+ * </p>
+ * <p>
+ * Blocking requests use the synchronous OpenAI client, while {@link #getResponseAsync(String, Class)}
+ * uses the asynchronous client so that callers can fan out several requests in parallel.
+ * </p>
+ * <p>
+ * {@link #getResponsesAsync(List)} merges several strategies into one request whose JSON response has
+ * one field per strategy, saving a round trip and the repeated system prompt for each extra strategy.
+ * </p>
+ * <p>
+ * {@link #streamResponse(MessageStrategy, BiConsumer)} requests a streaming completion and parses it
+ * incrementally with a {@link JsonFieldStreamParser}, so each field reaches the caller as soon as ChatGPT
+ * has finished writing it.
+ * </p>
+ * <p>
+ * Every API call goes through the {@link OpenAIGovernor}, which keeps the request and token rates within
+ * the account's limits and retries rate-limited calls. Each call's latency, token usage and parse failures
+ * are recorded by {@link ChatGptMetrics}, tagged with the strategy that issued it.
+ * </p>
+ * <p>
+ * The system message and reader of each response type come from the {@link ResponseSchemaRegistry}, so
+ * requests neither instantiate the response type nor create an {@link ObjectMapper}.
+ * </p>
+ * <p>
+ * The model of each call is chosen by the {@link ModelRouter} among the models preferred by the strategy,
+ * and the call's latency and outcome are fed back to it. Responses are cached under the strategy's first
+ * choice of model whichever model answered, since any of its models may answer it.
+ * </p>
+ * <p>
+ * Blocking and asynchronous calls of the strategies configured for hedging are sent a second time by the
+ * {@link RequestHedger} if they are slow to answer. The second request is admitted by the governor on its own,
+ * and only if the governor can admit it at once.
+ * </p>
+ * <p>
+ * Every API call also goes through the {@link OpenAICircuitBreaker}. While its circuit is not closed, a
+ * request with an expired cached response is answered with that stale response at once and refreshed in the
+ * background, the refresh serving as the breaker's trial call when one is due. Requests without a stale
+ * response fail fast with an {@link com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitOpenException}.
+ * </p>
  * 
  * @author sharif
  * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
@@ -32,14 +110,66 @@ public class ChatGptServiceImpl implements ChatGptService {
      */
     private final OpenAIClient openAiClient;
 
+    /**
+     * Cache of previously deserialized responses.
+     */
+    private final ChatResponseCache responseCache;
+
+    /**
+     * Durable store of previously deserialized responses, surviving restarts.
+     */
+    private final ChatResponseStore responseStore;
+
+    /**
+     * Governor limiting the rate and concurrency of API calls.
+     */
+    private final OpenAIGovernor governor;
+
+    /**
+     * Metrics recorder for API calls.
+     */
+    private final ChatGptMetrics metrics;
+
+    /**
+     * Precomputed JSON formats and readers of the response types.
+     */
+    private final ResponseSchemaRegistry schemaRegistry;
+
+    /**
+     * Router choosing the model of each call.
+     */
+    private final ModelRouter modelRouter;
+
+    /**
+     * Hedger resending slow calls of the strategies configured for hedging.
+     */
+    private final RequestHedger hedger;
+
+    /**
+     * Circuit breaker stopping calls while the API is failing.
+     */
+    private final OpenAICircuitBreaker circuitBreaker;
+
+    /**
+     * Coalesces concurrent identical requests into a single API call.
+     */
+    private final SingleFlight<ChatResponseKey> singleFlight = new SingleFlight<>();
+
+    /**
+     * Number of requests answered with a stale response while the circuit breaker was not closed.
+     */
+    private final AtomicLong staleResponseCount = new AtomicLong();
+
     /**
      * Sends a user message to ChatGPT and retrieves a response of the specified type.
      * <p>
-     * This method constructs the API request by first determining the expected JSON format
+     * A cached response for the same prompt, response type and model is returned directly. If an identical
+     * request is already in flight, this method waits for it and shares its result. Otherwise,
+     * this method constructs the API request by first determining the expected JSON format
      * using an empty instance of the response type. It then builds the request parameters including
      * a system message that instructs ChatGPT to respond only in that JSON format. The method sends
-     * the request, cleans up any markdown formatting from the response, and finally deserializes the
-     * JSON into the desired response type.
+     * the request, locates the JSON object in the response, ignoring any markdown formatting or prose around
+     * it, and finally deserializes it in place into the desired response type, which is then cached.
      * </p>
      *
      * @param userMessage the message to be processed by ChatGPT.
@@ -50,47 +180,673 @@ public class ChatGptServiceImpl implements ChatGptService {
      */
     @Override
     public <T> T getResponse(String userMessage, Class<T> responseType) throws Exception {
+        return getResponse(userMessage, responseType, ChatGptMetrics.DIRECT, List.of());
+    }
+
+    /**
+     * Sends the user message of the given strategy to ChatGPT, tagging the call's metrics with the strategy.
+     *
+     * @param strategy the strategy providing the user message and response type.
+     * @param <T> the type of the response.
+     * @return a deserialized response of type {@code T}.
+     * @throws Exception if an error occurs during communication or deserialization.
+     */
+    @Override
+    public <T> T getResponse(MessageStrategy<T> strategy) throws Exception {
+        return getResponse(strategy.getUserMessage(), strategy.getResponseClass(), strategy.getClass().getSimpleName(),
+            strategy.getModelPreferences());
+    }
+
+    /**
+     * Sends the user message of the given strategy to ChatGPT without blocking the calling thread, tagging the
+     * call's metrics with the strategy.
+     *
+     * @param strategy the strategy providing the user message and response type.
+     * @param <T> the type of the response.
+     * @return a future completed with the deserialized response of type {@code T}.
+     */
+    @Override
+    public <T> CompletableFuture<T> getResponseAsync(MessageStrategy<T> strategy) {
+        return getResponseAsync(strategy.getUserMessage(), strategy.getResponseClass(), strategy.getClass().getSimpleName(),
+            strategy.getModelPreferences());
+    }
+
+    /**
+     * Retrieves a response as described by {@link #getResponse(String, Class)}.
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param responseType the class type of the expected response.
+     * @param strategy the strategy tag of the call's metrics.
+     * @param declaredModels the models preferred by the strategy, possibly empty.
+     * @param <T> the type of the response.
+     * @return a deserialized response of type {@code T}.
+     * @throws Exception if an error occurs during communication or deserialization.
+     */
+    private <T> T getResponse(String userMessage, Class<T> responseType, String strategy, List<String> declaredModels) throws Exception {
         // Log the start of the response retrieval process.
         log.info("Sending message to ChatGPT: {}", userMessage);
 
-        // Create an empty instance of the response type to generate the expected JSON format.
-        T instance = responseType.getDeclaredConstructor().newInstance();
-        String exampleJsonFormat = new ObjectMapper().writeValueAsString(instance);
+        // Serve the response from the cache if an identical request was answered before.
+        List<String> models = modelRouter.getModels(strategy, declaredModels);
+        ChatResponseKey cacheKey = new ChatResponseKey(userMessage, responseType, models.get(0));
+        T cached = getCached(cacheKey);
+        if (cached != null) {
+            log.info("Returning cached response of type: {}", responseType.getSimpleName());
+            return cached;
+        }
+
+        // While the API is failing, serve the last good response and refresh it in the background.
+        T stale = getStale(cacheKey, () -> fetchAsync(userMessage, responseType, strategy, models, cacheKey));
+        if (stale != null) {
+            return stale;
+        }
+
+        // Perform the API call, or join an identical call that is already in flight.
+        return singleFlight.execute(cacheKey, () -> {
+            // An identical call may have completed and populated the cache since the lookup above.
+            T completed = getCached(cacheKey);
+            if (completed != null) {
+                return completed;
+            }
+
+            // Send the request to the routed model using the OpenAI client, within the governor's limits, and receive the chat completion.
+            ChatRequest request = buildRequest(userMessage, responseType, modelRouter.route(strategy, models));
+            ChatCompletion chatCompletion = circuitBreaker.execute(() -> governor.execute(request.estimatedTokens(),
+                () -> hedger.execute(strategy, request.model(),
+                    () -> modelRouter.observe(request.model(), () -> metrics.timeCall(strategy, request.model(),
+                        () -> openAiClient.chat().completions().create(request.params()))),
+                    () -> sendAsync(request, strategy), () -> sendHedge(request, strategy))));
+            log.info("Received response from ChatGPT.");
+            T response = parseResponse(chatCompletion, responseType, strategy, request.model());
+
+            // Keep the response for subsequent identical requests.
+            cache(cacheKey, response);
+            return response;
+        });
+    }
+
+    /**
+     * Sends a user message to ChatGPT using the asynchronous OpenAI client.
+     * <p>
+     * The request goes through the same cache and in-flight coalescing as {@link #getResponse(String, Class)},
+     * but the calling thread is never blocked waiting for the API.
+     * </p>
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param responseType the class type of the expected response.
+     * @param <T> the type of the response.
+     * @return a future completed with the deserialized response of type {@code T}.
+     */
+    @Override
+    public <T> CompletableFuture<T> getResponseAsync(String userMessage, Class<T> responseType) {
+        return getResponseAsync(userMessage, responseType, ChatGptMetrics.DIRECT, List.of());
+    }
+
+    /**
+     * Retrieves a response as described by {@link #getResponseAsync(String, Class)}.
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param responseType the class type of the expected response.
+     * @param strategy the strategy tag of the call's metrics.
+     * @param declaredModels the models preferred by the strategy, possibly empty.
+     * @param <T> the type of the response.
+     * @return a future completed with the deserialized response of type {@code T}.
+     */
+    private <T> CompletableFuture<T> getResponseAsync(String userMessage, Class<T> responseType, String strategy,
+        List<String> declaredModels) {
+        log.info("Sending asynchronous message to ChatGPT: {}", userMessage);
+
+        // Serve the response from the cache if an identical request was answered before.
+        List<String> models = modelRouter.getModels(strategy, declaredModels);
+        ChatResponseKey cacheKey = new ChatResponseKey(userMessage, responseType, models.get(0));
+        T cached = getCached(cacheKey);
+        if (cached != null) {
+            log.info("Returning cached response of type: {}", responseType.getSimpleName());
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        // While the API is failing, serve the last good response and refresh it in the background.
+        T stale = getStale(cacheKey, () -> fetchAsync(userMessage, responseType, strategy, models, cacheKey));
+        if (stale != null) {
+            return CompletableFuture.completedFuture(stale);
+        }
+        return fetchAsync(userMessage, responseType, strategy, models, cacheKey);
+    }
+
+    /**
+     * Starts the API call of an asynchronous request, or joins an identical call that is already in flight.
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param responseType the class type of the expected response.
+     * @param strategy the strategy tag of the call's metrics.
+     * @param models the models the strategy may be routed to, its first choice first.
+     * @param cacheKey the key the response is cached under.
+     * @param <T> the type of the response.
+     * @return a future completed with the deserialized response of type {@code T}.
+     */
+    private <T> CompletableFuture<T> fetchAsync(String userMessage, Class<T> responseType, String strategy, List<String> models,
+        ChatResponseKey cacheKey) {
+        return singleFlight.executeAsync(cacheKey, () -> {
+            T completed = getCached(cacheKey);
+            if (completed != null) {
+                return CompletableFuture.completedFuture(completed);
+            }
+
+            ChatRequest request;
+            try {
+                request = buildRequest(userMessage, responseType, modelRouter.route(strategy, models));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+
+            return circuitBreaker.executeAsync(() -> governor.executeAsync(request.estimatedTokens(),
+                () -> hedger.hedge(strategy, request.model(), () -> sendAsync(request, strategy), () -> sendHedge(request, strategy))))
+                .thenApply(chatCompletion -> {
+                    log.info("Received asynchronous response from ChatGPT.");
+                    try {
+                        T response = parseResponse(chatCompletion, responseType, strategy, request.model());
+                        cache(cacheKey, response);
+                        return response;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Sends the user message of the given strategy to ChatGPT as a streaming request, reporting each top-level
+     * field of the response as soon as it is complete.
+     * <p>
+     * A cached response is reported at once. Otherwise the completion is streamed within the governor's limits,
+     * holding its concurrency slot until the stream ends, and its content is parsed as it arrives. The complete
+     * response is then deserialized and cached. Streaming requests are not coalesced, since every caller needs
+     * its own field callbacks. If a failed stream is retried, fields already reported may be reported again.
+     * </p>
+     *
+     * @param strategy the strategy providing the user message and response type.
+     * @param onField the callback receiving the name and text value of each field.
+     * @param <T> the type of the response.
+     * @return the complete deserialized response of type {@code T}.
+     * @throws Exception if an error occurs during communication or deserialization.
+     */
+    @Override
+    public <T> T streamResponse(MessageStrategy<T> strategy, BiConsumer<String, String> onField) throws Exception {
+        String userMessage = strategy.getUserMessage();
+        Class<T> responseType = strategy.getResponseClass();
+        String strategyName = strategy.getClass().getSimpleName();
+        log.info("Streaming message to ChatGPT: {}", userMessage);
+
+        // Report the fields of a cached response at once.
+        List<String> models = modelRouter.getModels(strategyName, strategy.getModelPreferences());
+        ChatResponseKey cacheKey = new ChatResponseKey(userMessage, responseType, models.get(0));
+        if (getCached(cacheKey) != null) {
+            log.info("Returning cached response of type: {}", responseType.getSimpleName());
+            return ChatGptService.super.streamResponse(strategy, onField);
+        }
+        if (!circuitBreaker.isClosed()) {
+            // Serve a stale response, or fail fast, like a regular request.
+            return ChatGptService.super.streamResponse(strategy, onField);
+        }
+        ChatRequest request = buildRequest(userMessage, responseType, modelRouter.route(strategyName, models));
+
+        // Record how long the caller waits for the first field.
+        long start = System.nanoTime();
+        AtomicBoolean firstField = new AtomicBoolean();
+        BiConsumer<String, String> timedOnField = (name, value) -> {
+            if (firstField.compareAndSet(false, true)) {
+                metrics.recordFirstField(strategyName, request.model(), System.nanoTime() - start);
+            }
+            onField.accept(name, value);
+        };
+
+        // Stream the completion within the governor's limits, reporting each field as it completes.
+        String json = circuitBreaker.execute(() -> governor.execute(request.estimatedTokens(), () -> modelRouter.observe(request.model(),
+            () -> metrics.timeCall(strategyName, request.model(), () -> readStream(request, timedOnField, strategyName)))));
+        T response = parseJson(json, responseType, strategyName, request.model());
+
+        // Keep the response for subsequent identical requests.
+        cache(cacheKey, response);
+        return response;
+    }
+
+    /**
+     * Sends the user messages of several strategies to ChatGPT in a single request.
+     * <p>
+     * Strategies with a cached response are answered from the cache. The remaining strategies are merged
+     * into one prompt whose expected JSON format has one field per strategy, holding that strategy's
+     * response format. The combined response is split by field and each part is deserialized into its
+     * strategy's response type and cached as if it had been requested on its own. If the combined
+     * response is malformed, the strategies are requested individually instead.
+     * </p>
+     *
+     * @param strategies the strategies providing the user messages and response types.
+     * @return a future completed with the response to every strategy.
+     */
+    @Override
+    public CompletableFuture<CompositeResponse> getResponsesAsync(List<? extends MessageStrategy<?>> strategies) {
+        log.info("Sending {} strategies to ChatGPT in a composite request.", strategies.size());
+
+        // Serve the strategies that were answered before from the cache.
+        CompositeResponse response = new CompositeResponse();
+        List<MessageStrategy<?>> pending = new ArrayList<>();
+        for (MessageStrategy<?> strategy : strategies) {
+            if (!putCached(strategy, response)) {
+                pending.add(strategy);
+            }
+        }
+        if (pending.size() <= 1 || !circuitBreaker.isClosed()) {
+            // Nothing left to merge, or the API is failing and each strategy may be served a stale response.
+            return getIndividually(pending, response);
+        }
+
+        // Merge the pending strategies into one prompt with one JSON field per strategy.
+        List<String> compositeModels = modelRouter.getModels(ChatGptMetrics.COMPOSITE, List.of());
+        List<String> fields = getCompositeFieldNames(pending);
+        String compositeMessage;
+        ChatRequest request;
+        try {
+            ObjectMapper objectMapper = schemaRegistry.getObjectMapper();
+            ObjectNode compositeFormat = objectMapper.createObjectNode();
+            StringBuilder message = new StringBuilder("Answer each of the following requests separately, "
+                + "putting each answer in the JSON field named before the request.");
+            for (int i = 0; i < pending.size(); i++) {
+                MessageStrategy<?> strategy = pending.get(i);
+                compositeFormat.set(fields.get(i), schemaRegistry.get(strategy.getResponseClass()).example());
+                message.append('\n').append(fields.get(i)).append(": ").append(strategy.getUserMessage());
+            }
+            compositeMessage = message.toString();
+            request = buildRequest(compositeMessage, objectMapper.writeValueAsString(compositeFormat),
+                modelRouter.route(ChatGptMetrics.COMPOSITE, compositeModels));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Send the composite request, or join an identical one that is already in flight.
+        ChatResponseKey compositeKey = new ChatResponseKey(compositeMessage, CompositeResponse.class, compositeModels.get(0));
+        return singleFlight.<ChatCompletion>executeAsync(compositeKey, () -> circuitBreaker.executeAsync(
+                () -> governor.executeAsync(request.estimatedTokens(), () -> sendAsync(request, ChatGptMetrics.COMPOSITE))))
+            .thenCompose(chatCompletion -> {
+                log.info("Received composite response from ChatGPT.");
+                try {
+                    return CompletableFuture.completedFuture(response.putAll(splitResponse(chatCompletion, pending, fields)));
+                } catch (Exception e) {
+                    metrics.recordParseFailure(ChatGptMetrics.COMPOSITE, request.model());
+                    log.warn("Malformed composite response, falling back to {} individual requests.", pending.size(), e);
+                    return getIndividually(pending, response);
+                }
+            });
+    }
+
+    /**
+     * Indicates whether a fresh response to the given strategy is held in memory or in the persistent store.
+     *
+     * @param strategy the strategy providing the user message and response type.
+     * @return {@code true} if the strategy would be answered without an API call.
+     */
+    @Override
+    public boolean isCached(MessageStrategy<?> strategy) {
+        return getCached(cacheKeyOf(strategy)) != null;
+    }
+
+    /**
+     * Returns the number of requests that were served by an identical in-flight request.
+     * <p>
+     * Published as the {@code chatgpt.coalesced} counter by {@code ChatGptMeterBinder}.
+     * </p>
+     *
+     * @return the total number of coalesced requests.
+     */
+    public long getCoalescedRequestCount() {
+        return singleFlight.getCoalescedCount();
+    }
+
+    /**
+     * Returns the number of requests answered with a stale response while the circuit breaker was not closed.
+     *
+     * @return the total number of stale responses served.
+     */
+    public long getStaleResponseCount() {
+        return staleResponseCount.get();
+    }
+
+    /**
+     * Returns the last good response to a request while the circuit breaker is not closed, starting a
+     * background refresh of it.
+     *
+     * @param cacheKey the key of the request.
+     * @param refresh starts the API call refreshing the response.
+     * @param <T> the type of the response.
+     * @return the stale response, or {@code null} if the circuit is closed or there is no stale response.
+     */
+    private <T> T getStale(ChatResponseKey cacheKey, Supplier<CompletableFuture<T>> refresh) {
+        if (circuitBreaker.isClosed()) {
+            return null;
+        }
+        T stale = responseCache.getStale(cacheKey);
+        if (stale == null) {
+            return null;
+        }
+        log.info("OpenAI circuit breaker is not closed, returning stale response of type: {}",
+            cacheKey.responseType().getSimpleName());
+        staleResponseCount.incrementAndGet();
+        refresh.get().whenComplete((response, error) -> {
+            if (error != null) {
+                log.debug("Background refresh of a stale {} failed: {}", cacheKey.responseType().getSimpleName(), error.toString());
+            }
+        });
+        return stale;
+    }
+
+    /**
+     * Looks up a previously received response, first in memory and then in the persistent store.
+     * <p>
+     * Responses found only in the persistent store are promoted to the in-memory cache.
+     * </p>
+     *
+     * @param cacheKey the key of the request.
+     * @param <T> the type of the response.
+     * @return the cached response, or {@code null} if none is available.
+     */
+    private <T> T getCached(ChatResponseKey cacheKey) {
+        T cached = responseCache.get(cacheKey);
+        if (cached == null) {
+            cached = responseStore.get(cacheKey);
+            if (cached != null) {
+                log.info("Loaded response of type {} from the persistent store.", cacheKey.responseType().getSimpleName());
+                responseCache.put(cacheKey, cached);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Adds the cached response to a strategy, if any, to a composite response.
+     *
+     * @param strategy the strategy.
+     * @param response the composite response.
+     * @param <T> the response type of the strategy.
+     * @return {@code true} if a cached response was found.
+     */
+    private <T> boolean putCached(MessageStrategy<T> strategy, CompositeResponse response) {
+        T cached = getCached(cacheKeyOf(strategy));
+        if (cached == null) {
+            return false;
+        }
+        response.put(strategy, cached);
+        return true;
+    }
+
+    /**
+     * Requests the given strategies individually and adds their responses to a composite response.
+     *
+     * @param strategies the strategies.
+     * @param response the composite response.
+     * @return a future completed with the composite response once every strategy is answered.
+     */
+    private CompletableFuture<CompositeResponse> getIndividually(List<MessageStrategy<?>> strategies, CompositeResponse response) {
+        return ChatGptService.super.getResponsesAsync(strategies).thenApply(response::putAll);
+    }
+
+    /**
+     * Returns the cache key of a strategy's response, under the strategy's first choice of model.
+     *
+     * @param strategy the strategy.
+     * @return the cache key.
+     */
+    private ChatResponseKey cacheKeyOf(MessageStrategy<?> strategy) {
+        String strategyName = strategy.getClass().getSimpleName();
+        return new ChatResponseKey(strategy.getUserMessage(), strategy.getResponseClass(),
+            modelRouter.getModels(strategyName, strategy.getModelPreferences()).get(0));
+    }
+
+    /**
+     * Keeps a response in memory and in the persistent store for subsequent identical requests.
+     *
+     * @param cacheKey the key of the request.
+     * @param response the deserialized response.
+     */
+    private void cache(ChatResponseKey cacheKey, Object response) {
+        responseCache.put(cacheKey, response);
+        responseStore.put(cacheKey, response);
+    }
+
+    /**
+     * Builds the chat completion request for the given user message.
+     * <p>
+     * The expected JSON format is determined from an empty instance of the response type and passed to
+     * ChatGPT in a system message instructing it to respond only in that format. Both are computed once per
+     * response type by the {@link ResponseSchemaRegistry}.
+     * </p>
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param responseType the class type of the expected response.
+     * @param model the model the request is sent to.
+     * @return the request.
+     * @throws IllegalArgumentException if the response type cannot be instantiated or serialized.
+     */
+    private ChatRequest buildRequest(String userMessage, Class<?> responseType, String model) {
+        // Use the system message precomputed from an empty instance of the response type.
+        return buildRequestWithSystemMessage(userMessage, schemaRegistry.get(responseType).systemMessage(), model);
+    }
+
+    /**
+     * Builds the chat completion request for the given user message and expected JSON format.
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param exampleJsonFormat an example of the JSON the response must follow.
+     * @param model the model the request is sent to.
+     * @return the request, with its estimated token usage.
+     */
+    private ChatRequest buildRequest(String userMessage, String exampleJsonFormat, String model) {
         log.debug("Expected JSON format: {}", exampleJsonFormat);
+        return buildRequestWithSystemMessage(userMessage, ResponseSchema.systemMessageFor(exampleJsonFormat), model);
+    }
 
+    /**
+     * Builds the chat completion request for the given user message and system message.
+     *
+     * @param userMessage the message to be processed by ChatGPT.
+     * @param systemMessage the system message describing the expected JSON format.
+     * @param model the model the request is sent to.
+     * @return the request, with its estimated token usage.
+     */
+    private ChatRequest buildRequestWithSystemMessage(String userMessage, String systemMessage, String model) {
         // Build the parameters for the chat completion request.
         ChatCompletionCreateParams params = ChatCompletionCreateParams.builder()
             .addUserMessage(userMessage)
-            .addSystemMessage("Response in this json format : " + exampleJsonFormat + ". Only output JSON.")
-            .model(ChatModel.GPT_3_5_TURBO)
+            .addSystemMessage(systemMessage)
+            .model(ChatModel.of(model))
             .build();
-        log.info("ChatCompletionCreateParams built with model: {}", ChatModel.GPT_3_5_TURBO);
+        log.info("ChatCompletionCreateParams built with model: {}", model);
+        return new ChatRequest(params, model, governor.estimateTokens(userMessage.length() + systemMessage.length()));
+    }
 
-        // Send the request using the OpenAI client and receive the chat completion.
-        ChatCompletion chatCompletion = openAiClient.chat().completions().create(params);
-        log.info("Received response from ChatGPT.");
+    /**
+     * Extracts the JSON content of a chat completion and deserializes it into the response type.
+     *
+     * @param chatCompletion the completion returned by the API.
+     * @param responseType the class type of the expected response.
+     * @param strategy the strategy tag of the call's metrics.
+     * @param model the model that answered.
+     * @param <T> the type of the response.
+     * @return a deserialized response of type {@code T}.
+     * @throws Exception if the completion has no content or cannot be deserialized.
+     */
+    private <T> T parseResponse(ChatCompletion chatCompletion, Class<T> responseType, String strategy, String model) throws Exception {
+        String jsonResponse;
+        try {
+            jsonResponse = contentOf(chatCompletion);
+        } catch (RuntimeException e) {
+            metrics.recordParseFailure(strategy, model);
+            throw e;
+        }
+        return parseJson(jsonResponse, responseType, strategy, model);
+    }
 
-        // Extract the content from the first choice in the response.
-        String jsonResponse = chatCompletion.choices().get(0).message().content().orElseThrow();
-        log.debug("Raw JSON response: {}", jsonResponse);
-
-        // Remove markdown formatting if present
-        if (jsonResponse.startsWith("```")) {
-            // Find the first newline after the opening triple backticks.
-            int firstNewline = jsonResponse.indexOf("\n");
-            if (firstNewline != -1) {
-                jsonResponse = jsonResponse.substring(firstNewline + 1);
+    /**
+     * Deserializes the JSON object in the content of a response into the response type.
+     * <p>
+     * The object is read in place with the {@link JsonResponseDecoder}, without trimming the content first.
+     * </p>
+     *
+     * @param jsonResponse the response content.
+     * @param responseType the class type of the expected response.
+     * @param strategy the strategy tag of the call's metrics.
+     * @param model the model that answered.
+     * @param <T> the type of the response.
+     * @return a deserialized response of type {@code T}.
+     * @throws Exception if the content cannot be deserialized.
+     */
+    private <T> T parseJson(String jsonResponse, Class<T> responseType, String strategy, String model) throws Exception {
+        try {
+            // Deserialize the JSON response into the expected response type.
+            T response = schemaRegistry.get(responseType).read(jsonResponse);
+            log.info("Deserialized response into type: {}", responseType.getSimpleName());
+            return response;
+        } catch (Exception e) {
+            metrics.recordParseFailure(strategy, model);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a chat completion request using the asynchronous OpenAI client, recording its latency and outcome.
+     *
+     * @param request the request.
+     * @param strategy the strategy tag of the call's metrics.
+     * @return a future completed with the chat completion.
+     */
+    private CompletableFuture<ChatCompletion> sendAsync(ChatRequest request, String strategy) {
+        return modelRouter.observeAsync(request.model(), () -> metrics.timeCallAsync(strategy, request.model(),
+            () -> openAiClient.async().chat().completions().create(request.params())));
+    }
+
+    /**
+     * Sends the hedge of a request, if the governor can admit it at once.
+     *
+     * @param request the request.
+     * @param strategy the strategy tag of the call's metrics.
+     * @return the future of the hedge, or an empty result if the governor has no capacity to spare.
+     */
+    private Optional<CompletableFuture<ChatCompletion>> sendHedge(ChatRequest request, String strategy) {
+        return governor.tryExecuteAsync(request.estimatedTokens(), () -> sendAsync(request, strategy));
+    }
+
+    /**
+     * Sends a streaming chat completion request and parses its content as it arrives.
+     * <p>
+     * Reading stops as soon as the JSON object is complete, closing the stream.
+     * </p>
+     *
+     * @param request the request.
+     * @param onField the callback receiving the name and text value of each completed field.
+     * @param strategy the strategy tag of the call's metrics.
+     * @return the JSON content of the completion.
+     * @throws UncheckedIOException if the content is not a complete JSON object.
+     */
+    private String readStream(ChatRequest request, BiConsumer<String, String> onField, String strategy) {
+        try (StreamResponse<ChatCompletionChunk> stream = openAiClient.chat().completions().createStreaming(request.params())) {
+            JsonFieldStreamParser parser = new JsonFieldStreamParser(onField);
+            Iterator<ChatCompletionChunk> chunks = stream.stream().iterator();
+            while (!parser.isComplete() && chunks.hasNext()) {
+                for (ChatCompletionChunk.Choice choice : chunks.next().choices()) {
+                    Optional<String> content = choice.delta().content();
+                    if (content.isPresent()) {
+                        parser.feed(content.get());
+                    }
+                }
             }
+            log.info("Received streamed response from ChatGPT.");
+            return parser.getJson();
+        } catch (IOException e) {
+            metrics.recordParseFailure(strategy, request.model());
+            throw new UncheckedIOException(e);
         }
-        if (jsonResponse.endsWith("```")) {
-            jsonResponse = jsonResponse.substring(0, jsonResponse.lastIndexOf("```"));
+    }
+
+    /**
+     * Splits a composite chat completion into the responses to its strategies.
+     * <p>
+     * Every part is deserialized before any is cached, so a malformed response leaves the cache untouched.
+     * </p>
+     *
+     * @param chatCompletion the completion returned by the API.
+     * @param strategies the strategies merged into the request.
+     * @param fields the JSON field of each strategy.
+     * @return the response to every strategy.
+     * @throws Exception if the completion is not a JSON object with a valid field for every strategy.
+     */
+    private CompositeResponse splitResponse(ChatCompletion chatCompletion, List<MessageStrategy<?>> strategies, List<String> fields)
+        throws Exception {
+        JsonNode root = schemaRegistry.getObjectMapper().readTree(JsonResponseDecoder.jsonReader(contentOf(chatCompletion)));
+
+        CompositeResponse parts = new CompositeResponse();
+        for (int i = 0; i < strategies.size(); i++) {
+            JsonNode part = root.get(fields.get(i));
+            if (part == null || !part.isObject()) {
+                throw new IllegalStateException("Composite response has no object field " + fields.get(i));
+            }
+            putPart(strategies.get(i), part, parts);
         }
-        jsonResponse = jsonResponse.trim();
-        log.debug("Processed JSON response: {}", jsonResponse);
 
-        // Deserialize the JSON response into the expected response type.
-        T response = new ObjectMapper().readValue(jsonResponse, responseType);
-        log.info("Deserialized response into type: {}", responseType.getSimpleName());
-        return response;
+        // Keep every part as if it had been requested on its own.
+        for (MessageStrategy<?> strategy : strategies) {
+            cache(cacheKeyOf(strategy), parts.get(strategy));
+        }
+        log.info("Split composite response into {} responses.", parts.size());
+        return parts;
+    }
+
+    /**
+     * Deserializes a part of a composite response into the strategy's response type and adds it.
+     */
+    private <T> void putPart(MessageStrategy<T> strategy, JsonNode part, CompositeResponse parts) throws IOException {
+        parts.put(strategy, schemaRegistry.get(strategy.getResponseClass()).read(part));
+    }
+
+    /**
+     * Returns the JSON field holding each strategy's answer in a composite request.
+     * <p>
+     * Fields are named after the response type, without a {@code DTO} suffix, and numbered when several
+     * strategies share a response type.
+     * </p>
+     *
+     * @param strategies the strategies merged into the request.
+     * @return the field names, in the order of the strategies.
+     */
+    private static List<String> getCompositeFieldNames(List<MessageStrategy<?>> strategies) {
+        List<String> fields = new ArrayList<>(strategies.size());
+        Set<String> used = new HashSet<>();
+        for (MessageStrategy<?> strategy : strategies) {
+            String name = strategy.getResponseClass().getSimpleName().replaceFirst("DTO$", "");
+            String base = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            String field = base;
+            for (int n = 2; !used.add(field); n++) {
+                field = base + n;
+            }
+            fields.add(field);
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the content of a chat completion.
+     *
+     * @param chatCompletion the completion returned by the API.
+     * @return the content of the first choice.
+     * @throws java.util.NoSuchElementException if the completion has no content.
+     */
+    private String contentOf(ChatCompletion chatCompletion) {
+        // Extract the content from the first choice in the response.
+        String content = chatCompletion.choices().get(0).message().content().orElseThrow();
+        log.debug("Raw JSON response: {}", content);
+        return content;
+    }
+
+    /**
+     * A chat completion request together with the model it is sent to and its estimated token usage.
+     */
+    private record ChatRequest(ChatCompletionCreateParams params, String model, long estimatedTokens) {
     }
 }
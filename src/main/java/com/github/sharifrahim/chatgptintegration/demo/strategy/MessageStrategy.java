@@ -1,5 +1,7 @@
 package com.github.sharifrahim.chatgptintegration.demo.strategy;
 
+import java.util.List;
+
 /**
  * Strategy interface for defining message behavior for ChatGPT interactions.
  * <p>
@@ -27,4 +29,18 @@ public interface MessageStrategy<T> {
      * @return the {@code Class} representing the expected response type.
      */
     public Class<T> getResponseClass();
+
+    /**
+     * Retrieves the models this strategy prefers, its first choice first.
+     * <p>
+     * Calls are routed to a later model while the earlier ones are slow or failing. The list can be
+     * overridden with {@code chatgpt.routing.models.<StrategyName>}. By default a strategy declares no
+     * preference and uses {@code chatgpt.routing.default-models}.
+     * </p>
+     *
+     * @return the names of the preferred models, e.g. {@code gpt-4o-mini}, or an empty list.
+     */
+    public default List<String> getModelPreferences() {
+        return List.of();
+    }
 }
@@ -1,5 +1,8 @@
 package com.github.sharifrahim.chatgptintegration.demo.strategy.impl;
 
+import java.util.List;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
 import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
 import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
 
@@ -24,6 +27,22 @@ public class IslamicEvent implements MessageStrategy<IslamicEventDetailDTO> {
     @Setter
     private String eventName;
 
+    /**
+     * Creates the request for the details of a canonical event.
+     * <p>
+     * The request uses the event's canonical name, so that every request for the event shares its cache
+     * entry.
+     * </p>
+     *
+     * @param event the event, as resolved by the {@code IslamicEventRegistry}.
+     * @return the request for the event's details.
+     */
+    public static IslamicEvent of(IslamicEventDefinition event) {
+        IslamicEvent message = new IslamicEvent();
+        message.setEventName(event.eventName());
+        return message;
+    }
+
     /**
      * Constructs the user message to request details for the specified Islamic event.
      * <p>
@@ -48,4 +67,17 @@ public class IslamicEvent implements MessageStrategy<IslamicEventDetailDTO> {
     public Class<IslamicEventDetailDTO> getResponseClass() {
         return IslamicEventDetailDTO.class;
     }
+
+    /**
+     * Returns the models preferred for event details, which users wait for on the timeline page.
+     * <p>
+     * When the first choice slows down, details are requested from a faster and cheaper model instead.
+     * </p>
+     *
+     * @return {@code gpt-3.5-turbo}, falling back to {@code gpt-4o-mini}.
+     */
+    @Override
+    public List<String> getModelPreferences() {
+        return List.of("gpt-3.5-turbo", "gpt-4o-mini");
+    }
 }
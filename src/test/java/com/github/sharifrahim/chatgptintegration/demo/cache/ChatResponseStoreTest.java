@@ -0,0 +1,141 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptStoreProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+
+class ChatResponseStoreTest {
+
+    private static final ChatResponseKey KEY = new ChatResponseKey("Eid al Fitr", IslamicEventDetailDTO.class, "gpt-3.5-turbo");
+
+    @TempDir
+    Path directory;
+
+    private ChatGptStoreProperties properties;
+
+    private ChatGptCacheProperties cacheProperties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ChatGptStoreProperties();
+        properties.setPath(directory.resolve("responses.log"));
+        cacheProperties = new ChatGptCacheProperties();
+    }
+
+    @Test
+    void get_returnsResponsesPersistedBeforeRestart() {
+        ChatResponseStore store = new ChatResponseStore(properties, cacheProperties);
+        store.put(KEY, detail("origin"));
+        store.close();
+
+        ChatResponseStore reopened = new ChatResponseStore(properties, cacheProperties);
+        IslamicEventDetailDTO restored = reopened.get(KEY);
+
+        assertEquals(detail("origin"), restored);
+        assertNull(reopened.get(new ChatResponseKey("Eid al Adha", IslamicEventDetailDTO.class, "gpt-3.5-turbo")));
+    }
+
+    @Test
+    void get_ignoresExpiredResponses() {
+        ChatResponseStore store = new ChatResponseStore(properties, cacheProperties);
+        store.put(KEY, detail("origin"));
+
+        cacheProperties.getTtl().put("IslamicEventDetailDTO", Duration.ofNanos(1));
+
+        assertNull(store.get(KEY));
+    }
+
+    @Test
+    void compact_keepsOnlyLatestRecordPerKey() throws Exception {
+        ChatResponseStore store = new ChatResponseStore(properties, cacheProperties);
+        store.put(KEY, detail("first"));
+        store.put(KEY, detail("second"));
+        long sizeBefore = Files.size(properties.getPath());
+
+        store.compactIfNeeded();
+
+        assertTrue(Files.size(properties.getPath()) < sizeBefore);
+        assertEquals(detail("second"), store.get(KEY));
+        store.close();
+        assertEquals(detail("second"), new ChatResponseStore(properties, cacheProperties).get(KEY));
+    }
+
+    @Test
+    void get_neverReturnsAnotherKeysResponseWhileCompacting() throws Exception {
+        ChatResponseStore store = new ChatResponseStore(properties, cacheProperties);
+        for (int i = 0; i < 50; i++) {
+            store.put(key(i), detail("stale " + i));
+            store.put(key(i), detail("event " + i));
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> reads = new ArrayList<>();
+            for (int reader = 0; reader < 4; reader++) {
+                reads.add(readers.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        int event = i % 50;
+                        IslamicEventDetailDTO detail = store.get(key(event));
+                        assertEquals("event " + event, detail.getOrigin());
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < 20; i++) {
+                store.put(key(i), detail("event " + i));
+                store.compact();
+            }
+            for (Future<?> read : reads) {
+                read.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            readers.shutdownNow();
+            store.close();
+        }
+    }
+
+    @Test
+    void load_truncatesPartiallyWrittenRecord() throws Exception {
+        ChatResponseStore store = new ChatResponseStore(properties, cacheProperties);
+        store.put(KEY, detail("origin"));
+        store.close();
+        Files.write(properties.getPath(), "{\"userMessage\":\"trunc".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ChatResponseStore reopened = new ChatResponseStore(properties, cacheProperties);
+        ChatResponseKey other = new ChatResponseKey("Eid al Adha", IslamicEventDetailDTO.class, "gpt-3.5-turbo");
+        reopened.put(other, detail("adha"));
+
+        assertEquals(detail("origin"), reopened.get(KEY));
+        assertEquals(detail("adha"), reopened.get(other));
+        assertEquals(2, reopened.size());
+    }
+
+    private static ChatResponseKey key(int event) {
+        return new ChatResponseKey("Event " + event, IslamicEventDetailDTO.class, "gpt-3.5-turbo");
+    }
+
+    private static IslamicEventDetailDTO detail(String origin) {
+        IslamicEventDetailDTO detail = new IslamicEventDetailDTO();
+        detail.setEventName("Eid al Fitr");
+        detail.setOrigin(origin);
+        return detail;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @Test
+    void execute_releasesWaitersWhenTheLeaderThrowsAnError() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch waiterJoined = new CountDownLatch(1);
+
+        CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("key", () -> {
+                    leaderStarted.countDown();
+                    waiterJoined.await(5, TimeUnit.SECONDS);
+                    throw new StackOverflowError();
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return singleFlight.execute("key", () -> "not called");
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (singleFlight.getCoalescedCount() == 0) {
+            Thread.onSpinWait();
+        }
+        waiterJoined.countDown();
+
+        Throwable error = assertThrows(Exception.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause();
+        assertInstanceOf(StackOverflowError.class, error);
+        assertInstanceOf(StackOverflowError.class,
+            assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.sharifrahim.chatgptintegration.demo.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+
+class TimelinePageCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private final TimelinePageCache cache = new TimelinePageCache();
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final Supplier<byte[]> renderer = () -> ("page " + renders.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void get_servesTheRenderedPageUntilTheDayOrTheContentChanges() {
+        DailyContentDTO content = content();
+
+        TimelinePageCache.RenderedPage first = cache.get(Locale.ENGLISH, TODAY, content, renderer);
+        assertSame(first, cache.get(Locale.ENGLISH, TODAY, content, renderer));
+        assertEquals(1, renders.get());
+
+        // Regenerated content is a new instance, even if it is equal.
+        TimelinePageCache.RenderedPage regenerated = cache.get(Locale.ENGLISH, TODAY, content(), renderer);
+        assertEquals(2, renders.get());
+        assertNotEquals(first.etag(), regenerated.etag());
+
+        cache.get(Locale.ENGLISH, TODAY.plusDays(1), regenerated.content(), renderer);
+        assertEquals(3, renders.get());
+    }
+
+    @Test
+    void get_rendersThePageOncePerLocale() {
+        cache.get(Locale.ENGLISH, TODAY, null, renderer);
+        cache.get(Locale.FRENCH, TODAY, null, renderer);
+        cache.get(Locale.ENGLISH, TODAY, null, renderer);
+
+        assertEquals(2, renders.get());
+    }
+
+    private static DailyContentDTO content() {
+        return new DailyContentDTO("1446-09-01", null, null, Instant.EPOCH);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.chrono.HijrahDate;
+import java.time.temporal.ChronoField;
+
+import org.junit.jupiter.api.Test;
+
+class HijriCalendarConverterTest {
+
+    private static final HijriCalendarConverter JDK = new HijriCalendarConverter(new JdkHijrahCalendarSource());
+
+    @Test
+    void toEpochDay_matchesHijrahDateForEveryDay() {
+        for (int year = 1440; year <= 1450; year++) {
+            for (int month = 1; month <= 12; month++) {
+                HijrahDate first = HijrahDate.of(year, month, 1);
+                assertEquals(first.lengthOfMonth(), JDK.lengthOfMonth(year, month));
+                for (int day = 1; day <= first.lengthOfMonth(); day++) {
+                    assertEquals(HijrahDate.of(year, month, day).toEpochDay(), JDK.toEpochDay(year, month, day));
+                }
+            }
+        }
+    }
+
+    @Test
+    void toHijri_roundTripsEpochDays() {
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 1000; i++, date = date.plusDays(1)) {
+            HijrahDate hijri = HijrahDate.from(date);
+            int expected = hijri.get(ChronoField.YEAR) * 10000 + hijri.get(ChronoField.MONTH_OF_YEAR) * 100
+                + hijri.get(ChronoField.DAY_OF_MONTH);
+            assertEquals(expected, JDK.toHijri((int) date.toEpochDay()));
+        }
+    }
+
+    @Test
+    void toHijri_convertsGregorianDatesAndFormatsThem() {
+        LocalDate date = LocalDate.of(2025, 3, 1);
+
+        assertEquals(JDK.toHijri((int) date.toEpochDay()), JDK.toHijri(date));
+        assertEquals("1446-09-01", HijriCalendarConverter.format(JDK.toHijri(date)));
+    }
+
+    @Test
+    void toEpochDays_convertsEveryDateInTheYearRange() {
+        int[] months = { 1, 9, 12 };
+        int[] days = { 1, 27, 10 };
+
+        int[] epochDays = JDK.toEpochDays(1445, 1447, months, days);
+
+        assertEquals(9, epochDays.length);
+        assertEquals(JDK.toEpochDay(1446, 9, 27), epochDays[4]);
+        assertEquals(JDK.toEpochDay(1447, 12, 10), epochDays[8]);
+    }
+
+    @Test
+    void toEpochDay_rejectsInvalidDates() {
+        assertThrows(IllegalArgumentException.class, () -> JDK.toEpochDay(1446, 1, 31));
+        assertThrows(IllegalArgumentException.class, () -> JDK.toEpochDay(1446, 13, 1));
+        assertThrows(IllegalArgumentException.class, () -> JDK.toEpochDay(JDK.getMaxYear() + 1, 1, 1));
+    }
+
+    @Test
+    void ummalquraSource_agreesWithJdkSource() {
+        HijriCalendarConverter ummalqura = new HijriCalendarConverter(new UmmalquraCalendarSource(), 1440, 1460);
+        for (int year = 1440; year <= 1460; year++) {
+            for (int month = 1; month <= 12; month++) {
+                assertEquals(JDK.toEpochDay(year, month, 1), ummalqura.toEpochDay(year, month, 1));
+                assertEquals(JDK.lengthOfMonth(year, month), ummalqura.lengthOfMonth(year, month));
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.sharifrahim.chatgptintegration.demo.calendar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class IslamicEventRegistryTest {
+
+    private final IslamicEventRegistry registry = new IslamicEventRegistry();
+
+    @Test
+    void findByName_foldsCaseDiacriticsSpacingAndPunctuation() {
+        for (String name : new String[] { "Eid al Fitr", "eid al fitr ", "Eid-al-Fitr", "EidAlFitr", "ʿĪd al-Fiṭr" }) {
+            assertEquals(8, registry.findByName(name).map(IslamicEventDefinition::id).orElse(-1L), name);
+        }
+        assertEquals(5, registry.findByName("Nisf Shaʿbān").map(IslamicEventDefinition::id).orElse(-1L));
+    }
+
+    @Test
+    void findByName_matchesSimilarNamesUnlessAmbiguous() {
+        assertEquals(8, registry.findByName("Eid al Fitre").map(IslamicEventDefinition::id).orElse(-1L));
+        assertEquals(2, registry.findByName("ʿĀshūrāʾ").map(IslamicEventDefinition::id).orElse(-1L));
+
+        assertEquals(Optional.empty(), registry.findByName("Eid"), "As similar to both Eids");
+        assertEquals(Optional.empty(), registry.findByName("Christmas"));
+        assertEquals(Optional.empty(), registry.findByName(" - "));
+    }
+
+    @Test
+    void resolve_prefersTheIdAndFallsBackToTheName() {
+        assertEquals("Eid al Adha", registry.resolve(10L, "Eid al Fitr").orElseThrow().eventName());
+        assertEquals("Eid al Fitr", registry.resolve(99L, "eid-al-fitr").orElseThrow().eventName());
+        assertEquals("Eid al Fitr", registry.resolve(null, "eid-al-fitr").orElseThrow().eventName());
+        assertEquals(Optional.empty(), registry.resolve(99L, null));
+    }
+}
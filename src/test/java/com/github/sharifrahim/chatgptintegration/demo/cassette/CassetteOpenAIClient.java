@@ -0,0 +1,227 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.ChatCompletionMessage;
+import com.openai.models.CompletionUsage;
+
+/**
+ * An {@link OpenAIClient} replaying the interactions recorded in a cassette.
+ * <p>
+ * Each request is answered with an interaction recorded for the same key; requests recorded several times are
+ * answered with each recording in turn, starting over after the last one. A request that was never recorded
+ * fails with an {@link IllegalStateException}. Responses are delayed by their recorded latency, and streamed
+ * fragments by their recorded offsets, or not at all, depending on the {@link Timing}.
+ * </p>
+ * <p>
+ * The SDK's response objects are prepared when the client is created, so replaying a request allocates little
+ * beyond what the caller does with the response.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class CassetteOpenAIClient {
+
+    /**
+     * How replayed responses are timed.
+     */
+    public enum Timing {
+
+        /**
+         * Responses take as long as when they were recorded.
+         */
+        RECORDED,
+
+        /**
+         * Responses are returned at once.
+         */
+        NONE
+    }
+
+    /**
+     * The recordings of each request, by key.
+     */
+    private final Map<String, Tape> tapes = new LinkedHashMap<>();
+
+    /**
+     * How replayed responses are timed.
+     */
+    private final Timing timing;
+
+    private CassetteOpenAIClient(List<CassetteInteraction> interactions, Timing timing) {
+        this.timing = timing;
+        for (CassetteInteraction interaction : interactions) {
+            tapes.computeIfAbsent(interaction.key(), key -> new Tape()).recordings.add(new Recording(interaction));
+        }
+    }
+
+    /**
+     * Returns a client replaying the given interactions.
+     *
+     * @param interactions the recorded interactions, as read by {@link Cassette#read}.
+     * @param timing       how replayed responses are timed.
+     * @return the replaying client.
+     */
+    public static OpenAIClient replay(List<CassetteInteraction> interactions, Timing timing) {
+        CassetteOpenAIClient cassette = new CassetteOpenAIClient(interactions, timing);
+        OpenAIClient client = mock(OpenAIClient.class, RETURNS_DEEP_STUBS);
+        when(client.chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenAnswer(invocation -> cassette.create(invocation.getArgument(0)));
+        when(client.chat().completions().createStreaming(any(ChatCompletionCreateParams.class)))
+            .thenAnswer(invocation -> cassette.createStreaming(invocation.getArgument(0)));
+        when(client.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenAnswer(invocation -> cassette.createAsync(invocation.getArgument(0)));
+        return client;
+    }
+
+    /**
+     * Replays a blocking request.
+     */
+    private ChatCompletion create(ChatCompletionCreateParams params) {
+        Recording recording = next(params);
+        sleepUntil(System.nanoTime(), recording.interaction.latencyMicros());
+        return recording.completion;
+    }
+
+    /**
+     * Replays an asynchronous request.
+     */
+    private CompletableFuture<ChatCompletion> createAsync(ChatCompletionCreateParams params) {
+        Recording recording = next(params);
+        if (timing == Timing.NONE) {
+            return CompletableFuture.completedFuture(recording.completion);
+        }
+        return CompletableFuture.supplyAsync(() -> recording.completion, CompletableFuture
+            .delayedExecutor(recording.interaction.latencyMicros(), TimeUnit.MICROSECONDS));
+    }
+
+    /**
+     * Replays a streaming request.
+     */
+    @SuppressWarnings("unchecked")
+    private StreamResponse<ChatCompletionChunk> createStreaming(ChatCompletionCreateParams params) {
+        Recording recording = next(params);
+        List<CassetteInteraction.Chunk> offsets = recording.interaction.isStreamed()
+            ? recording.interaction.chunks()
+            : List.of(new CassetteInteraction.Chunk(recording.interaction.latencyMicros(), recording.interaction.content()));
+        long start = System.nanoTime();
+        StreamResponse<ChatCompletionChunk> stream = mock(StreamResponse.class);
+        when(stream.stream()).thenAnswer(invocation -> IntStream.range(0, recording.chunks.size()).mapToObj(i -> {
+            sleepUntil(start, offsets.get(i).offsetMicros());
+            return recording.chunks.get(i);
+        }));
+        return stream;
+    }
+
+    /**
+     * Returns the next recording of a request.
+     */
+    private Recording next(ChatCompletionCreateParams params) {
+        String key = Cassette.keyOf(params);
+        Tape tape = tapes.get(key);
+        if (tape == null) {
+            throw new IllegalStateException("No interaction recorded for request " + key + " among " + tapes.size()
+                + " recorded requests: " + params);
+        }
+        return tape.recordings.get(Math.floorMod(tape.next.getAndIncrement(), tape.recordings.size()));
+    }
+
+    /**
+     * Waits until the given time has passed since {@code start}, unless replaying without delays.
+     */
+    private void sleepUntil(long start, long offsetMicros) {
+        if (timing == Timing.NONE) {
+            return;
+        }
+        long deadline = start + TimeUnit.MICROSECONDS.toNanos(offsetMicros);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * The recordings of a request.
+     */
+    private static final class Tape {
+
+        /**
+         * The recordings, in the order they were recorded.
+         */
+        private final List<Recording> recordings = new ArrayList<>();
+
+        /**
+         * Index of the next recording to replay.
+         */
+        private final AtomicInteger next = new AtomicInteger();
+    }
+
+    /**
+     * A recorded interaction and the response objects replaying it.
+     */
+    private static final class Recording {
+
+        /**
+         * The recorded interaction.
+         */
+        private final CassetteInteraction interaction;
+
+        /**
+         * The response to a blocking or asynchronous request.
+         */
+        private final ChatCompletion completion;
+
+        /**
+         * The fragments of the response to a streaming request.
+         */
+        private final List<ChatCompletionChunk> chunks = new ArrayList<>();
+
+        private Recording(CassetteInteraction interaction) {
+            this.interaction = interaction;
+
+            ChatCompletionMessage message = mock(ChatCompletionMessage.class);
+            when(message.content()).thenReturn(Optional.of(interaction.content()));
+            ChatCompletion.Choice choice = mock(ChatCompletion.Choice.class);
+            when(choice.message()).thenReturn(message);
+            CompletionUsage usage = mock(CompletionUsage.class);
+            when(usage.promptTokens()).thenReturn(interaction.promptTokens());
+            when(usage.completionTokens()).thenReturn(interaction.completionTokens());
+            when(usage.totalTokens()).thenReturn(interaction.promptTokens() + interaction.completionTokens());
+            completion = mock(ChatCompletion.class);
+            when(completion.choices()).thenReturn(List.of(choice));
+            when(completion.model()).thenReturn(interaction.model());
+            when(completion.usage()).thenReturn(Optional.of(usage));
+
+            List<String> fragments = interaction.isStreamed()
+                ? interaction.chunks().stream().map(CassetteInteraction.Chunk::content).toList()
+                : List.of(interaction.content());
+            for (String fragment : fragments) {
+                ChatCompletionChunk.Choice.Delta delta = mock(ChatCompletionChunk.Choice.Delta.class);
+                when(delta.content()).thenReturn(Optional.of(fragment));
+                ChatCompletionChunk.Choice chunkChoice = mock(ChatCompletionChunk.Choice.class);
+                when(chunkChoice.delta()).thenReturn(delta);
+                ChatCompletionChunk chunk = mock(ChatCompletionChunk.class);
+                when(chunk.choices()).thenReturn(List.of(chunkChoice));
+                chunks.add(chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.sharifrahim.chatgptintegration.demo.cassette;
+
+import static com.github.sharifrahim.chatgptintegration.demo.support.ChatGptFixtures.completion;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
+import com.github.sharifrahim.chatgptintegration.demo.support.ChatGptFixtures;
+import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class CassetteReplayTest {
+
+    /**
+     * Bytes a replayed timeline detail request may allocate before the regression test fails.
+     */
+    private static final long ALLOCATION_BUDGET_BYTES = 256 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private Path cassette;
+
+    private List<String> eventNames;
+
+    private OpenAIGovernor governor;
+
+    @BeforeEach
+    void setUp() {
+        cassette = directory.resolve("cassettes/timeline.jsonl");
+        eventNames = new IslamicEventService().getIslamicEventsForCurrentYear().stream()
+            .map(TimelineItemDTO::getEventName)
+            .toList();
+        governor = ChatGptFixtures.unlimitedGovernor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        governor.close();
+    }
+
+    @Test
+    void recordedExchangesReplayIdentically() throws Exception {
+        List<IslamicEventDetailDTO> recorded = record();
+
+        List<CassetteInteraction> interactions = Cassette.read(cassette);
+        assertEquals(eventNames.size() + 1, interactions.size());
+        assertEquals(1, interactions.stream().filter(CassetteInteraction::isStreamed).count());
+        assertEquals(42, interactions.get(0).promptTokens());
+
+        ChatGptServiceImpl service = newService(CassetteOpenAIClient.replay(interactions, CassetteOpenAIClient.Timing.NONE));
+        for (int i = 0; i < eventNames.size(); i++) {
+            assertEquals(recorded.get(i), service.getResponse(event(eventNames.get(i))));
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        service.streamResponse(event("Laylat al Qadr"), fields::put);
+        assertEquals("Origin of Laylat al Qadr", fields.get("origin"));
+    }
+
+    @Test
+    void replayFailsForRequestsNotRecorded() throws Exception {
+        record();
+
+        ChatGptServiceImpl service = newService(CassetteOpenAIClient.replay(Cassette.read(cassette), CassetteOpenAIClient.Timing.NONE));
+
+        assertThrows(IllegalStateException.class, () -> service.getResponse(event("Unknown event")));
+    }
+
+    @Test
+    void replayReproducesRecordedLatency() throws Exception {
+        record();
+        List<CassetteInteraction> slow = Cassette.read(cassette).stream()
+            .map(i -> new CassetteInteraction(i.key(), i.model(), 50_000, i.content(), i.promptTokens(), i.completionTokens(), i.chunks()))
+            .toList();
+        ChatGptServiceImpl service = newService(CassetteOpenAIClient.replay(slow, CassetteOpenAIClient.Timing.RECORDED));
+
+        long start = System.nanoTime();
+        service.getResponse(event(eventNames.get(0)));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "Replay should take the recorded latency");
+    }
+
+    @Test
+    void timelineDetails_replayWithinAllocationBudget() throws Exception {
+        record();
+        ChatGptServiceImpl service = newService(CassetteOpenAIClient.replay(Cassette.read(cassette), CassetteOpenAIClient.Timing.NONE));
+        List<IslamicEvent> events = eventNames.stream().map(CassetteReplayTest::event).toList();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warm up, then measure every event of the timeline in turn.
+        for (int i = 0; i < 2_000; i++) {
+            service.getResponse(events.get(i % events.size()));
+        }
+        int calls = 5_000;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            service.getResponse(events.get(i % events.size()));
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / calls;
+        long bytes = (threads.getCurrentThreadAllocatedBytes() - allocatedBefore) / calls;
+
+        log.info("Replayed timeline detail: {} us and {} bytes allocated per call", micros, bytes);
+        assertTrue(bytes < ALLOCATION_BUDGET_BYTES, "Allocated " + bytes + " bytes per call");
+    }
+
+    /**
+     * Records the details of every timeline event, and one streamed event, to the cassette.
+     */
+    private List<IslamicEventDetailDTO> record() throws Exception {
+        List<IslamicEventDetailDTO> details = new ArrayList<>();
+        try (CassetteRecorder recorder = new CassetteRecorder(cassette)) {
+            ChatGptServiceImpl service = newService(RecordingOpenAIClient.wrap(scriptedClient(), recorder));
+            for (String eventName : eventNames) {
+                details.add(service.getResponse(event(eventName)));
+            }
+            service.streamResponse(event("Laylat al Qadr"), (name, value) -> {
+            });
+        }
+        return details;
+    }
+
+    /**
+     * Returns a client answering like ChatGPT, with a fenced JSON object about the event requested.
+     */
+    @SuppressWarnings("unchecked")
+    private OpenAIClient scriptedClient() {
+        OpenAIClient client = mock(OpenAIClient.class, RETURNS_DEEP_STUBS);
+        when(client.chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenAnswer(invocation -> completion(eventJson(invocation.getArgument(0)), 42));
+        when(client.chat().completions().createStreaming(any(ChatCompletionCreateParams.class))).thenAnswer(invocation -> {
+            String content = eventJson(invocation.getArgument(0));
+            List<ChatCompletionChunk> chunks = new ArrayList<>();
+            for (int i = 0; i < content.length(); i += 8) {
+                ChatCompletionChunk.Choice.Delta delta = mock(ChatCompletionChunk.Choice.Delta.class);
+                when(delta.content()).thenReturn(Optional.of(content.substring(i, Math.min(content.length(), i + 8))));
+                ChatCompletionChunk.Choice choice = mock(ChatCompletionChunk.Choice.class);
+                when(choice.delta()).thenReturn(delta);
+                ChatCompletionChunk chunk = mock(ChatCompletionChunk.class);
+                when(chunk.choices()).thenReturn(List.of(choice));
+                chunks.add(chunk);
+            }
+            StreamResponse<ChatCompletionChunk> stream = mock(StreamResponse.class);
+            when(stream.stream()).thenReturn(chunks.stream());
+            return stream;
+        });
+        return client;
+    }
+
+    private String eventJson(ChatCompletionCreateParams params) {
+        String request = params.toString();
+        String eventName = request.contains("Laylat al Qadr")
+            ? "Laylat al Qadr"
+            : eventNames.stream().filter(request::contains).findFirst().orElseThrow();
+        return "```json\n{\"eventName\":\"" + eventName + "\",\"origin\":\"Origin of " + eventName + "\","
+            + "\"originRefLink\":\"https://example.com/origin\",\"sunnah\":\"Sunnah of " + eventName + "\","
+            + "\"sunnahRefLink\":\"https://example.com/sunnah\"}\n```";
+    }
+
+    private static IslamicEvent event(String eventName) {
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName(eventName);
+        return strategy;
+    }
+
+    /**
+     * Returns a service with caching and the persistent store disabled and rate limits out of reach, so every
+     * request reaches the client at once.
+     */
+    private ChatGptServiceImpl newService(OpenAIClient client) {
+        ChatGptCacheProperties cacheProperties = new ChatGptCacheProperties();
+        cacheProperties.getTtl().put("IslamicEventDetailDTO", Duration.ZERO);
+        return ChatGptFixtures.newService(client, cacheProperties, governor);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.sharifrahim.chatgptintegration.demo.catalog;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventDefinition;
+import com.github.sharifrahim.chatgptintegration.demo.calendar.IslamicEventRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.config.EventDetailCatalogProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.ChatGptService;
+import com.github.sharifrahim.chatgptintegration.demo.service.IslamicEventService;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
+
+class EventDetailGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EventDetailCatalogProperties properties;
+
+    private ChatGptService chatGptService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EventDetailCatalogProperties();
+        properties.setPath(tempDir.resolve("event-details.jsonl"));
+        chatGptService = mock(ChatGptService.class);
+        when(chatGptService.getResponseAsync(any(MessageStrategy.class))).thenAnswer(invocation -> {
+            String userMessage = ((MessageStrategy<?>) invocation.getArgument(0)).getUserMessage();
+            if (userMessage.contains("Eid al Adha")) {
+                return CompletableFuture.failedFuture(new IllegalStateException("OpenAI is down"));
+            }
+            IslamicEventDetailDTO detail = new IslamicEventDetailDTO();
+            detail.setOrigin(userMessage);
+            return CompletableFuture.completedFuture(detail);
+        });
+    }
+
+    @Test
+    void generate_requestsEachCanonicalEventOnceAndSkipsThemOnTheNextRun() throws Exception {
+        EventDetailCatalog catalog = newCatalog();
+
+        EventDetailGenerator.Report first = newGenerator(catalog).generate(1445, 1447, 2);
+        assertEquals(10, first.events(), "Every year has the same ten events");
+        assertEquals(9, first.generated());
+        assertEquals(1, first.failed());
+        verify(chatGptService, times(10)).getResponseAsync(any(MessageStrategy.class));
+
+        // Only the failed event is requested again.
+        EventDetailGenerator.Report second = newGenerator(catalog).generate(1445, 1447, 2);
+        assertEquals(9, second.skipped());
+        assertEquals(0, second.generated());
+        verify(chatGptService, times(11)).getResponseAsync(any(MessageStrategy.class));
+
+        EventDetailCatalog reloaded = newCatalog();
+        assertEquals(9, reloaded.size());
+        assertTrue(reloaded.find(8).orElseThrow().getOrigin().contains("Eid al Fitr"));
+        assertFalse(reloaded.contains(10));
+    }
+
+    @Test
+    void load_truncatesARecordLeftPartiallyWrittenAndKeepsTheLatestRecordOfEachEvent() throws Exception {
+        IslamicEventDefinition eidAlFitr = new IslamicEventRegistry().findById(8).orElseThrow();
+        EventDetailCatalog catalog = newCatalog();
+        catalog.add(eidAlFitr, detail("first"));
+        catalog.add(eidAlFitr, detail("second"));
+        long complete = Files.size(properties.getPath());
+        Files.writeString(properties.getPath(), "{\"eventId\":3,\"detail\":{\"orig", StandardCharsets.UTF_8,
+            StandardOpenOption.APPEND);
+
+        EventDetailCatalog reloaded = newCatalog();
+
+        assertEquals(1, reloaded.size());
+        assertEquals("second", reloaded.find(8).orElseThrow().getOrigin());
+        assertEquals(complete, Files.size(properties.getPath()));
+    }
+
+    private EventDetailCatalog newCatalog() {
+        EventDetailCatalog catalog = new EventDetailCatalog(properties);
+        catalog.load();
+        return catalog;
+    }
+
+    private EventDetailGenerator newGenerator(EventDetailCatalog catalog) {
+        return new EventDetailGenerator(chatGptService, new IslamicEventService(), new IslamicEventRegistry(), catalog);
+    }
+
+    private static IslamicEventDetailDTO detail(String origin) {
+        IslamicEventDetailDTO detail = new IslamicEventDetailDTO();
+        detail.setOrigin(origin);
+        return detail;
+    }
+}
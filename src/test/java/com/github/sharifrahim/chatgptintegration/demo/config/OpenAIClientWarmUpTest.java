@@ -0,0 +1,56 @@
+package com.github.sharifrahim.chatgptintegration.demo.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.openai.client.OpenAIClient;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionCreateParams;
+
+class OpenAIClientWarmUpTest {
+
+    private OpenAIClient openAiClient;
+
+    private OpenAIClientProperties properties;
+
+    private OpenAIClientWarmUp warmUp;
+
+    @BeforeEach
+    void setUp() {
+        openAiClient = mock(OpenAIClient.class, RETURNS_DEEP_STUBS);
+        properties = new OpenAIClientProperties();
+        warmUp = new OpenAIClientWarmUp(openAiClient, new OpenAIGovernor(new OpenAIGovernorProperties()), properties,
+            new ModelRoutingProperties());
+    }
+
+    @Test
+    void warmUp_sendsTheConfiguredNumberOfRequests() throws Exception {
+        properties.setWarmUpRequests(3);
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.completedFuture(mock(ChatCompletion.class)));
+
+        warmUp.warmUp().get(5, TimeUnit.SECONDS);
+
+        verify(openAiClient.async().chat().completions(), times(3)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void warmUp_isDisabledByDefaultAndToleratesFailures() throws Exception {
+        warmUp.warmUp().get(5, TimeUnit.SECONDS);
+        verify(openAiClient.async().chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+
+        properties.setWarmUpRequests(1);
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unreachable")));
+
+        assertNull(warmUp.warmUp().get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.sharifrahim.chatgptintegration.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+
+@SpringBootTest(properties = {"timeline.stream.threads=1", "timeline.stream.queue-capacity=0", "timeline.prefetch.enabled=false"})
+@AutoConfigureMockMvc
+class TimelineApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @MockitoBean
+    private ChatGptServiceImpl chatGptService;
+
+    @Test
+    void streamTimelineDetail_answers503WhileEveryStreamingThreadIsBusy() throws Exception {
+        CountDownLatch streaming = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(chatGptService.streamResponse(any(), any())).thenAnswer(invocation -> {
+            streaming.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new IslamicEventDetailDTO();
+        });
+
+        mockMvc.perform(get("/api/timeline/1/stream")).andExpect(request().asyncStarted());
+        assertTrue(streaming.await(5, TimeUnit.SECONDS));
+
+        mockMvc.perform(get("/api/timeline/8/stream"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        release.countDown();
+
+        // The streaming executor does not replace the application's task executor.
+        assertTrue(applicationContext.containsBean("applicationTaskExecutor"));
+    }
+}
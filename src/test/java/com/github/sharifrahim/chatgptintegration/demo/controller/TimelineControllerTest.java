@@ -0,0 +1,101 @@
+package com.github.sharifrahim.chatgptintegration.demo.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.HadithOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.service.DailyContentService;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+
+@SpringBootTest(properties = "timeline.prefetch.enabled=false")
+@AutoConfigureMockMvc
+class TimelineControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DailyContentService dailyContentService;
+
+    @MockitoBean
+    private ChatGptServiceImpl chatGptService;
+
+    @Test
+    void timeline_sendsThePageAtOnceAndStreamsTheSectionsWhenTheRefreshCompletes() throws Exception {
+        CompletableFuture<DailyContentDTO> refresh = new CompletableFuture<>();
+        when(dailyContentService.awaitDailyContent()).thenReturn(refresh);
+
+        MvcResult result = mockMvc.perform(get("/timeline"))
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+            .andReturn();
+        String sent = result.getResponse().getContentAsString();
+        assertTrue(sent.contains("id=\"hadithSection\""));
+        assertFalse(sent.contains("</body>"), "The end of the page waits for the content");
+
+        // The refresh completing writes the rest of the page and completes the request.
+        refresh.complete(dailyContent());
+        assertFalse(result.getRequest().isAsyncStarted());
+
+        String page = result.getResponse().getContentAsString();
+        assertTrue(page.contains("<template id=\"hadithSectionStreamed\">"));
+        assertTrue(page.contains("Streamed hadith"));
+        assertTrue(page.contains("<script>swapSection('quranSection');</script>"));
+        assertTrue(page.stripTrailing().endsWith("</html>"));
+    }
+
+    @Test
+    void timeline_leavesThePlaceholdersWhenNoRefreshIsInProgress() throws Exception {
+        when(dailyContentService.awaitDailyContent())
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("No daily content refresh in progress")));
+
+        MvcResult result = mockMvc.perform(get("/timeline")).andExpect(status().isOk()).andReturn();
+        assertFalse(result.getRequest().isAsyncStarted());
+
+        String page = result.getResponse().getContentAsString();
+        assertFalse(page.contains("swapSection('hadithSection')"));
+        assertTrue(page.stripTrailing().endsWith("</html>"));
+    }
+
+    @Test
+    void timeline_answersAConditionalRequestForAnUnchangedPageWith304() throws Exception {
+        when(dailyContentService.getDailyContent()).thenReturn(dailyContent());
+
+        MvcResult result = mockMvc.perform(get("/timeline"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        assertTrue(result.getResponse().getContentAsString().contains("Streamed hadith"));
+
+        mockMvc.perform(get("/timeline").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+        verify(dailyContentService, never()).awaitDailyContent();
+    }
+
+    private static DailyContentDTO dailyContent() {
+        QuranOfTheDayDTO quran = new QuranOfTheDayDTO();
+        quran.setSurah("Al-Fatiha");
+        return new DailyContentDTO("1446-09-01", new HadithOfTheDayDTO("Streamed hadith", "Sahih", "Bukhari 1"),
+            quran, Instant.now());
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAICircuitBreakerProperties;
+
+class OpenAICircuitBreakerTest {
+
+    private OpenAICircuitBreakerProperties properties;
+
+    private OpenAICircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OpenAICircuitBreakerProperties();
+        properties.setMinimumCalls(4);
+        properties.setWindowSize(4);
+        properties.setFailureRateThreshold(0.5);
+        circuitBreaker = new OpenAICircuitBreaker(properties);
+    }
+
+    @Test
+    void execute_opensOnceTheFailureRateIsReachedAndRejectsCalls() {
+        succeed();
+        succeed();
+        fail();
+        assertTrue(circuitBreaker.isClosed(), "Too few calls to open the circuit");
+        fail();
+
+        assertEquals(OpenAICircuitBreaker.State.OPEN, circuitBreaker.getState());
+        OpenAICircuitOpenException e = assertThrows(OpenAICircuitOpenException.class, this::succeed);
+        assertTrue(e.getRetryAfter().compareTo(properties.getOpenDuration()) <= 0);
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    void execute_letsOneTrialCallThroughAfterTheOpenDuration() {
+        properties.setOpenDuration(Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+
+        // The trial call fails and opens the circuit again, then the next trial call closes it.
+        fail();
+        assertEquals(OpenAICircuitBreaker.State.OPEN, circuitBreaker.getState());
+        succeed();
+        assertEquals(OpenAICircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void executeAsync_rejectsOtherCallsWhileTheTrialIsInFlightAndIgnoresThrottling() throws Exception {
+        properties.setOpenDuration(Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        CompletableFuture<String> result = circuitBreaker.executeAsync(() -> trial);
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+            () -> circuitBreaker.executeAsync(() -> CompletableFuture.completedFuture("other")).get());
+        assertInstanceOf(OpenAICircuitOpenException.class, rejected.getCause());
+
+        // A throttled trial says nothing about the API, so another call becomes the trial.
+        trial.completeExceptionally(new OpenAIThrottledException("throttled", Duration.ofSeconds(1)));
+        assertThrows(ExecutionException.class, result::get);
+        assertEquals(OpenAICircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertEquals("next", circuitBreaker.executeAsync(() -> CompletableFuture.completedFuture("next")).get());
+        assertTrue(circuitBreaker.isClosed());
+    }
+
+    @Test
+    void execute_countsAnErrorThrownByTheTrialCallAsAFailure() {
+        properties.setOpenDuration(Duration.ZERO);
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+
+        assertThrows(OutOfMemoryError.class, () -> circuitBreaker.execute(() -> {
+            throw new OutOfMemoryError("no more memory");
+        }));
+
+        // The trial is over, so the next call is let through as the new trial.
+        assertEquals(OpenAICircuitBreaker.State.OPEN, circuitBreaker.getState());
+        succeed();
+        assertTrue(circuitBreaker.isClosed());
+    }
+
+    private void succeed() {
+        circuitBreaker.execute(() -> "ok");
+    }
+
+    private void fail() {
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.execute(() -> {
+            throw new IllegalStateException("OpenAI is down");
+        }));
+    }
+}
@@ -0,0 +1,245 @@
+package com.github.sharifrahim.chatgptintegration.demo.governor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAIGovernorProperties;
+import com.openai.core.http.Headers;
+import com.openai.errors.RateLimitException;
+import com.openai.models.ChatCompletion;
+
+class OpenAIGovernorTest {
+
+    private OpenAIGovernorProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OpenAIGovernorProperties();
+        properties.setMaxWait(Duration.ofMillis(200));
+        properties.setInitialBackoff(Duration.ofMillis(10));
+    }
+
+    @Test
+    void execute_rejectsCallsBeyondTheRequestBudget() {
+        properties.setRequestsPerMinute(1);
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        ChatCompletion completion = mock(ChatCompletion.class);
+
+        assertSame(completion, governor.execute(10, () -> completion));
+        OpenAIThrottledException error = assertThrows(OpenAIThrottledException.class, () -> governor.execute(10, () -> completion));
+
+        assertTrue(error.getRetryAfter().compareTo(Duration.ofSeconds(1)) > 0, "The wait for the next request is about a minute");
+        assertEquals(1, governor.getThrottledCount());
+    }
+
+    @Test
+    void execute_retriesRateLimitedCallsAfterRetryAfter() {
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        ChatCompletion completion = mock(ChatCompletion.class);
+        RateLimitException rateLimited = rateLimited("100");
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ChatCompletion result = governor.execute(10, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw rateLimited;
+            }
+            return completion;
+        });
+
+        assertSame(completion, result);
+        assertEquals(2, attempts.get());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100), "The retry should honour Retry-After");
+        assertEquals(1, governor.getRateLimitedCount());
+    }
+
+    @Test
+    void execute_givesUpAfterMaxRetries() {
+        properties.setMaxRetries(2);
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        RateLimitException rateLimited = rateLimited("0");
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(RateLimitException.class, () -> governor.execute(10, () -> {
+            attempts.incrementAndGet();
+            throw rateLimited;
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void execute_boundsConcurrentCalls() throws Exception {
+        properties.setMaxConcurrentRequests(2);
+        properties.setMaxWait(Duration.ofSeconds(5));
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        ChatCompletion completion = mock(ChatCompletion.class);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(2);
+
+        int callers = 6;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<ChatCompletion>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> governor.execute(10, () -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    started.countDown();
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    inFlight.decrementAndGet();
+                    return completion;
+                })));
+            }
+            for (Future<ChatCompletion> result : results) {
+                assertSame(completion, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void getActiveCallCount_countsCallsInFlight() {
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+
+        int during = governor.execute(10, () -> governor.getActiveCallCount());
+
+        assertEquals(1, during);
+        assertEquals(0, governor.getActiveCallCount());
+        assertEquals(properties.getMaxConcurrentRequests(), governor.getMaxConcurrentCalls());
+    }
+
+    @Test
+    void executeAsync_retriesWithoutBlockingTheCaller() throws Exception {
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        ChatCompletion completion = mock(ChatCompletion.class);
+        RateLimitException rateLimited = rateLimited("0");
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<ChatCompletion> future = governor.executeAsync(10, () -> attempts.incrementAndGet() == 1
+            ? CompletableFuture.failedFuture(rateLimited)
+            : CompletableFuture.completedFuture(completion));
+
+        assertSame(completion, future.get(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void executeAsync_doesNotRetryPermanentFailures() {
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+
+        CompletableFuture<ChatCompletion> future = governor.executeAsync(10,
+            () -> CompletableFuture.failedFuture(new IllegalStateException("bad request")));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(0, governor.getRetryCount());
+    }
+
+    @Test
+    void executeAsync_rejectsCallsBeyondTheAdmissionQueue() throws Exception {
+        properties.setMaxConcurrentRequests(1);
+        properties.setMaxWait(Duration.ofSeconds(5));
+        properties.setAsyncAdmissionThreads(1);
+        properties.setAsyncAdmissionQueueCapacity(1);
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        try {
+            // The first call holds the only slot, the second waits for it on the only thread and the third queues.
+            CompletableFuture<ChatCompletion> inFlight = new CompletableFuture<>();
+            CompletableFuture<ChatCompletion> first = governor.executeAsync(10, () -> inFlight);
+            while (governor.getActiveCallCount() == 0) {
+                Thread.onSpinWait();
+            }
+            CompletableFuture<ChatCompletion> second = governor.executeAsync(10, () -> CompletableFuture.completedFuture(null));
+            while (governor.getQueuedAdmissionCount() > 0) {
+                Thread.onSpinWait();
+            }
+            CompletableFuture<ChatCompletion> third = governor.executeAsync(10, () -> CompletableFuture.completedFuture(null));
+
+            assertEquals(1, governor.getQueuedAdmissionCount());
+            CompletableFuture<ChatCompletion> rejected = governor.executeAsync(10, () -> CompletableFuture.completedFuture(null));
+
+            assertTrue(rejected.isCompletedExceptionally(), "Rejected without waiting");
+            ExecutionException error = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(OpenAIThrottledException.class, error.getCause());
+
+            inFlight.complete(null);
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            third.get(5, TimeUnit.SECONDS);
+        } finally {
+            governor.close();
+        }
+    }
+
+    @Test
+    void tryExecuteAsync_admitsOnlyCallsThatNeedNotWait() throws Exception {
+        properties.setRequestsPerMinute(2);
+        properties.setMaxConcurrentRequests(1);
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        try {
+            CompletableFuture<ChatCompletion> inFlight = new CompletableFuture<>();
+            Optional<CompletableFuture<ChatCompletion>> first = governor.tryExecuteAsync(10, () -> inFlight);
+            assertTrue(first.isPresent());
+
+            // The only slot is taken.
+            assertTrue(governor.tryExecuteAsync(10, () -> CompletableFuture.completedFuture(null)).isEmpty());
+            inFlight.complete(null);
+            assertEquals(0, governor.getActiveCallCount(), "The slot is released when the call completes");
+
+            // The slot is free but the request budget is spent.
+            assertTrue(governor.tryExecuteAsync(10, () -> CompletableFuture.completedFuture(null)).isPresent());
+            assertTrue(governor.tryExecuteAsync(10, () -> CompletableFuture.completedFuture(null)).isEmpty());
+            assertEquals(0, governor.getThrottledCount(), "Calls not admitted at once are not throttled calls");
+        } finally {
+            governor.close();
+        }
+    }
+
+    @Test
+    void tryExecuteAsync_cancelsTheCallAndReleasesItsSlotWhenCancelled() {
+        OpenAIGovernor governor = new OpenAIGovernor(properties);
+        try {
+            CompletableFuture<ChatCompletion> inFlight = new CompletableFuture<>();
+            CompletableFuture<ChatCompletion> call = governor.tryExecuteAsync(10, () -> inFlight).orElseThrow();
+            assertEquals(1, governor.getActiveCallCount());
+
+            call.cancel(true);
+
+            assertTrue(inFlight.isCancelled());
+            assertEquals(0, governor.getActiveCallCount());
+        } finally {
+            governor.close();
+        }
+    }
+
+    private static RateLimitException rateLimited(String retryAfterSeconds) {
+        Headers headers = mock(Headers.class);
+        when(headers.values("retry-after")).thenReturn(List.of(retryAfterSeconds));
+        RateLimitException rateLimited = mock(RateLimitException.class);
+        when(rateLimited.headers()).thenReturn(headers);
+        return rateLimited;
+    }
+}
@@ -0,0 +1,175 @@
+package com.github.sharifrahim.chatgptintegration.demo.hedging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.HedgingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ModelRoutingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAIGovernorProperties;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.routing.ModelRouter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RequestHedgerTest {
+
+    private static final String STRATEGY = "IslamicEvent";
+
+    private static final String MODEL = "gpt-3.5-turbo";
+
+    private HedgingProperties properties;
+
+    private ModelRouter modelRouter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RequestHedger hedger;
+
+    private List<CompletableFuture<String>> attempts;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HedgingProperties();
+        properties.getStrategies().add(STRATEGY);
+        properties.setDelay(Duration.ofMillis(20));
+        meterRegistry = new SimpleMeterRegistry();
+        modelRouter = new ModelRouter(new ModelRoutingProperties(), meterRegistry);
+        hedger = new RequestHedger(properties, modelRouter, meterRegistry);
+        attempts = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Test
+    void hedge_keepsHedgesWithinTheBudget() throws Exception {
+        properties.setMaxHedgeRate(0.5);
+
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(hedger.hedge(STRATEGY, MODEL, this::pendingAttempt, this::admittedAttempt));
+        }
+        waitForDecisions(4);
+
+        assertEquals(6, attempts.size(), "Four calls at half a hedge each should be hedged twice");
+        assertEquals(2, meterRegistry.get("chatgpt.hedges").tag("outcome", "skipped").counter().count());
+        calls.forEach(call -> assertFalse(call.isDone()));
+    }
+
+    @Test
+    void hedge_waitsForTheHedgeWhenTheFirstAttemptFails() throws Exception {
+        properties.setMaxHedgeRate(1);
+
+        CompletableFuture<String> call = hedger.hedge(STRATEGY, MODEL, this::pendingAttempt, this::admittedAttempt);
+        waitForAttempts(2);
+        attempts.get(0).completeExceptionally(new IllegalStateException("first"));
+        assertFalse(call.isDone(), "The call should wait for the hedge");
+        attempts.get(1).complete("second");
+
+        assertEquals("second", call.get(1, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("chatgpt.hedges").tag("outcome", "won").counter().count());
+    }
+
+    @Test
+    void hedge_skipsHedgesTheGovernorCannotAdmitAtOnce() throws Exception {
+        properties.setMaxHedgeRate(1);
+
+        CompletableFuture<String> call = hedger.hedge(STRATEGY, MODEL, this::pendingAttempt, Optional::empty);
+        waitForDecisions(1);
+        attempts.get(0).complete("first");
+
+        assertEquals("first", call.get(1, TimeUnit.SECONDS));
+        assertEquals(1, attempts.size());
+        assertEquals(1, meterRegistry.get("chatgpt.hedges").tag("outcome", "skipped").counter().count());
+    }
+
+    @Test
+    void hedge_cancelsTheLosingHedgeAndReleasesItsGovernorSlot() throws Exception {
+        properties.setMaxHedgeRate(1);
+        OpenAIGovernor governor = new OpenAIGovernor(new OpenAIGovernorProperties());
+        try {
+            CompletableFuture<String> call = hedger.hedge(STRATEGY, MODEL, this::pendingAttempt,
+                () -> governor.tryExecuteAsync(10, this::pendingAttempt));
+            waitForAttempts(2);
+            assertEquals(1, governor.getActiveCallCount());
+
+            attempts.get(0).complete("first");
+
+            assertEquals("first", call.get(1, TimeUnit.SECONDS));
+            assertTrue(attempts.get(1).isCancelled(), "The hedge sent through the governor should be cancelled");
+            assertEquals(0, governor.getActiveCallCount(), "The hedge's slot should be released at once");
+        } finally {
+            governor.close();
+        }
+    }
+
+    @Test
+    void hedge_doesNotHedgeOtherStrategies() {
+        properties.setMaxHedgeRate(1);
+
+        CompletableFuture<String> call = hedger.hedge("QuranOfTheDay", MODEL, this::pendingAttempt, this::admittedAttempt);
+
+        assertSame(attempts.get(0), call);
+    }
+
+    @Test
+    void getDelay_followsTheModelsP95WithinTheMinimum() {
+        for (int i = 0; i < new ModelRoutingProperties().getMinSamples(); i++) {
+            modelRouter.record(MODEL, Duration.ofSeconds(2).toNanos(), true);
+            modelRouter.record("gpt-4o-mini", Duration.ofMillis(10).toNanos(), true);
+        }
+
+        assertEquals(Duration.ofSeconds(2), hedger.getDelay(MODEL));
+        assertEquals(properties.getMinDelay(), hedger.getDelay("gpt-4o-mini"));
+    }
+
+    /**
+     * Starts an attempt that completes only when the test completes it.
+     */
+    private CompletableFuture<String> pendingAttempt() {
+        CompletableFuture<String> attempt = new CompletableFuture<>();
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    /**
+     * Starts a hedge admitted at once, completing only when the test completes it.
+     */
+    private Optional<CompletableFuture<String>> admittedAttempt() {
+        return Optional.of(pendingAttempt());
+    }
+
+    private void waitForAttempts(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (attempts.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, attempts.size());
+    }
+
+    /**
+     * Waits until every one of the given number of calls has had its hedge sent or skipped.
+     */
+    private void waitForDecisions(int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (decisions(calls) < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(calls, decisions(calls));
+    }
+
+    private double decisions(int calls) {
+        double skipped = meterRegistry.find("chatgpt.hedges").tag("outcome", "skipped").counters().stream()
+            .mapToDouble(Counter::count)
+            .sum();
+        return skipped + attempts.size() - calls;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class JsonFieldStreamParserTest {
+
+    private static final String JSON = "{\"origin\":\"Fasting of \\\"Ramadan\\\" ends – عيد\","
+        + "\"nested\":{\"ignored\":\"x\"},\"tags\":[\"a\",\"b\"],\"count\":3,\"missing\":null,"
+        + "\"sunnah\":\"Takbir\"}";
+
+    @Test
+    void feed_reportsTopLevelFieldsWhateverTheFragmentBoundaries() throws IOException {
+        String text = "```json\n" + JSON + "\n```";
+        for (int size = 1; size <= text.length(); size++) {
+            List<String> fields = new ArrayList<>();
+            JsonFieldStreamParser parser = new JsonFieldStreamParser((name, value) -> fields.add(name + "=" + value));
+            for (int i = 0; i < text.length(); i += size) {
+                parser.feed(text.substring(i, Math.min(text.length(), i + size)));
+            }
+
+            assertEquals(List.of("origin=Fasting of \"Ramadan\" ends – عيد", "count=3", "sunnah=Takbir"),
+                fields, "Fragments of " + size + " characters");
+            assertTrue(parser.isComplete());
+            assertEquals(JSON, parser.getJson());
+        }
+    }
+
+    @Test
+    void feed_reportsEachFieldAsSoonAsItsValueIsComplete() throws IOException {
+        List<String> fields = new ArrayList<>();
+        JsonFieldStreamParser parser = new JsonFieldStreamParser((name, value) -> fields.add(name));
+
+        parser.feed("{\"origin\":\"first");
+        assertEquals(List.of(), fields);
+        parser.feed(" part\",\"sun");
+        assertEquals(List.of("origin"), fields);
+        assertFalse(parser.isComplete());
+        parser.feed("nah\":\"s\"}");
+        assertEquals(List.of("origin", "sunnah"), fields);
+        assertTrue(parser.isComplete());
+    }
+
+    @Test
+    void reportFields_reportsTheScalarFieldsOfACompleteResponse() {
+        List<String> fields = new ArrayList<>();
+
+        JsonFieldStreamParser.reportFields(Map.of("origin", "o", "nested", Map.of("ignored", "x"), "count", 3),
+            (name, value) -> fields.add(name + "=" + value));
+
+        assertEquals(Set.of("origin=o", "count=3"), Set.copyOf(fields));
+    }
+
+    @Test
+    void getJson_failsWhileTheObjectIsIncomplete() throws IOException {
+        JsonFieldStreamParser parser = new JsonFieldStreamParser((name, value) -> { });
+        parser.feed("{\"origin\":\"o\"");
+
+        assertThrows(IOException.class, parser::getJson);
+    }
+}
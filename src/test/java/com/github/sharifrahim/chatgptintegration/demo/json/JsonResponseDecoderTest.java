@@ -0,0 +1,49 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+
+class JsonResponseDecoderTest {
+
+    @Test
+    void jsonReader_skipsFenceAndSurroundingProse() throws IOException {
+        String json = "{\"origin\":\"a } in \\\"text\\\" {\",\"refs\":[{\"n\":1}],\"sunnah\":\"s\"}";
+
+        assertEquals(json, readAll(JsonResponseDecoder.jsonReader("```json\n" + json + "\n```")));
+        assertEquals(json, readAll(JsonResponseDecoder.jsonReader("Here is the answer:\n" + json + "\nHope it helps {!}")));
+    }
+
+    @Test
+    void jsonReader_extendsUnclosedObjectsToTheEnd() throws IOException {
+        assertEquals("{\"origin\":\"cut", readAll(JsonResponseDecoder.jsonReader("Sure: {\"origin\":\"cut")));
+    }
+
+    @Test
+    void jsonReader_passesContentWithoutObjectToTheParser() throws IOException {
+        assertEquals("I cannot answer that.", readAll(JsonResponseDecoder.jsonReader("I cannot answer that.")));
+    }
+
+    @Test
+    void read_deserializesLargeResponses() throws IOException {
+        String origin = "x".repeat(1_000_000);
+        ResponseSchemaRegistry registry = new ResponseSchemaRegistry(List.of());
+
+        IslamicEventDetailDTO detail = registry.get(IslamicEventDetailDTO.class).read("```json\n{\"origin\":\"" + origin + "\"}\n```");
+
+        assertEquals(origin, detail.getOrigin());
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringWriter writer = new StringWriter();
+        reader.transferTo(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.sharifrahim.chatgptintegration.demo.json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
+
+class ResponseSchemaRegistryTest {
+
+    @Test
+    void get_computesEachSchemaOnce() {
+        ResponseSchemaRegistry registry = new ResponseSchemaRegistry(List.of(IslamicEventDetailDTO.class));
+
+        ResponseSchema<IslamicEventDetailDTO> schema = registry.get(IslamicEventDetailDTO.class);
+
+        assertSame(schema, registry.get(IslamicEventDetailDTO.class));
+        assertTrue(schema.exampleJson().contains("\"sunnahRefLink\""));
+        assertEquals(ResponseSchema.systemMessageFor(schema.exampleJson()), schema.systemMessage());
+    }
+
+    @Test
+    void read_deserializesIntoTheResponseType() throws Exception {
+        ResponseSchemaRegistry registry = new ResponseSchemaRegistry(List.of());
+
+        QuranOfTheDayDTO quran = registry.get(QuranOfTheDayDTO.class).read("{\"quranTranslation\":\"t\",\"surah\":\"s\",\"ayat\":\"1\"}");
+
+        assertEquals("s", quran.getSurah());
+    }
+
+    @Test
+    void get_rejectsTypesWithoutNoArgumentConstructor() {
+        ResponseSchemaRegistry registry = new ResponseSchemaRegistry(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> registry.get(Integer.class));
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.sharifrahim.chatgptintegration.demo.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of the load-test tools, given as {@code --name=value} arguments.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+final class CommandLineOptions {
+
+    /**
+     * The option values, by name.
+     */
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Parses the given arguments.
+     *
+     * @param args the arguments, each of the form {@code --name=value}.
+     * @throws IllegalArgumentException if an argument is not of that form.
+     */
+    CommandLineOptions(String[] args) {
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : defaultValue;
+    }
+
+    double getDouble(String name, double defaultValue) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : defaultValue;
+    }
+
+    /**
+     * Returns a duration given in milliseconds.
+     */
+    Duration getMillis(String name, Duration defaultValue) {
+        return values.containsKey(name) ? Duration.ofMillis(Long.parseLong(values.get(name))) : defaultValue;
+    }
+}
@@ -0,0 +1,227 @@
+package com.github.sharifrahim.chatgptintegration.demo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load driver measuring the throughput and latency of application endpoints at increasing concurrency.
+ * <p>
+ * For each concurrency level, that many clients send requests back to back for the configured duration,
+ * after an unmeasured warm-up. The requests cycle through the given URLs, in which {@code {n}} is replaced by
+ * an increasing number so that cached responses can be avoided. One line is printed per level with the
+ * throughput, the error count and the latency percentiles.
+ * </p>
+ * <p>
+ * Run it with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.sharifrahim.chatgptintegration.demo.loadtest.LoadDriver
+ * -Dexec.args="--url=http://localhost:8080/api/timeline/1,http://localhost:8080/api/timeline/8 --concurrency=1,4,16,64 --duration-ms=30000"}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class LoadDriver {
+
+    /**
+     * The URLs requested in turn.
+     */
+    private final List<String> urls;
+
+    /**
+     * How long each concurrency level is measured.
+     */
+    private final Duration duration;
+
+    /**
+     * How long each concurrency level runs before it is measured.
+     */
+    private final Duration warmup;
+
+    /**
+     * Client sending the requests.
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Number substituted for {@code {n}} in the next URL.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Outcome of one concurrency level.
+     *
+     * @param concurrency the number of concurrent clients.
+     * @param requests    the number of successful requests.
+     * @param errors      the number of failed requests.
+     * @param throughput  the successful requests per second.
+     * @param p50Millis   the median latency.
+     * @param p90Millis   the 90th percentile of latency.
+     * @param p99Millis   the 99th percentile of latency.
+     * @param maxMillis   the highest latency.
+     */
+    public record Result(int concurrency, long requests, long errors, double throughput, double p50Millis,
+        double p90Millis, double p99Millis, double maxMillis) {
+    }
+
+    /**
+     * Creates a driver.
+     *
+     * @param urls     the URLs requested in turn.
+     * @param duration how long each concurrency level is measured.
+     * @param warmup   how long each concurrency level runs before it is measured.
+     * @param timeout  the timeout of each request.
+     */
+    public LoadDriver(List<String> urls, Duration duration, Duration warmup, Duration timeout) {
+        this.urls = List.copyOf(urls);
+        this.duration = duration;
+        this.warmup = warmup;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * Runs the load test configured by {@code --name=value} arguments: {@code url} (comma-separated),
+     * {@code concurrency} (comma-separated levels), {@code duration-ms} and {@code warmup-ms}.
+     *
+     * @param args the arguments.
+     * @throws Exception if the test is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        List<String> urls = List.of(options.getString("url", "http://localhost:8080/timeline").split(","));
+        int[] levels = Arrays.stream(options.getString("concurrency", "1,2,4,8,16,32").split(","))
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        LoadDriver driver = new LoadDriver(urls,
+            options.getMillis("duration-ms", Duration.ofSeconds(20)),
+            options.getMillis("warmup-ms", Duration.ofSeconds(5)),
+            options.getMillis("timeout-ms", Duration.ofSeconds(60)));
+
+        System.out.printf("%11s %9s %7s %10s %9s %9s %9s %9s%n",
+            "concurrency", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        for (int level : levels) {
+            Result result = driver.run(level);
+            System.out.printf("%11d %9d %7d %10.1f %9.1f %9.1f %9.1f %9.1f%n", result.concurrency(), result.requests(),
+                result.errors(), result.throughput(), result.p50Millis(), result.p90Millis(), result.p99Millis(),
+                result.maxMillis());
+        }
+    }
+
+    /**
+     * Runs one concurrency level.
+     *
+     * @param concurrency the number of concurrent clients.
+     * @return the measured outcome.
+     * @throws Exception if the run is interrupted.
+     */
+    public Result run(int concurrency) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            long start = System.nanoTime();
+            long measureFrom = start + warmup.toNanos();
+            long end = measureFrom + duration.toNanos();
+            List<Future<Latencies>> clients = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> runClient(measureFrom, end)));
+            }
+
+            // Merge the latencies recorded by every client.
+            Latencies all = new Latencies();
+            for (Future<Latencies> client : clients) {
+                all.addAll(client.get());
+            }
+            long[] sorted = all.sorted();
+            double seconds = duration.toNanos() / 1e9;
+            return new Result(concurrency, sorted.length, all.errors, sorted.length / seconds, percentile(sorted, 0.50),
+                percentile(sorted, 0.90), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends requests back to back until the end, recording those completed after the warm-up.
+     */
+    private Latencies runClient(long measureFrom, long end) {
+        Latencies latencies = new Latencies();
+        while (true) {
+            long sent = System.nanoTime();
+            if (sent >= end) {
+                return latencies;
+            }
+            long n = sequence.getAndIncrement();
+            String url = urls.get((int) (n % urls.size())).replace("{n}", Long.toString(n));
+            boolean success;
+            try {
+                HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() < 400;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return latencies;
+            } catch (Exception e) {
+                success = false;
+            }
+            long received = System.nanoTime();
+            if (sent >= measureFrom && received <= end) {
+                if (success) {
+                    latencies.add(received - sent);
+                } else {
+                    latencies.errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a percentile of sorted latencies, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Latencies of successful requests, in nanoseconds, and the number of failed requests.
+     */
+    private static final class Latencies {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        private long errors;
+
+        void add(long latency) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latency;
+        }
+
+        void addAll(Latencies other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.github.sharifrahim.chatgptintegration.demo.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local HTTP server standing in for the OpenAI chat completions API, for load tests that must not spend
+ * API quota.
+ * <p>
+ * {@code POST .../chat/completions} is answered with a completion whose content fills the JSON format
+ * given in the request's system message, so the application parses it like a real response. Latency
+ * follows a log-normal distribution with a configurable median and 99th percentile. A configurable share
+ * of requests fails with {@code 429 Too Many Requests}, carrying {@code retry-after-ms}, or with
+ * {@code 500 Internal Server Error}. Requests with {@code "stream": true} are answered with
+ * Server-Sent Events, spreading the content chunks over the sampled latency.
+ * </p>
+ * <p>
+ * Run it with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.sharifrahim.chatgptintegration.demo.loadtest.OpenAIStandInServer
+ * -Dexec.args="--port=8089 --median-ms=800 --p99-ms=4000 --error-rate=0.01 --rate-limit-rate=0.02"}
+ * and start the application with {@code --openai.client.base-url=http://localhost:8089/v1}.
+ * </p>
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+@Slf4j
+public class OpenAIStandInServer implements AutoCloseable {
+
+    /**
+     * The 99th percentile of the standard normal distribution.
+     */
+    private static final double Z_99 = 2.326;
+
+    /**
+     * Mapper reading requests and writing responses.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The behaviour of the server.
+     */
+    private final Settings settings;
+
+    /**
+     * The underlying HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Executor handling the requests, one thread per request in progress.
+     */
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * Number of requests received.
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Number of requests rejected with {@code 429}.
+     */
+    private final AtomicLong rateLimitedCount = new AtomicLong();
+
+    /**
+     * Number of requests failed with {@code 500}.
+     */
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Behaviour of the stand-in server.
+     *
+     * @param port             the port to listen on, or {@code 0} for any free port.
+     * @param medianLatency    the median time to answer a request.
+     * @param p99Latency       the 99th percentile of the time to answer a request.
+     * @param errorRate        the share of requests failing with {@code 500}.
+     * @param rateLimitRate    the share of requests rejected with {@code 429}.
+     * @param retryAfter       the delay suggested to rate-limited clients.
+     * @param streamChunkChars the number of content characters per streamed chunk.
+     */
+    public record Settings(int port, Duration medianLatency, Duration p99Latency, double errorRate, double rateLimitRate,
+        Duration retryAfter, int streamChunkChars) {
+
+        /**
+         * Reads the settings from {@code --name=value} arguments.
+         *
+         * @param args the arguments.
+         * @return the settings, with defaults for the options not given.
+         */
+        public static Settings parse(String[] args) {
+            CommandLineOptions options = new CommandLineOptions(args);
+            return new Settings(
+                options.getInt("port", 8089),
+                options.getMillis("median-ms", Duration.ofMillis(800)),
+                options.getMillis("p99-ms", Duration.ofMillis(3000)),
+                options.getDouble("error-rate", 0),
+                options.getDouble("rate-limit-rate", 0),
+                options.getMillis("retry-after-ms", Duration.ofSeconds(1)),
+                options.getInt("stream-chunk-chars", 8));
+        }
+    }
+
+    /**
+     * Starts a stand-in server.
+     *
+     * @param settings the behaviour of the server.
+     * @throws IOException if the port cannot be bound.
+     */
+    public OpenAIStandInServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress(settings.port()), 0);
+        server.createContext("/", exchange -> {
+            try {
+                handle(exchange);
+            } catch (Exception e) {
+                log.warn("Failed to answer {}", exchange.getRequestURI(), e);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        log.info("OpenAI stand-in listening on port {} with {}", getPort(), settings);
+    }
+
+    /**
+     * Starts a stand-in server configured by {@code --name=value} arguments and runs until the process is
+     * stopped.
+     *
+     * @param args the arguments, see {@link Settings#parse(String[])}.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        OpenAIStandInServer server = new OpenAIStandInServer(Settings.parse(args));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Served {} requests, {} rate limited, {} failed.", server.getRequestCount(),
+                server.getRateLimitedCount(), server.getErrorCount());
+            server.close();
+        }));
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the bound port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimitedCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answers a request.
+     */
+    private void handle(HttpExchange exchange) throws IOException, InterruptedException {
+        if (!"POST".equals(exchange.getRequestMethod()) || !exchange.getRequestURI().getPath().endsWith("/chat/completions")) {
+            sendError(exchange, 404, "invalid_request_error", "Unknown endpoint " + exchange.getRequestURI().getPath());
+            return;
+        }
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        requestCount.incrementAndGet();
+
+        // Reject the configured share of requests, as the API does when limits are exceeded.
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < settings.rateLimitRate()) {
+            rateLimitedCount.incrementAndGet();
+            exchange.getResponseHeaders().add("retry-after-ms", Long.toString(settings.retryAfter().toMillis()));
+            sendError(exchange, 429, "requests", "Rate limit reached for requests");
+            return;
+        }
+
+        long latencyNanos = sampleLatencyNanos(random);
+        if (roll < settings.rateLimitRate() + settings.errorRate()) {
+            Thread.sleep(latencyNanos / 1_000_000);
+            errorCount.incrementAndGet();
+            sendError(exchange, 500, "server_error", "The server had an error while processing your request");
+            return;
+        }
+
+        String model = request.path("model").asText("gpt-3.5-turbo");
+        String content = answer(request);
+        if (request.path("stream").asBoolean()) {
+            stream(exchange, model, content, latencyNanos);
+        } else {
+            Thread.sleep(latencyNanos / 1_000_000);
+            send(exchange, 200, "application/json", completion(model, content, request));
+        }
+    }
+
+    /**
+     * Samples the time to answer a request from the log-normal latency distribution.
+     */
+    private long sampleLatencyNanos(ThreadLocalRandom random) {
+        double median = settings.medianLatency().toNanos();
+        if (median <= 0) {
+            return 0;
+        }
+        double sigma = Math.max(0, Math.log(settings.p99Latency().toNanos() / median) / Z_99);
+        return (long) (median * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Builds the content of the answer by filling the JSON format given in the system message.
+     */
+    private String answer(JsonNode request) throws IOException {
+        for (JsonNode message : request.path("messages")) {
+            String text = message.path("content").asText("");
+            int start = text.indexOf('{');
+            int end = text.lastIndexOf('}');
+            if ("system".equals(message.path("role").asText()) && start >= 0 && end > start) {
+                JsonNode format = objectMapper.readTree(text.substring(start, end + 1));
+                if (format instanceof ObjectNode object) {
+                    fill(object);
+                    return "```json\n" + objectMapper.writeValueAsString(object) + "\n```";
+                }
+            }
+        }
+        return "{}";
+    }
+
+    /**
+     * Replaces every scalar field of an example JSON object with generated text.
+     */
+    private static void fill(ObjectNode object) {
+        Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue() instanceof ObjectNode nested) {
+                fill(nested);
+            } else if (field.getValue().isNumber()) {
+                field.setValue(object.numberNode(1));
+            } else if (!field.getValue().isContainerNode()) {
+                String name = field.getKey();
+                field.setValue(object.textNode(name.toLowerCase().contains("link")
+                    ? "https://example.com/" + name
+                    : "Stand-in " + name + " generated by the local OpenAI stand-in server."));
+            }
+        }
+    }
+
+    /**
+     * Builds a chat completion response.
+     */
+    private String completion(String model, String content, JsonNode request) throws IOException {
+        ObjectNode completion = response(model, "chat.completion");
+        ObjectNode choice = completion.putArray("choices").addObject();
+        choice.put("index", 0);
+        ObjectNode message = choice.putObject("message");
+        message.put("role", "assistant");
+        message.put("content", content);
+        message.putNull("refusal");
+        choice.putNull("logprobs");
+        choice.put("finish_reason", "stop");
+        ObjectNode usage = completion.putObject("usage");
+        int promptTokens = request.path("messages").toString().length() / 4;
+        int completionTokens = content.length() / 4;
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return objectMapper.writeValueAsString(completion);
+    }
+
+    /**
+     * Streams the content as chat completion chunks, spread over the given latency.
+     */
+    private void stream(HttpExchange exchange, String model, String content, long latencyNanos)
+        throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+
+        int chunkChars = Math.max(1, settings.streamChunkChars());
+        int chunks = (content.length() + chunkChars - 1) / chunkChars;
+        long delayMillis = latencyNanos / 1_000_000 / Math.max(1, chunks);
+        for (int i = 0; i < content.length(); i += chunkChars) {
+            Thread.sleep(delayMillis);
+            ObjectNode chunk = chunk(model);
+            ((ArrayNode) chunk.get("choices")).addObject().put("index", 0).putNull("finish_reason")
+                .putObject("delta").put("content", content.substring(i, Math.min(content.length(), i + chunkChars)));
+            writeEvent(body, objectMapper.writeValueAsString(chunk));
+        }
+        ObjectNode last = chunk(model);
+        ((ArrayNode) last.get("choices")).addObject().put("index", 0).put("finish_reason", "stop").putObject("delta");
+        writeEvent(body, objectMapper.writeValueAsString(last));
+        writeEvent(body, "[DONE]");
+    }
+
+    /**
+     * Creates a chunk of a streamed completion, without choices.
+     */
+    private ObjectNode chunk(String model) {
+        ObjectNode chunk = response(model, "chat.completion.chunk");
+        chunk.putArray("choices");
+        return chunk;
+    }
+
+    /**
+     * Creates the common fields of a response.
+     */
+    private ObjectNode response(String model, String object) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-" + UUID.randomUUID());
+        response.put("object", object);
+        response.put("created", System.currentTimeMillis() / 1000);
+        response.put("model", model);
+        return response;
+    }
+
+    /**
+     * Writes a Server-Sent Event and flushes it to the client.
+     */
+    private static void writeEvent(OutputStream body, String data) throws IOException {
+        body.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+
+    /**
+     * Sends an error in the format of the OpenAI API.
+     */
+    private void sendError(HttpExchange exchange, int status, String type, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.putObject("error").put("message", message).put("type", type).putNull("param").putNull("code");
+        send(exchange, status, "application/json", objectMapper.writeValueAsString(error));
+    }
+
+    /**
+     * Sends a complete response.
+     */
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.sharifrahim.chatgptintegration.demo.loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchema;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchemaRegistry;
+
+class OpenAIStandInServerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final ResponseSchema<IslamicEventDetailDTO> schema = new ResponseSchemaRegistry(List.of()).get(IslamicEventDetailDTO.class);
+
+    @Test
+    void answersInTheRequestedJsonFormat() throws Exception {
+        try (OpenAIStandInServer server = new OpenAIStandInServer(settings(0, 0))) {
+            HttpResponse<String> response = post(server, false);
+
+            assertEquals(200, response.statusCode());
+            JsonNode completion = objectMapper.readTree(response.body());
+            IslamicEventDetailDTO detail = schema.read(completion.at("/choices/0/message/content").asText());
+            assertEquals("https://example.com/sunnahRefLink", detail.getSunnahRefLink());
+            assertTrue(completion.at("/usage/total_tokens").asInt() > 0);
+        }
+    }
+
+    @Test
+    void rejectsRequestsWithRetryAfter() throws Exception {
+        try (OpenAIStandInServer server = new OpenAIStandInServer(settings(0, 1))) {
+            HttpResponse<String> response = post(server, false);
+
+            assertEquals(429, response.statusCode());
+            assertEquals("1000", response.headers().firstValue("retry-after-ms").orElseThrow());
+            assertEquals(1, server.getRateLimitedCount());
+        }
+    }
+
+    @Test
+    void streamsTheContentAsChunks() throws Exception {
+        try (OpenAIStandInServer server = new OpenAIStandInServer(settings(0, 0))) {
+            HttpResponse<String> response = post(server, true);
+
+            StringBuilder content = new StringBuilder();
+            List<String> events = response.body().lines().filter(line -> line.startsWith("data: ")).map(line -> line.substring(6)).toList();
+            for (String event : events.subList(0, events.size() - 1)) {
+                content.append(objectMapper.readTree(event).at("/choices/0/delta/content").asText(""));
+            }
+            assertEquals("[DONE]", events.get(events.size() - 1));
+            assertTrue(events.size() > 2, "Content should be split into several chunks");
+            assertTrue(schema.read(content.toString()).getOrigin().startsWith("Stand-in origin"));
+        }
+    }
+
+    private static OpenAIStandInServer.Settings settings(double errorRate, double rateLimitRate) {
+        return new OpenAIStandInServer.Settings(0, Duration.ZERO, Duration.ZERO, errorRate, rateLimitRate, Duration.ofSeconds(1), 8);
+    }
+
+    private HttpResponse<String> post(OpenAIStandInServer server, boolean stream) throws Exception {
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("model", "gpt-3.5-turbo");
+        request.put("stream", stream);
+        request.putArray("messages")
+            .add(objectMapper.createObjectNode().put("role", "user").put("content", "Eid al Fitr"))
+            .add(objectMapper.createObjectNode().put("role", "system").put("content", schema.systemMessage()));
+        return httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/v1/chat/completions"))
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+            .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
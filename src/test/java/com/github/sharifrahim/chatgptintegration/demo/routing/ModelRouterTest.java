@@ -0,0 +1,89 @@
+package com.github.sharifrahim.chatgptintegration.demo.routing;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.config.ModelRoutingProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ModelRouterTest {
+
+    private static final List<String> MODELS = List.of("gpt-3.5-turbo", "gpt-4o-mini");
+
+    private ModelRoutingProperties properties;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ModelRouter router;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ModelRoutingProperties();
+        properties.setMinSamples(5);
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ModelRouter(properties, meterRegistry);
+    }
+
+    @Test
+    void route_prefersTheFirstModelUntilItsP95Degrades() {
+        recordCalls("gpt-3.5-turbo", 5, Duration.ofSeconds(2), true);
+        assertEquals("gpt-3.5-turbo", router.route("IslamicEvent", MODELS));
+
+        recordCalls("gpt-3.5-turbo", 5, Duration.ofSeconds(30), true);
+
+        assertEquals("gpt-4o-mini", router.route("IslamicEvent", MODELS));
+        assertEquals(1, meterRegistry.get("chatgpt.routing.decisions").tag("model", "gpt-4o-mini").tag("reason", "fallback").counter().count());
+        assertEquals(30, meterRegistry.get("chatgpt.routing.latency.p95").tag("model", "gpt-3.5-turbo").gauge().value());
+    }
+
+    @Test
+    void route_avoidsModelsWithTooManyErrors() {
+        recordCalls("gpt-3.5-turbo", 3, Duration.ofSeconds(1), true);
+        recordCalls("gpt-3.5-turbo", 2, Duration.ofSeconds(1), false);
+
+        assertEquals("gpt-4o-mini", router.route("IslamicEvent", MODELS));
+        assertEquals(0.4, meterRegistry.get("chatgpt.routing.error.rate").tag("model", "gpt-3.5-turbo").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void route_picksTheFastestModelWhenEveryModelIsDegraded() {
+        recordCalls("gpt-3.5-turbo", 5, Duration.ofSeconds(30), true);
+        recordCalls("gpt-4o-mini", 5, Duration.ofSeconds(20), true);
+
+        assertEquals("gpt-4o-mini", router.route("IslamicEvent", MODELS));
+        assertEquals(1, meterRegistry.get("chatgpt.routing.decisions").tag("reason", "degraded").counter().count());
+    }
+
+    @Test
+    void route_returnsToADegradedModelOnceItsCallsAgeOut() throws Exception {
+        properties.setWindowDuration(Duration.ofMillis(50));
+        recordCalls("gpt-3.5-turbo", 5, Duration.ofSeconds(30), true);
+        assertEquals("gpt-4o-mini", router.route("IslamicEvent", MODELS));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertEquals("gpt-3.5-turbo", router.route("IslamicEvent", MODELS));
+    }
+
+    @Test
+    void getModels_prefersConfiguredThenDeclaredThenDefaultModels() {
+        properties.getModels().put("HadithOfTheDayStrategy", List.of("gpt-4o"));
+
+        assertEquals(List.of("gpt-4o"), router.getModels("HadithOfTheDayStrategy", MODELS));
+        assertEquals(MODELS, router.getModels("IslamicEvent", MODELS));
+        assertEquals(List.of("gpt-3.5-turbo"), router.getModels("QuranOfTheDay", List.of()));
+    }
+
+    private void recordCalls(String model, int calls, Duration latency, boolean success) {
+        for (int i = 0; i < calls; i++) {
+            router.record(model, latency.toNanos(), success);
+        }
+    }
+}
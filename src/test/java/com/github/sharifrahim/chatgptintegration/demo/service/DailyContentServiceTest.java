@@ -0,0 +1,130 @@
+package com.github.sharifrahim.chatgptintegration.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import com.github.sharifrahim.chatgptintegration.demo.calendar.HijriCalendarConverter;
+import com.github.sharifrahim.chatgptintegration.demo.dto.CompositeResponse;
+import com.github.sharifrahim.chatgptintegration.demo.dto.DailyContentDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.HadithOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.HadithOfTheDayStrategy;
+
+class DailyContentServiceTest {
+
+    private ChatGptService chatGptService;
+
+    private HijriCalendarConverter calendarConverter;
+
+    private DailyContentService service;
+
+    @BeforeEach
+    void setUp() {
+        chatGptService = mock(ChatGptService.class);
+        calendarConverter = mock(HijriCalendarConverter.class);
+        when(calendarConverter.toHijri(any(LocalDate.class))).thenReturn(14460901);
+        service = new DailyContentService(chatGptService, calendarConverter);
+    }
+
+    @Test
+    void refresh_publishesContentForCurrentHijriDay() throws Exception {
+        HadithOfTheDayDTO hadith = new HadithOfTheDayDTO("content", "Sahih", "Bukhari 1");
+        QuranOfTheDayDTO quran = new QuranOfTheDayDTO();
+        when(chatGptService.getResponsesAsync(anyList())).thenAnswer(respondWith(hadith, quran));
+
+        assertNull(service.getDailyContent());
+        DailyContentDTO content = service.refresh().get();
+
+        assertSame(content, service.getDailyContent());
+        assertSame(hadith, content.getHadith());
+        assertSame(quran, content.getQuran());
+        assertEquals("1446-09-01", content.getHijriDate(), "The day comes from the configured calendar");
+    }
+
+    @Test
+    void refreshIfStale_doesNotRegenerateWithinTheSameDay() {
+        when(chatGptService.getResponsesAsync(anyList())).thenAnswer(respondWith(new HadithOfTheDayDTO(), new QuranOfTheDayDTO()));
+
+        service.refreshIfStale();
+        service.refreshIfStale();
+
+        verify(chatGptService, times(1)).getResponsesAsync(anyList());
+    }
+
+    @Test
+    void refresh_keepsPreviousContentOnFailure() throws Exception {
+        when(chatGptService.getResponsesAsync(anyList()))
+            .thenAnswer(respondWith(new HadithOfTheDayDTO(), new QuranOfTheDayDTO()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("OpenAI unavailable")));
+
+        DailyContentDTO previous = service.refresh().get();
+        CompletableFuture<DailyContentDTO> failed = service.refresh();
+
+        assertThrows(ExecutionException.class, failed::get);
+        assertSame(previous, service.getDailyContent());
+    }
+
+    @Test
+    void refresh_sharesRefreshInProgress() {
+        CompletableFuture<CompositeResponse> pending = new CompletableFuture<>();
+        when(chatGptService.getResponsesAsync(anyList())).thenReturn(pending);
+
+        CompletableFuture<DailyContentDTO> first = service.refresh();
+        CompletableFuture<DailyContentDTO> second = service.refresh();
+        pending.complete(new CompositeResponse());
+
+        assertSame(first, second);
+        assertNotNull(first.join());
+        verify(chatGptService, times(1)).getResponsesAsync(anyList());
+    }
+
+    @Test
+    void awaitDailyContent_waitsForTheFirstContentAndThenReturnsItAtOnce() {
+        CompletableFuture<CompositeResponse> pending = new CompletableFuture<>();
+        when(chatGptService.getResponsesAsync(anyList())).thenReturn(pending);
+
+        CompletableFuture<DailyContentDTO> refresh = service.refresh();
+        CompletableFuture<DailyContentDTO> awaited = service.awaitDailyContent();
+        assertSame(refresh, awaited);
+        pending.complete(new CompositeResponse());
+
+        assertSame(awaited.join(), service.awaitDailyContent().join());
+        verify(chatGptService, times(1)).getResponsesAsync(anyList());
+    }
+
+    @Test
+    void awaitDailyContent_doesNotStartARefresh() {
+        assertTrue(service.awaitDailyContent().isCompletedExceptionally());
+        verifyNoInteractions(chatGptService);
+    }
+
+    /**
+     * Answers a composite request with the given Hadith and Quran, matched to the requested strategies.
+     */
+    @SuppressWarnings("unchecked")
+    private static Answer<CompletableFuture<CompositeResponse>> respondWith(HadithOfTheDayDTO hadith, QuranOfTheDayDTO quran) {
+        return invocation -> {
+            CompositeResponse response = new CompositeResponse();
+            for (MessageStrategy<?> strategy : (List<MessageStrategy<?>>) invocation.getArgument(0)) {
+                if (strategy instanceof HadithOfTheDayStrategy hadithStrategy) {
+                    response.put(hadithStrategy, hadith);
+                } else {
+                    response.put((MessageStrategy<QuranOfTheDayDTO>) strategy, quran);
+                }
+            }
+            return CompletableFuture.completedFuture(response);
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.sharifrahim.chatgptintegration.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.sharifrahim.chatgptintegration.demo.catalog.EventDetailCatalog;
+import com.github.sharifrahim.chatgptintegration.demo.config.TimelinePrefetchProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.TimelineItemDTO;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.MessageStrategy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class EventDetailPrefetcherTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 1);
+
+    private ChatGptService chatGptService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EventDetailPrefetcher prefetcher;
+
+    private List<String> requested;
+
+    private CountDownLatch firstRequestReleased;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        chatGptService = mock(ChatGptService.class);
+        requested = Collections.synchronizedList(new ArrayList<>());
+        firstRequestReleased = new CountDownLatch(0);
+        when(chatGptService.getResponse(any(MessageStrategy.class))).thenAnswer(invocation -> {
+            MessageStrategy<?> strategy = invocation.getArgument(0);
+            if (requested.isEmpty()) {
+                firstRequestReleased.await(5, TimeUnit.SECONDS);
+            }
+            requested.add(strategy.getUserMessage());
+            return null;
+        });
+
+        TimelinePrefetchProperties properties = new TimelinePrefetchProperties();
+        properties.setEvents(3);
+        properties.setThreads(1);
+        meterRegistry = new SimpleMeterRegistry();
+        prefetcher = new EventDetailPrefetcher(chatGptService, mock(EventDetailCatalog.class), properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.close();
+    }
+
+    @Test
+    void prefetch_loadsTheNextUpcomingEventsThatAreNotCached() throws Exception {
+        when(chatGptService.isCached(any())).thenAnswer(invocation ->
+            ((MessageStrategy<?>) invocation.getArgument(0)).getUserMessage().contains("Day 2"));
+
+        prefetcher.prefetch(List.of(item("Past", -1), item("Day 1", 1), item("Day 10", 10), item("Day 3", 3), item("Day 2", 2)), TODAY);
+
+        awaitRequests(2);
+        assertTrue(requested.get(0).contains("Day 1"));
+        assertTrue(requested.get(1).contains("Day 3"));
+        assertEquals(1, meterRegistry.get("timeline.prefetch").tag("outcome", "fresh").counter().count());
+        assertEquals(2, meterRegistry.get("timeline.prefetch").tag("outcome", "queued").counter().count());
+    }
+
+    @Test
+    void prefetch_loadsSoonerEventsFirstAndSkipsEventsAlreadyQueued() throws Exception {
+        firstRequestReleased = new CountDownLatch(1);
+
+        // The first prefetch occupies the only thread while the others queue up.
+        prefetcher.prefetch(List.of(item("Busy", 0)), TODAY);
+        prefetcher.prefetch(List.of(item("Day 9", 9)), TODAY);
+        prefetcher.prefetch(List.of(item("Day 4", 4), item("Day 9", 9)), TODAY);
+        firstRequestReleased.countDown();
+
+        awaitRequests(3);
+        assertTrue(requested.get(1).contains("Day 4"));
+        assertTrue(requested.get(2).contains("Day 9"));
+        assertEquals(3, meterRegistry.get("timeline.prefetch").tag("outcome", "queued").counter().count());
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requested.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, requested.size());
+    }
+
+    private static TimelineItemDTO item(String eventName, int daysFromToday) {
+        return new TimelineItemDTO((long) daysFromToday, "1446-" + daysFromToday, eventName, TODAY.plusDays(daysFromToday).toString());
+    }
+}
@@ -58,4 +58,41 @@ class IslamicEventServiceTest {
             assertEquals(expectedDate.format(formatter), item.getEventDate());
         }
     }
+
+    @Test
+    void getIslamicEventsForCurrentYear_returnsSameIdsOnEveryCall() {
+        IslamicEventService service = new IslamicEventService();
+
+        List<TimelineItemDTO> first = service.getIslamicEventsForCurrentYear();
+        List<TimelineItemDTO> second = service.getIslamicEventsForCurrentYear();
+
+        assertEquals(first, second, "Repeated calls should return the same events and IDs");
+        assertEquals(10L, second.get(9).getId());
+    }
+
+    @Test
+    void getIslamicEvents_returnsEventsOfEveryYearInRange() {
+        IslamicEventService service = new IslamicEventService();
+        int currentHijriYear = HijrahDate.now().get(ChronoField.YEAR);
+
+        List<TimelineItemDTO> events = service.getIslamicEvents(currentHijriYear - 1, currentHijriYear + 1);
+
+        assertEquals(30, events.size());
+        assertEquals(service.getIslamicEventsForCurrentYear(), events.subList(10, 20));
+        LocalDate expectedFirst = LocalDate.from(HijrahDate.of(currentHijriYear - 1, 1, 1));
+        assertEquals(expectedFirst.toString(), events.get(0).getEventDate());
+        assertEquals(1L, events.get(10).getId(), "IDs identify the event in every year");
+        assertEquals(currentHijriYear + "-1", events.get(10).getOccurrenceKey());
+        assertEquals(30, events.stream().map(TimelineItemDTO::getOccurrenceKey).distinct().count(),
+            "Occurrence keys are unique across years");
+    }
+
+    @Test
+    void getIslamicEvents_rejectsInvalidRanges() {
+        IslamicEventService service = new IslamicEventService();
+
+        assertThrows(IllegalArgumentException.class, () -> service.getIslamicEvents(1447, 1446));
+        assertThrows(IllegalArgumentException.class, () -> service.getIslamicEvents(1400, 1400 + IslamicEventService.MAX_YEAR_SPAN));
+        assertThrows(IllegalArgumentException.class, () -> service.getIslamicEvents(1000, 1001));
+    }
 }
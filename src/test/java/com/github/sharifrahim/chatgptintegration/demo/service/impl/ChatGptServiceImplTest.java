@@ -0,0 +1,445 @@
+package com.github.sharifrahim.chatgptintegration.demo.service.impl;
+
+import static com.github.sharifrahim.chatgptintegration.demo.support.ChatGptFixtures.completion;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseCache;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseKey;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseStore;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptStoreProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.HedgingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ModelRoutingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAICircuitBreakerProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAIGovernorProperties;
+import com.github.sharifrahim.chatgptintegration.demo.dto.CompositeResponse;
+import com.github.sharifrahim.chatgptintegration.demo.dto.HadithOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.IslamicEventDetailDTO;
+import com.github.sharifrahim.chatgptintegration.demo.dto.QuranOfTheDayDTO;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitBreaker;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitOpenException;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.hedging.RequestHedger;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchemaRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.metrics.ChatGptMetrics;
+import com.github.sharifrahim.chatgptintegration.demo.routing.ModelRouter;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.HadithOfTheDayStrategy;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.IslamicEvent;
+import com.github.sharifrahim.chatgptintegration.demo.strategy.impl.QuranOfTheDay;
+import com.openai.client.OpenAIClient;
+import com.openai.core.http.StreamResponse;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionChunk;
+import com.openai.models.ChatCompletionCreateParams;
+import com.openai.models.CompletionUsage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ChatGptServiceImplTest {
+
+    private static final String EVENT_JSON = "```json\n{\"eventName\":\"Eid al Fitr\",\"origin\":\"origin\","
+        + "\"originRefLink\":\"https://example.com/origin\",\"sunnah\":\"sunnah\","
+        + "\"sunnahRefLink\":\"https://example.com/sunnah\"}\n```";
+
+    private OpenAIClient openAiClient;
+
+    private ChatGptCacheProperties cacheProperties;
+
+    private ChatResponseCache responseCache;
+
+    private OpenAIGovernor governor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ChatGptMetrics metrics;
+
+    private ResponseSchemaRegistry schemaRegistry;
+
+    private ModelRouter modelRouter;
+
+    private HedgingProperties hedgingProperties;
+
+    private RequestHedger hedger;
+
+    private OpenAICircuitBreakerProperties circuitBreakerProperties;
+
+    private OpenAICircuitBreaker circuitBreaker;
+
+    private ChatGptServiceImpl service;
+
+    @TempDir
+    Path storeDirectory;
+
+    @BeforeEach
+    void setUp() {
+        openAiClient = mock(OpenAIClient.class, RETURNS_DEEP_STUBS);
+        ChatCompletion completion = completion(EVENT_JSON);
+        when(openAiClient.chat().completions().create(any(ChatCompletionCreateParams.class))).thenReturn(completion);
+
+        cacheProperties = new ChatGptCacheProperties();
+        responseCache = new ChatResponseCache(cacheProperties);
+        governor = new OpenAIGovernor(new OpenAIGovernorProperties());
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new ChatGptMetrics(meterRegistry);
+        schemaRegistry = new ResponseSchemaRegistry(List.of());
+        modelRouter = new ModelRouter(new ModelRoutingProperties(), meterRegistry);
+        hedgingProperties = new HedgingProperties();
+        hedger = new RequestHedger(hedgingProperties, modelRouter, meterRegistry);
+        circuitBreakerProperties = new OpenAICircuitBreakerProperties();
+        circuitBreaker = new OpenAICircuitBreaker(circuitBreakerProperties);
+        service = new ChatGptServiceImpl(openAiClient, responseCache, newStore(), governor, metrics, schemaRegistry, modelRouter, hedger,
+            circuitBreaker);
+    }
+
+    @Test
+    void getResponse_stripsMarkdownAndDeserializes() throws Exception {
+        IslamicEventDetailDTO detail = service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        assertEquals("Eid al Fitr", detail.getEventName());
+        assertEquals("https://example.com/sunnah", detail.getSunnahRefLink());
+    }
+
+    @Test
+    void getResponse_servesRepeatedPromptsFromCache() throws Exception {
+        IslamicEventDetailDTO first = service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+        IslamicEventDetailDTO second = service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        assertSame(first, second, "Identical prompts should be served from the cache");
+        verify(openAiClient.chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+        assertEquals(1, responseCache.stats().hitCount());
+    }
+
+    @Test
+    void getResponse_keysCacheByResponseType() throws Exception {
+        ChatCompletion eventCompletion = completion(EVENT_JSON);
+        ChatCompletion quranCompletion = completion("{\"quranTranslation\":\"t\",\"surah\":\"s\",\"ayat\":\"1\"}");
+        when(openAiClient.chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(eventCompletion)
+            .thenReturn(quranCompletion);
+
+        service.getResponse("same prompt", IslamicEventDetailDTO.class);
+        QuranOfTheDayDTO quran = service.getResponse("same prompt", QuranOfTheDayDTO.class);
+
+        assertEquals("s", quran.getSurah());
+        verify(openAiClient.chat().completions(), times(2)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponse_bypassesCacheWhenTtlIsZero() throws Exception {
+        cacheProperties.getTtl().put("IslamicEventDetailDTO", Duration.ZERO);
+
+        service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+        service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        verify(openAiClient.chat().completions(), times(2)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponse_servesPersistedResponsesAfterRestart() throws Exception {
+        IslamicEventDetailDTO original = service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        // A new service with an empty in-memory cache, as after a restart.
+        ChatGptServiceImpl restarted = new ChatGptServiceImpl(openAiClient, new ChatResponseCache(cacheProperties), newStore(), governor, metrics, schemaRegistry, modelRouter, hedger,
+            circuitBreaker);
+        IslamicEventDetailDTO restored = restarted.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        assertEquals(original, restored);
+        verify(openAiClient.chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponse_coalescesConcurrentIdenticalRequests() throws Exception {
+        ChatCompletion completion = completion(EVENT_JSON);
+        CountDownLatch release = new CountDownLatch(1);
+        when(openAiClient.chat().completions().create(any(ChatCompletionCreateParams.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return completion;
+        });
+
+        int callers = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<IslamicEventDetailDTO>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class)));
+            }
+
+            // Wait until every follower has joined the leader's in-flight call before releasing it.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (service.getCoalescedRequestCount() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<IslamicEventDetailDTO> result : results) {
+                assertEquals("Eid al Fitr", result.get(5, TimeUnit.SECONDS).getEventName());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(callers - 1, service.getCoalescedRequestCount());
+        verify(openAiClient.chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponseAsync_usesAsyncClientAndSharesCache() throws Exception {
+        ChatCompletion completion = completion(EVENT_JSON);
+        CompletableFuture<ChatCompletion> pending = new CompletableFuture<>();
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class))).thenReturn(pending);
+
+        CompletableFuture<IslamicEventDetailDTO> first = service.getResponseAsync("Eid al Fitr", IslamicEventDetailDTO.class);
+        CompletableFuture<IslamicEventDetailDTO> second = service.getResponseAsync("Eid al Fitr", IslamicEventDetailDTO.class);
+        assertFalse(first.isDone(), "The call should not block on the API");
+
+        pending.complete(completion);
+
+        assertEquals("Eid al Fitr", first.get(5, TimeUnit.SECONDS).getEventName());
+        assertSame(first.get(), second.get());
+        assertSame(first.get(), service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class));
+        verify(openAiClient.async().chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+        verify(openAiClient.chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponseAsync_completesExceptionallyOnMalformedJson() {
+        ChatCompletion completion = completion("not json");
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.completedFuture(completion));
+
+        CompletableFuture<IslamicEventDetailDTO> future = service.getResponseAsync("Eid al Fitr", IslamicEventDetailDTO.class);
+
+        ExecutionException error = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(JsonProcessingException.class, error.getCause());
+    }
+
+    @Test
+    void getResponsesAsync_mergesStrategiesIntoOneRequest() throws Exception {
+        ChatCompletion completion = completion("{\"hadithOfTheDay\":{\"content\":\"c\",\"status\":\"Sahih\",\"reference\":\"r\"},"
+            + "\"quranOfTheDay\":{\"quranTranslation\":\"t\",\"surah\":\"s\",\"ayat\":\"1\"}}");
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.completedFuture(completion));
+        HadithOfTheDayStrategy hadithStrategy = new HadithOfTheDayStrategy();
+        QuranOfTheDay quranStrategy = new QuranOfTheDay();
+
+        CompositeResponse response = service.getResponsesAsync(List.of(hadithStrategy, quranStrategy)).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Sahih", response.get(hadithStrategy).getStatus());
+        assertEquals("s", response.get(quranStrategy).getSurah());
+        // Each part is cached as if it had been requested on its own.
+        assertSame(response.get(quranStrategy), service.getResponseAsync(new QuranOfTheDay()).get());
+        verify(openAiClient.async().chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponsesAsync_fallsBackToIndividualRequestsOnMalformedResponse() throws Exception {
+        ChatCompletion malformed = completion("{\"hadithOfTheDay\":{\"content\":\"c\"}}");
+        ChatCompletion hadith = completion("{\"content\":\"c\",\"status\":\"Sahih\",\"reference\":\"r\"}");
+        ChatCompletion quran = completion("{\"quranTranslation\":\"t\",\"surah\":\"s\",\"ayat\":\"1\"}");
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.completedFuture(malformed))
+            .thenReturn(CompletableFuture.completedFuture(hadith))
+            .thenReturn(CompletableFuture.completedFuture(quran));
+        HadithOfTheDayStrategy hadithStrategy = new HadithOfTheDayStrategy();
+        QuranOfTheDay quranStrategy = new QuranOfTheDay();
+
+        CompositeResponse response = service.getResponsesAsync(List.of(hadithStrategy, quranStrategy)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(new HadithOfTheDayDTO("c", "Sahih", "r"), response.get(hadithStrategy));
+        assertEquals("s", response.get(quranStrategy).getSurah());
+        verify(openAiClient.async().chat().completions(), times(3)).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void getResponse_recordsLatencyAndTokensPerStrategy() throws Exception {
+        ChatCompletion completion = completion(EVENT_JSON);
+        CompletionUsage usage = mock(CompletionUsage.class);
+        when(usage.promptTokens()).thenReturn(120L);
+        when(usage.completionTokens()).thenReturn(80L);
+        when(completion.usage()).thenReturn(Optional.of(usage));
+        when(openAiClient.chat().completions().create(any(ChatCompletionCreateParams.class))).thenReturn(completion);
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+
+        service.getResponse(strategy);
+
+        assertEquals(1, meterRegistry.get("chatgpt.requests").tag("strategy", "IslamicEvent").tag("outcome", "success").timer().count());
+        assertEquals(120, meterRegistry.get("chatgpt.tokens").tag("strategy", "IslamicEvent").tag("type", "prompt").counter().count());
+        assertEquals(80, meterRegistry.get("chatgpt.tokens").tag("strategy", "IslamicEvent").tag("type", "completion").counter().count());
+    }
+
+    @Test
+    void getResponse_countsParseFailures() {
+        ChatCompletion completion = completion("not json");
+        when(openAiClient.chat().completions().create(any(ChatCompletionCreateParams.class))).thenReturn(completion);
+
+        assertThrows(JsonProcessingException.class, () -> service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class));
+
+        assertEquals(1, meterRegistry.get("chatgpt.parse.failures").tag("strategy", ChatGptMetrics.DIRECT).counter().count());
+    }
+
+    @Test
+    void getResponse_routesToTheFallbackModelAndCachesUnderThePreferredOne() throws Exception {
+        for (int i = 0; i < new ModelRoutingProperties().getMinSamples(); i++) {
+            modelRouter.record("gpt-3.5-turbo", Duration.ofMinutes(1).toNanos(), true);
+        }
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+
+        IslamicEventDetailDTO detail = service.getResponse(strategy);
+
+        ArgumentCaptor<ChatCompletionCreateParams> params = ArgumentCaptor.forClass(ChatCompletionCreateParams.class);
+        verify(openAiClient.chat().completions()).create(params.capture());
+        assertEquals("gpt-4o-mini", params.getValue().model().toString());
+        assertEquals(1, meterRegistry.get("chatgpt.requests").tag("model", "gpt-4o-mini").timer().count());
+        assertSame(detail, responseCache.get(new ChatResponseKey(strategy.getUserMessage(), IslamicEventDetailDTO.class, "gpt-3.5-turbo")));
+    }
+
+    @Test
+    void getResponse_hedgesSlowCallsOfHedgedStrategies() throws Exception {
+        hedgingProperties.getStrategies().add("IslamicEvent");
+        hedgingProperties.setDelay(Duration.ofMillis(20));
+        hedgingProperties.setMaxHedgeRate(1);
+        CompletableFuture<ChatCompletion> slow = new CompletableFuture<>();
+        ChatCompletion completion = completion(EVENT_JSON);
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(slow)
+            .thenReturn(CompletableFuture.completedFuture(completion));
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+
+        IslamicEventDetailDTO detail = service.getResponse(strategy);
+
+        assertEquals("Eid al Fitr", detail.getEventName());
+        assertTrue(slow.isCancelled(), "The slow call should be cancelled once the hedge answers");
+        verify(openAiClient.async().chat().completions(), times(2)).create(any(ChatCompletionCreateParams.class));
+        verify(openAiClient.chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+        assertEquals(1, meterRegistry.get("chatgpt.hedges").tag("outcome", "won").counter().count());
+    }
+
+    @Test
+    void getResponse_servesStaleResponseWhileCircuitIsOpenAndRefreshesItOnTrial() throws Exception {
+        cacheProperties.getTtl().put("IslamicEventDetailDTO", Duration.ofMillis(1));
+        IslamicEventDetailDTO first = service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class);
+        Thread.sleep(5);
+        openCircuit();
+
+        assertSame(first, service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class));
+        verify(openAiClient.chat().completions(), times(1)).create(any(ChatCompletionCreateParams.class));
+        verify(openAiClient.async().chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+
+        // Once a trial call is due, the stale response is still served and refreshed in the background.
+        circuitBreakerProperties.setOpenDuration(Duration.ZERO);
+        ChatCompletion completion = completion(EVENT_JSON);
+        when(openAiClient.async().chat().completions().create(any(ChatCompletionCreateParams.class)))
+            .thenReturn(CompletableFuture.completedFuture(completion));
+
+        assertSame(first, service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class));
+        verify(openAiClient.async().chat().completions(), timeout(1_000).times(1)).create(any(ChatCompletionCreateParams.class));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!circuitBreaker.isClosed() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(circuitBreaker.isClosed(), "A successful refresh should close the circuit");
+        assertEquals(2, service.getStaleResponseCount());
+    }
+
+    @Test
+    void getResponse_failsFastWhileCircuitIsOpenWithoutStaleResponse() {
+        openCircuit();
+
+        assertThrows(OpenAICircuitOpenException.class, () -> service.getResponse("Eid al Fitr", IslamicEventDetailDTO.class));
+        verify(openAiClient.chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void streamResponse_reportsFieldsAsTheyArriveAndCachesTheResponse() throws Exception {
+        StreamResponse<ChatCompletionChunk> stream = streamOf(EVENT_JSON, 7);
+        when(openAiClient.chat().completions().createStreaming(any(ChatCompletionCreateParams.class))).thenReturn(stream);
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        IslamicEventDetailDTO detail = service.streamResponse(strategy, fields::put);
+
+        assertEquals(List.of("eventName", "origin", "originRefLink", "sunnah", "sunnahRefLink"), List.copyOf(fields.keySet()));
+        assertEquals("https://example.com/sunnah", fields.get("sunnahRefLink"));
+        assertEquals("https://example.com/sunnah", detail.getSunnahRefLink());
+        verify(stream).close();
+        assertEquals(1, meterRegistry.get("chatgpt.stream.first.field").tag("strategy", "IslamicEvent").timer().count());
+
+        // The streamed response is cached for regular requests.
+        assertSame(detail, service.getResponse(strategy));
+        verify(openAiClient.chat().completions(), never()).create(any(ChatCompletionCreateParams.class));
+    }
+
+    @Test
+    void streamResponse_reportsCachedResponseAtOnce() throws Exception {
+        IslamicEvent strategy = new IslamicEvent();
+        strategy.setEventName("Eid al Fitr");
+        service.getResponse(strategy);
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        service.streamResponse(strategy, fields::put);
+
+        assertEquals("origin", fields.get("origin"));
+        verify(openAiClient.chat().completions(), never()).createStreaming(any(ChatCompletionCreateParams.class));
+    }
+
+    /**
+     * Opens the circuit breaker with a failed call.
+     */
+    private void openCircuit() {
+        circuitBreakerProperties.setMinimumCalls(1);
+        assertThrows(IllegalStateException.class, () -> circuitBreaker.execute(() -> {
+            throw new IllegalStateException("OpenAI is down");
+        }));
+        assertFalse(circuitBreaker.isClosed());
+    }
+
+    private ChatResponseStore newStore() {
+        ChatGptStoreProperties storeProperties = new ChatGptStoreProperties();
+        storeProperties.setPath(storeDirectory.resolve("responses.log"));
+        return new ChatResponseStore(storeProperties, cacheProperties);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static StreamResponse<ChatCompletionChunk> streamOf(String content, int chunkSize) {
+        List<ChatCompletionChunk> chunks = new ArrayList<>();
+        for (int i = 0; i < content.length(); i += chunkSize) {
+            ChatCompletionChunk.Choice.Delta delta = mock(ChatCompletionChunk.Choice.Delta.class);
+            when(delta.content()).thenReturn(Optional.of(content.substring(i, Math.min(content.length(), i + chunkSize))));
+            ChatCompletionChunk.Choice choice = mock(ChatCompletionChunk.Choice.class);
+            when(choice.delta()).thenReturn(delta);
+            ChatCompletionChunk chunk = mock(ChatCompletionChunk.class);
+            when(chunk.choices()).thenReturn(List.of(choice));
+            chunks.add(chunk);
+        }
+        StreamResponse<ChatCompletionChunk> stream = mock(StreamResponse.class);
+        when(stream.stream()).thenReturn(chunks.stream());
+        return stream;
+    }
+}
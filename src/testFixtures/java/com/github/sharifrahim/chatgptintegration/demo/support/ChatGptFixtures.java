@@ -0,0 +1,112 @@
+package com.github.sharifrahim.chatgptintegration.demo.support;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseCache;
+import com.github.sharifrahim.chatgptintegration.demo.cache.ChatResponseStore;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptCacheProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ChatGptStoreProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.HedgingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.ModelRoutingProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAICircuitBreakerProperties;
+import com.github.sharifrahim.chatgptintegration.demo.config.OpenAIGovernorProperties;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAICircuitBreaker;
+import com.github.sharifrahim.chatgptintegration.demo.governor.OpenAIGovernor;
+import com.github.sharifrahim.chatgptintegration.demo.hedging.RequestHedger;
+import com.github.sharifrahim.chatgptintegration.demo.json.ResponseSchemaRegistry;
+import com.github.sharifrahim.chatgptintegration.demo.metrics.ChatGptMetrics;
+import com.github.sharifrahim.chatgptintegration.demo.routing.ModelRouter;
+import com.github.sharifrahim.chatgptintegration.demo.service.impl.ChatGptServiceImpl;
+import com.openai.client.OpenAIClient;
+import com.openai.models.ChatCompletion;
+import com.openai.models.ChatCompletionMessage;
+import com.openai.models.CompletionUsage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * OpenAI fixtures shared by the tests and the benchmarks.
+ *
+ * @author sharif
+ * @see <a href="https://github.com/sharifrahim">https://github.com/sharifrahim</a>
+ */
+public final class ChatGptFixtures {
+
+    private ChatGptFixtures() {
+    }
+
+    /**
+     * Creates a chat completion with the given content and no reported usage.
+     *
+     * @param content the content of the first choice.
+     * @return the completion.
+     */
+    public static ChatCompletion completion(String content) {
+        return completion(content, Optional.empty());
+    }
+
+    /**
+     * Creates a chat completion with the given content, reporting the given number of prompt tokens.
+     *
+     * @param content      the content of the first choice.
+     * @param promptTokens the prompt tokens reported in the usage.
+     * @return the completion.
+     */
+    public static ChatCompletion completion(String content, long promptTokens) {
+        CompletionUsage usage = mock(CompletionUsage.class);
+        when(usage.promptTokens()).thenReturn(promptTokens);
+        return completion(content, Optional.of(usage));
+    }
+
+    /**
+     * Creates a governor whose limits are never reached.
+     * <p>
+     * The governor must be closed once it is no longer used.
+     * </p>
+     *
+     * @return the governor.
+     */
+    public static OpenAIGovernor unlimitedGovernor() {
+        OpenAIGovernorProperties properties = new OpenAIGovernorProperties();
+        properties.setRequestsPerMinute(Long.MAX_VALUE / 2);
+        properties.setTokensPerMinute(Long.MAX_VALUE / 2);
+        properties.setMaxConcurrentRequests(Integer.MAX_VALUE);
+        return new OpenAIGovernor(properties);
+    }
+
+    /**
+     * Creates a service calling the given client, without a persistent store.
+     *
+     * @param openAiClient    the client called.
+     * @param cacheProperties the cache configuration.
+     * @param governor        the governor admitting the calls.
+     * @return the service.
+     */
+    public static ChatGptServiceImpl newService(OpenAIClient openAiClient, ChatGptCacheProperties cacheProperties,
+        OpenAIGovernor governor) {
+        ChatGptStoreProperties storeProperties = new ChatGptStoreProperties();
+        storeProperties.setEnabled(false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ModelRouter modelRouter = new ModelRouter(new ModelRoutingProperties(), meterRegistry);
+        return new ChatGptServiceImpl(openAiClient, new ChatResponseCache(cacheProperties),
+            new ChatResponseStore(storeProperties, cacheProperties), governor,
+            new ChatGptMetrics(meterRegistry), new ResponseSchemaRegistry(List.of()), modelRouter,
+            new RequestHedger(new HedgingProperties(), modelRouter, meterRegistry),
+            new OpenAICircuitBreaker(new OpenAICircuitBreakerProperties()));
+    }
+
+    private static ChatCompletion completion(String content, Optional<CompletionUsage> usage) {
+        ChatCompletionMessage message = mock(ChatCompletionMessage.class);
+        when(message.content()).thenReturn(Optional.of(content));
+        ChatCompletion.Choice choice = mock(ChatCompletion.Choice.class);
+        when(choice.message()).thenReturn(message);
+        ChatCompletion completion = mock(ChatCompletion.class);
+        when(completion.choices()).thenReturn(List.of(choice));
+        when(completion.usage()).thenReturn(usage);
+        return completion;
+    }
+}